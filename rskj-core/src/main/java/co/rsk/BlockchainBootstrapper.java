@@ -0,0 +1,40 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk;
+
+import co.rsk.config.RskSystemProperties;
+import co.rsk.core.bc.Blockchain;
+import org.ethereum.config.DefaultConfig;
+
+/**
+ * Loads the blockchain of the node database for the command line tools, without running the node
+ */
+class BlockchainBootstrapper extends SpringNodeBootstrapper {
+    BlockchainBootstrapper(String[] args) {
+        super(DefaultConfig.class, args);
+    }
+
+    Blockchain getBlockchain() {
+        return getSpringContext().getBean(Blockchain.class);
+    }
+
+    RskSystemProperties getConfig() {
+        return getSpringContext().getBean(RskSystemProperties.class);
+    }
+}
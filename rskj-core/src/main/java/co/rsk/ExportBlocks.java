@@ -0,0 +1,48 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk;
+
+import co.rsk.blocks.BinaryBlockRecorder;
+import co.rsk.blocks.BlockArchiveExporter;
+import org.ethereum.config.DefaultConfig;
+import org.ethereum.db.BlockStore;
+
+/**
+ * Exports the main chain blocks of a node database to a binary block archive.
+ *
+ * Usage: ExportBlocks databaseDir fromBlock toBlock filename [compressed]
+ */
+public class ExportBlocks {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("Usage: ExportBlocks databaseDir fromBlock toBlock filename [compressed]");
+            return;
+        }
+
+        BlockStore blockStore = new DefaultConfig().buildBlockStore(args[0]);
+        long fromBlock = Long.parseLong(args[1]);
+        long toBlock = Long.parseLong(args[2]);
+        boolean compressed = args.length > 4 && "compressed".equals(args[4]);
+
+        try (BinaryBlockRecorder recorder = new BinaryBlockRecorder(args[3], compressed)) {
+            long count = new BlockArchiveExporter(blockStore).export(fromBlock, toBlock, recorder);
+            System.out.println(String.format("Exported %d blocks", count));
+        }
+    }
+}
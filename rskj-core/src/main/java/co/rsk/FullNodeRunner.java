@@ -18,12 +18,17 @@
 package co.rsk;
 
 import co.rsk.blocks.BlockPlayer;
+import co.rsk.blocks.BinaryBlockPlayer;
+import co.rsk.blocks.BinaryBlockRecorder;
+import co.rsk.blocks.BlockArchiveImporter;
 import co.rsk.blocks.FileBlockPlayer;
 import co.rsk.blocks.FileBlockRecorder;
 import co.rsk.config.RskSystemProperties;
 import co.rsk.core.Rsk;
 import co.rsk.core.RskImpl;
+import co.rsk.core.SenderRecoverer;
 import co.rsk.core.bc.Blockchain;
+import co.rsk.logfilter.BlocksBloomService;
 import co.rsk.mine.MinerClient;
 import co.rsk.mine.MinerServer;
 import co.rsk.mine.TxBuilder;
@@ -32,6 +37,7 @@ import co.rsk.net.*;
 import co.rsk.net.discovery.UDPServer;
 import co.rsk.rpc.netty.Web3HttpServer;
 import co.rsk.rpc.netty.Web3WebSocketServer;
+import co.rsk.validators.ProofOfWorkRule;
 import org.ethereum.core.*;
 import org.ethereum.net.eth.EthVersion;
 import org.ethereum.net.server.ChannelManager;
@@ -39,12 +45,14 @@ import org.ethereum.net.server.PeerServer;
 import org.ethereum.rpc.Web3;
 import org.ethereum.sync.SyncPool;
 import org.ethereum.util.BuildInfo;
+import org.ethereum.vm.VM;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.stream.Collectors;
 
 @Component
@@ -70,7 +78,10 @@ public class FullNodeRunner implements NodeRunner {
     private final PeerServer peerServer;
     private final SyncPool.PeerClientFactory peerClientFactory;
     private final TransactionGateway transactionGateway;
+    private final BlocksBloomService blocksBloomService;
     private final BuildInfo buildInfo;
+    private final ProofOfWorkRule proofOfWorkRule;
+    private final SenderRecoverer senderRecoverer;
 
     @Autowired
     public FullNodeRunner(
@@ -92,7 +103,10 @@ public class FullNodeRunner implements NodeRunner {
             PeerServer peerServer,
             SyncPool.PeerClientFactory peerClientFactory,
             TransactionGateway transactionGateway,
-            BuildInfo buildInfo) {
+            BlocksBloomService blocksBloomService,
+            BuildInfo buildInfo,
+            ProofOfWorkRule proofOfWorkRule,
+            SenderRecoverer senderRecoverer) {
         this.rsk = rsk;
         this.udpServer = udpServer;
         this.minerServer = minerServer;
@@ -111,7 +125,10 @@ public class FullNodeRunner implements NodeRunner {
         this.peerServer = peerServer;
         this.peerClientFactory = peerClientFactory;
         this.transactionGateway = transactionGateway;
+        this.blocksBloomService = blocksBloomService;
         this.buildInfo = buildInfo;
+        this.proofOfWorkRule = proofOfWorkRule;
+        this.senderRecoverer = senderRecoverer;
     }
 
     @Override
@@ -126,7 +143,10 @@ public class FullNodeRunner implements NodeRunner {
         );
         buildInfo.printInfo(logger);
 
+        VM.getOpcodeProfiler().setEnabled(rskSystemProperties.isOpcodeProfilerEnabled());
+
         transactionGateway.start();
+        blocksBloomService.start();
         // this should be the genesis block at this point
         transactionPool.start(blockchain.getBestBlock());
         channelManager.start();
@@ -258,6 +278,7 @@ public class FullNodeRunner implements NodeRunner {
         peerServer.stop();
         messageHandler.stop();
         channelManager.stop();
+        blocksBloomService.stop();
         transactionGateway.stop();
 
         if (rskSystemProperties.isPeerDiscoveryEnabled()) {
@@ -273,8 +294,19 @@ public class FullNodeRunner implements NodeRunner {
     }
 
     private void setupRecorder(@Nullable String blocksRecorderFileName) {
-        if (blocksRecorderFileName != null) {
+        if (blocksRecorderFileName == null) {
+            return;
+        }
+
+        if (!rskSystemProperties.isBlocksRecorderCompressed()) {
             blockchain.setBlockRecorder(new FileBlockRecorder(blocksRecorderFileName));
+            return;
+        }
+
+        try {
+            blockchain.setBlockRecorder(new BinaryBlockRecorder(blocksRecorderFileName, true));
+        } catch (IOException e) {
+            logger.error("Exception creating block recorder", e);
         }
     }
 
@@ -285,8 +317,24 @@ public class FullNodeRunner implements NodeRunner {
 
         new Thread(() -> {
             RskImpl rskImpl = (RskImpl) rsk;
+            rskImpl.setIsPlayingBlocks(true);
+
+            // binary archives are imported using the pipelined importer, old text files are still played
+            if (BinaryBlockPlayer.isBinaryFile(blocksPlayerFileName)) {
+                try (BinaryBlockPlayer bplayer = new BinaryBlockPlayer(blocksPlayerFileName)) {
+                    new BlockArchiveImporter(bc, proofOfWorkRule, senderRecoverer, 100).importBlocks(bplayer, cm::broadcastBlock);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    logger.error("Error", e);
+                } finally {
+                    rskImpl.setIsPlayingBlocks(false);
+                }
+
+                return;
+            }
+
             try (FileBlockPlayer bplayer = new FileBlockPlayer(rskSystemProperties, blocksPlayerFileName)) {
-                rskImpl.setIsPlayingBlocks(true);
                 connectBlocks(bplayer, bc, cm);
             } catch (Exception e) {
                 logger.error("Error", e);
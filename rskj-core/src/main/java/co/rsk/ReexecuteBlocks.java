@@ -0,0 +1,54 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk;
+
+import co.rsk.blocks.BlockReexecutor;
+import co.rsk.core.bc.Blockchain;
+
+import java.util.Arrays;
+
+/**
+ * Re-executes a range of main chain blocks of the node database, verifying their
+ * state roots and reporting the throughput. The blocks are not connected again,
+ * so the chain in the database is not changed.
+ *
+ * Usage: ReexecuteBlocks fromBlock toBlock [threads] [node options]
+ */
+public class ReexecuteBlocks {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: ReexecuteBlocks fromBlock toBlock [threads] [node options]");
+            return;
+        }
+
+        long fromBlock = Long.parseLong(args[0]);
+        long toBlock = Long.parseLong(args[1]);
+        boolean hasThreads = args.length > 2 && args[2].matches("\\d+");
+        int threads = hasThreads ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String[] nodeArgs = Arrays.copyOfRange(args, hasThreads ? 3 : 2, args.length);
+
+        Blockchain blockchain = new BlockchainBootstrapper(nodeArgs).getBlockchain();
+        BlockReexecutor reexecutor = new BlockReexecutor(blockchain.getBlockStore(), blockchain.getBlockExecutor(), threads);
+
+        boolean valid = reexecutor.reexecute(fromBlock, toBlock);
+
+        reexecutor.getReport().forEach(System.out::println);
+        System.exit(valid ? 0 : 1);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk;
+
+import co.rsk.blocks.BinaryBlockPlayer;
+import co.rsk.blocks.BlockReplayBenchmark;
+import co.rsk.blocks.FileBlockPlayer;
+
+import java.util.Arrays;
+
+/**
+ * Replays a recorded block file, binary archive or text file, into the node database
+ * and reports the throughput and the time spent in each phase of connecting the blocks.
+ *
+ * The database (database.dir) is the starting state snapshot: its best block should be the
+ * parent of the first recorded block. The replayed blocks are saved, so use a copy of it.
+ *
+ * Usage: ReplayBlocks filename [warmupBlocks] [node options]
+ */
+public class ReplayBlocks {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayBlocks filename [warmupBlocks] [node options]");
+            return;
+        }
+
+        String filename = args[0];
+        boolean hasWarmup = args.length > 1 && args[1].matches("\\d+");
+        int warmupBlocks = hasWarmup ? Integer.parseInt(args[1]) : 0;
+        String[] nodeArgs = Arrays.copyOfRange(args, hasWarmup ? 2 : 1, args.length);
+
+        BlockchainBootstrapper bootstrapper = new BlockchainBootstrapper(nodeArgs);
+        BlockReplayBenchmark benchmark = new BlockReplayBenchmark(bootstrapper.getBlockchain(), warmupBlocks);
+
+        if (BinaryBlockPlayer.isBinaryFile(filename)) {
+            try (BinaryBlockPlayer player = new BinaryBlockPlayer(filename)) {
+                benchmark.replay(player);
+            }
+        } else {
+            try (FileBlockPlayer player = new FileBlockPlayer(bootstrapper.getConfig(), filename)) {
+                benchmark.replay(player);
+            }
+        }
+
+        benchmark.getReport().forEach(System.out::println);
+        System.exit(0);
+    }
+}
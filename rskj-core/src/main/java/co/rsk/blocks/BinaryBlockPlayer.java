@@ -0,0 +1,128 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.blocks;
+
+import org.ethereum.core.Block;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the blocks of a binary archive written by {@link BinaryBlockRecorder}.
+ */
+public class BinaryBlockPlayer implements BlockPlayer, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger("blockplayer");
+
+    private DataInputStream input;
+
+    public BinaryBlockPlayer(String filename) throws IOException {
+        this(new FileInputStream(filename));
+    }
+
+    public BinaryBlockPlayer(InputStream stream) throws IOException {
+        DataInputStream header = new DataInputStream(stream);
+        byte[] magic = new byte[BinaryBlockRecorder.MAGIC.length];
+
+        header.readFully(magic);
+
+        if (!Arrays.equals(magic, BinaryBlockRecorder.MAGIC)) {
+            throw new IOException("Not a block archive");
+        }
+
+        byte version = header.readByte();
+
+        if (version != BinaryBlockRecorder.VERSION) {
+            throw new IOException(String.format("Unsupported block archive version %d", version));
+        }
+
+        boolean compressed = (header.readByte() & BinaryBlockRecorder.FLAG_COMPRESSED) != 0;
+        InputStream in = compressed ? new GZIPInputStream(stream, 1 << 16) : stream;
+
+        this.input = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+    }
+
+    /**
+     * Checks if a file starts with the block archive magic
+     */
+    public static boolean isBinaryFile(String filename) {
+        try (DataInputStream stream = new DataInputStream(new FileInputStream(filename))) {
+            byte[] magic = new byte[BinaryBlockRecorder.MAGIC.length];
+            stream.readFully(magic);
+            return Arrays.equals(magic, BinaryBlockRecorder.MAGIC);
+        }
+        catch (IOException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public Block readBlock() {
+        try {
+            byte[] encoded = readBlockBytes();
+
+            return encoded == null ? null : new Block(encoded);
+        }
+        catch (IOException ex) {
+            logger.error("Exception reading block", ex);
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the next encoded block
+     *
+     * @return the encoded block, null at the end of the archive
+     */
+    public byte[] readBlockBytes() throws IOException {
+        int length;
+
+        try {
+            length = input.readInt();
+        }
+        catch (EOFException ex) {
+            return null;
+        }
+
+        if (length < 0) {
+            throw new IOException(String.format("Invalid block length %d", length));
+        }
+
+        byte[] encoded = new byte[length];
+        input.readFully(encoded);
+
+        return encoded;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.input != null) {
+            this.input.close();
+            this.input = null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.blocks;
+
+import org.ethereum.core.Block;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records blocks in a binary archive.
+ *
+ * The archive starts with a header (magic, version and flags); then, each block
+ * is written as its length (4 bytes, big endian) followed by its encoded bytes.
+ * If the archive is compressed, everything after the header is gzipped.
+ */
+public class BinaryBlockRecorder implements BlockRecorder, AutoCloseable {
+    public static final byte[] MAGIC = { 'R', 'S', 'K', 'B' };
+    public static final byte VERSION = 1;
+    public static final byte FLAG_COMPRESSED = 0x01;
+
+    private static final Logger logger = LoggerFactory.getLogger("blockrecorder");
+
+    private DataOutputStream output;
+
+    public BinaryBlockRecorder(String filename, boolean compressed) throws IOException {
+        this(new FileOutputStream(filename), compressed);
+    }
+
+    public BinaryBlockRecorder(OutputStream stream, boolean compressed) throws IOException {
+        stream.write(MAGIC);
+        stream.write(VERSION);
+        stream.write(compressed ? FLAG_COMPRESSED : 0);
+
+        OutputStream out = compressed ? new GZIPOutputStream(stream, true) : stream;
+
+        this.output = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+    }
+
+    @Override
+    public void writeBlock(Block block) {
+        try {
+            writeBlockBytes(block.getEncoded());
+            output.flush();
+        }
+        catch (IOException ex) {
+            logger.error("Exception writing block: ", ex);
+        }
+    }
+
+    /**
+     * Writes an encoded block, without flushing the archive
+     */
+    public void writeBlockBytes(byte[] encoded) throws IOException {
+        output.writeInt(encoded.length);
+        output.write(encoded);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.output != null) {
+            this.output.close();
+            this.output = null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.blocks;
+
+import org.ethereum.core.Block;
+import org.ethereum.db.BlockStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Exports the main chain blocks of a block store to a binary archive.
+ */
+public class BlockArchiveExporter {
+    private static final Logger logger = LoggerFactory.getLogger("blockrecorder");
+
+    private final BlockStore blockStore;
+
+    public BlockArchiveExporter(BlockStore blockStore) {
+        this.blockStore = blockStore;
+    }
+
+    /**
+     * Writes the main chain blocks from fromBlock to toBlock (both included), stopping at the first missing block
+     *
+     * @return the number of exported blocks
+     */
+    public long export(long fromBlock, long toBlock, BinaryBlockRecorder recorder) throws IOException {
+        long count = 0;
+
+        for (long number = fromBlock; number <= toBlock; number++) {
+            Block block = blockStore.getChainBlockByNumber(number);
+
+            if (block == null) {
+                logger.warn("Block {} not found, export stopped", number);
+                break;
+            }
+
+            recorder.writeBlockBytes(block.getEncoded());
+            count++;
+        }
+
+        return count;
+    }
+}
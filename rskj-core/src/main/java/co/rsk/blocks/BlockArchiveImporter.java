@@ -0,0 +1,326 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.blocks;
+
+import co.rsk.core.SenderRecoverer;
+import co.rsk.core.bc.Blockchain;
+import co.rsk.net.BlockProcessResult;
+import co.rsk.validators.BlockValidationRule;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.ethereum.core.Block;
+import org.ethereum.core.ImportResult;
+import org.ethereum.core.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Imports the blocks of a binary archive into the blockchain.
+ *
+ * The import is pipelined, each stage running in its own thread:
+ * <ol>
+ * <li>read: reads the encoded blocks from the archive</li>
+ * <li>decode: decodes them, computing their hashes and recovering the transaction senders on the sender recoverer workers</li>
+ * <li>validate: checks the rules that only depend on the block header, like the proof of work</li>
+ * <li>connect: connects them to the blockchain (validation and execution), in the calling thread</li>
+ * <li>persist: saves the receipts and indexes the transactions of the connected blocks</li>
+ * </ol>
+ * The stages are linked by bounded queues, so the next blocks are decoded and validated
+ * while a block is executed, and the receipts of a block are saved while the next one is executed.
+ * Only the blocks connected by the import are persisted in the persist stage, and the import
+ * is aborted if saving their data fails.
+ */
+public class BlockArchiveImporter {
+    private static final Logger logger = LoggerFactory.getLogger("blockplayer");
+
+    private static final byte[] NO_MORE_DATA = new byte[0];
+    private static final Runnable NO_MORE_TASKS = () -> { };
+
+    private final Blockchain blockchain;
+    private final BlockValidationRule headerValidationRule;
+    private final SenderRecoverer senderRecoverer;
+    private final int queueSize;
+
+    private final StageMetrics readMetrics = new StageMetrics("read");
+    private final StageMetrics decodeMetrics = new StageMetrics("decode");
+    private final StageMetrics validateMetrics = new StageMetrics("validate");
+    private final StageMetrics connectMetrics = new StageMetrics("connect");
+    private final StageMetrics persistMetrics = new StageMetrics("persist");
+
+    public BlockArchiveImporter(Blockchain blockchain, int queueSize) {
+        this(blockchain, block -> true, queueSize);
+    }
+
+    public BlockArchiveImporter(Blockchain blockchain, BlockValidationRule headerValidationRule, int queueSize) {
+        this(blockchain, headerValidationRule, new SenderRecoverer(0), queueSize);
+    }
+
+    public BlockArchiveImporter(Blockchain blockchain, BlockValidationRule headerValidationRule, SenderRecoverer senderRecoverer, int queueSize) {
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("Queue size should be positive");
+        }
+
+        this.blockchain = blockchain;
+        this.headerValidationRule = headerValidationRule;
+        this.senderRecoverer = senderRecoverer;
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Connects the blocks of the archive
+     *
+     * @param player      the archive to import
+     * @param onImported  called with each block successfully connected
+     * @return the number of blocks successfully connected
+     * @throws IllegalStateException if the receipts or the transactions index of a block couldn't be saved
+     */
+    public long importBlocks(BinaryBlockPlayer player, Consumer<Block> onImported) throws InterruptedException {
+        BlockingQueue<byte[]> encodedBlocks = new ArrayBlockingQueue<>(queueSize);
+        BlockingQueue<Optional<Block>> decodedBlocks = new ArrayBlockingQueue<>(queueSize);
+        BlockingQueue<Optional<Block>> validatedBlocks = new ArrayBlockingQueue<>(queueSize);
+        BlockingQueue<Runnable> persistTasks = new ArrayBlockingQueue<>(queueSize);
+
+        Thread reader = new Thread(() -> read(player, encodedBlocks), "blockarchive-reader");
+        Thread decoder = new Thread(() -> decode(encodedBlocks, decodedBlocks), "blockarchive-decoder");
+        Thread validator = new Thread(() -> validate(decodedBlocks, validatedBlocks), "blockarchive-validator");
+        AtomicReference<RuntimeException> persistFailure = new AtomicReference<>();
+        Thread persister = new Thread(() -> persist(persistTasks, persistFailure), "blockarchive-persister");
+
+        reader.start();
+        decoder.start();
+        validator.start();
+        persister.start();
+
+        long count = 0;
+
+        try {
+            // the connecting thread waits while the queue is full, so the pending tasks are bounded and run in order
+            blockchain.setPersistenceExecutor(task -> Uninterruptibles.putUninterruptibly(persistTasks, task));
+
+            for (Optional<Block> next = validatedBlocks.take(); next.isPresent(); next = validatedBlocks.take()) {
+                Block block = next.get();
+
+                long start = System.nanoTime();
+                ImportResult result = blockchain.tryToConnect(block);
+                connectMetrics.add(System.nanoTime() - start);
+
+                checkPersisted(persistFailure);
+
+                if (BlockProcessResult.importOk(result)) {
+                    count++;
+                    onImported.accept(block);
+                } else {
+                    logger.warn("Block {} {} not imported: {}", block.getNumber(), block.getShortHash(), result);
+                }
+            }
+        } finally {
+            reader.interrupt();
+            decoder.interrupt();
+            validator.interrupt();
+            blockchain.setPersistenceExecutor(null);
+            Uninterruptibles.putUninterruptibly(persistTasks, NO_MORE_TASKS);
+            persister.join();
+        }
+
+        checkPersisted(persistFailure);
+
+        for (StageMetrics metrics : getMetrics()) {
+            logger.info("{}", metrics);
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the time spent by each stage, in pipeline order
+     */
+    public List<StageMetrics> getMetrics() {
+        return Collections.unmodifiableList(Arrays.asList(readMetrics, decodeMetrics, validateMetrics, connectMetrics, persistMetrics));
+    }
+
+    private void read(BinaryBlockPlayer player, BlockingQueue<byte[]> encodedBlocks) {
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                byte[] encoded = player.readBlockBytes();
+
+                if (encoded == null) {
+                    break;
+                }
+
+                readMetrics.add(System.nanoTime() - start);
+                encodedBlocks.put(encoded);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception ex) {
+            logger.error("Exception reading block archive", ex);
+        }
+
+        putQuietly(encodedBlocks, NO_MORE_DATA);
+    }
+
+    private void decode(BlockingQueue<byte[]> encodedBlocks, BlockingQueue<Optional<Block>> decodedBlocks) {
+        try {
+            for (byte[] encoded = encodedBlocks.take(); encoded != NO_MORE_DATA; encoded = encodedBlocks.take()) {
+                long start = System.nanoTime();
+                Block block = new Block(encoded);
+
+                // computed here to keep them out of the connecting thread, they are cached in the block
+                block.getHash();
+
+                for (Transaction tx : block.getTransactionsList()) {
+                    tx.getHash();
+                }
+
+                senderRecoverer.recover(block.getTransactionsList());
+
+                decodeMetrics.add(System.nanoTime() - start);
+                decodedBlocks.put(Optional.of(block));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception ex) {
+            logger.error("Exception decoding block", ex);
+        }
+
+        putQuietly(decodedBlocks, Optional.empty());
+    }
+
+    private void validate(BlockingQueue<Optional<Block>> decodedBlocks, BlockingQueue<Optional<Block>> validatedBlocks) {
+        try {
+            for (Optional<Block> next = decodedBlocks.take(); next.isPresent(); next = decodedBlocks.take()) {
+                Block block = next.get();
+
+                long start = System.nanoTime();
+                boolean valid = headerValidationRule.isValid(block);
+                validateMetrics.add(System.nanoTime() - start);
+
+                if (valid) {
+                    validatedBlocks.put(next);
+                } else {
+                    logger.warn("Block {} {} not imported: invalid header", block.getNumber(), block.getShortHash());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception ex) {
+            logger.error("Exception validating block", ex);
+        }
+
+        putQuietly(validatedBlocks, Optional.empty());
+    }
+
+    private void persist(BlockingQueue<Runnable> persistTasks, AtomicReference<RuntimeException> persistFailure) {
+        try {
+            for (Runnable task = persistTasks.take(); task != NO_MORE_TASKS; task = persistTasks.take()) {
+                // after a failure the tasks are still taken, so the connecting thread doesn't wait, but not run
+                if (persistFailure.get() != null) {
+                    continue;
+                }
+
+                long start = System.nanoTime();
+
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    logger.error("Exception persisting block data", ex);
+                    persistFailure.set(ex);
+                }
+
+                persistMetrics.add(System.nanoTime() - start);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void checkPersisted(AtomicReference<RuntimeException> persistFailure) {
+        RuntimeException failure = persistFailure.get();
+
+        if (failure != null) {
+            throw new IllegalStateException("Error persisting block data", failure);
+        }
+    }
+
+    private static <T> void putQuietly(BlockingQueue<T> queue, T element) {
+        try {
+            queue.put(element);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Number of items processed by a stage, and the time spent processing them,
+     * not including the time waiting for the previous or next stages
+     */
+    public static class StageMetrics {
+        private final String name;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        StageMetrics(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public synchronized long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public synchronized long getAverageNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("stage: [%s] count: [%d] average: [%d]nano max: [%d]nano total: [%d]nano",
+                    name, count, getAverageNanos(), maxNanos, totalNanos);
+        }
+    }
+}
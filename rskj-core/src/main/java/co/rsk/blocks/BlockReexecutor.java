@@ -0,0 +1,203 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.blocks;
+
+import co.rsk.core.bc.BlockExecutor;
+import org.ethereum.core.Block;
+import org.ethereum.db.BlockStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-executes already imported main chain blocks, checking that their state roots,
+ * receipts, logs bloom, gas used and fees match the executed ones, without connecting them.
+ *
+ * Each block is executed from the state root of its parent, so the range is split
+ * into independent subranges executed by different workers. The states of the parents
+ * should be available in the store.
+ */
+public class BlockReexecutor {
+    private static final Logger logger = LoggerFactory.getLogger("blockexecutor");
+
+    private final BlockStore blockStore;
+    private final BlockExecutor blockExecutor;
+    private final int threads;
+
+    private final List<Long> invalidBlocks = new ArrayList<>();
+    private long blocks;
+    private long transactions;
+    private long gasUsed;
+    private long totalNanos;
+
+    public BlockReexecutor(BlockStore blockStore, BlockExecutor blockExecutor, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads should be positive");
+        }
+
+        this.blockStore = blockStore;
+        this.blockExecutor = blockExecutor;
+        this.threads = threads;
+    }
+
+    /**
+     * Re-executes the main chain blocks from one number to another, both included
+     *
+     * @return true if all the blocks were found and their execution results match
+     */
+    public boolean reexecute(long fromBlock, long toBlock) throws InterruptedException {
+        if (fromBlock < 1 || toBlock < fromBlock) {
+            throw new IllegalArgumentException("Invalid block range");
+        }
+
+        long nblocks = toBlock - fromBlock + 1;
+        long rangeSize = (nblocks + threads - 1) / threads;
+
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "blockReexecutor-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (long from = fromBlock; from <= toBlock; from += rangeSize) {
+                long rangeFrom = from;
+                long rangeTo = Math.min(toBlock, from + rangeSize - 1);
+                futures.add(executorService.submit(() -> reexecuteRange(rangeFrom, rangeTo)));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error re-executing blocks", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        synchronized (this) {
+            totalNanos += System.nanoTime() - start;
+            Collections.sort(invalidBlocks);
+            return invalidBlocks.isEmpty();
+        }
+    }
+
+    /**
+     * Returns the numbers of the blocks that were not found or whose execution results don't match
+     */
+    public synchronized List<Long> getInvalidBlocks() {
+        return new ArrayList<>(invalidBlocks);
+    }
+
+    public synchronized long getBlocks() {
+        return blocks;
+    }
+
+    public synchronized long getTransactions() {
+        return transactions;
+    }
+
+    public synchronized long getGasUsed() {
+        return gasUsed;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized double getGasPerSecond() {
+        return totalNanos == 0 ? 0 : gasUsed * 1000000000.0 / totalNanos;
+    }
+
+    /**
+     * Returns the report lines: the totals and the throughput
+     */
+    public synchronized List<String> getReport() {
+        List<String> lines = new ArrayList<>();
+        double seconds = totalNanos / 1000000000.0;
+
+        lines.add(String.format("blocks: [%d] invalid: [%d] txs: [%d] gas: [%d] time: [%d]ms threads: [%d]",
+                blocks, invalidBlocks.size(), transactions, gasUsed, totalNanos / 1000000, threads));
+        lines.add(String.format("blocks/s: [%.2f] txs/s: [%.2f] gas/s: [%.0f]",
+                seconds == 0 ? 0 : blocks / seconds, seconds == 0 ? 0 : transactions / seconds, getGasPerSecond()));
+
+        if (!invalidBlocks.isEmpty()) {
+            lines.add(String.format("invalid blocks: %s", invalidBlocks));
+        }
+
+        return lines;
+    }
+
+    private void reexecuteRange(long fromBlock, long toBlock) {
+        logger.info("Re-executing blocks {} to {}", fromBlock, toBlock);
+
+        Block parent = blockStore.getChainBlockByNumber(fromBlock - 1);
+
+        for (long number = fromBlock; number <= toBlock && !Thread.currentThread().isInterrupted(); number++) {
+            Block block = blockStore.getChainBlockByNumber(number);
+
+            if (block != null && parent != null && !parent.isParentOf(block)) {
+                parent = blockStore.getBlockByHash(block.getParentHash().getBytes());
+            }
+
+            if (block == null || parent == null) {
+                logger.error("Block {} or its parent not found", number);
+                addResult(number, null, false);
+                parent = block;
+                continue;
+            }
+
+            boolean valid;
+
+            try {
+                valid = blockExecutor.executeAndValidate(block, parent);
+            } catch (RuntimeException e) {
+                logger.error("Error re-executing block {} {}", number, block.getShortHash(), e);
+                valid = false;
+            }
+
+            if (!valid) {
+                logger.error("Block {} {} re-execution doesn't match", number, block.getShortHash());
+            }
+
+            addResult(number, block, valid);
+            parent = block;
+        }
+    }
+
+    private synchronized void addResult(long number, Block block, boolean valid) {
+        if (!valid) {
+            invalidBlocks.add(number);
+            return;
+        }
+
+        blocks++;
+        transactions += block.getTransactionsList().size();
+        gasUsed += block.getGasUsed();
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.blocks;
+
+import co.rsk.core.bc.BlockConnectListener;
+import co.rsk.core.bc.Blockchain;
+import co.rsk.net.BlockProcessResult;
+import org.ethereum.core.Block;
+import org.ethereum.core.ImportResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * Replays recorded blocks into a blockchain, measuring the throughput and the time spent
+ * in each phase of connecting them.
+ *
+ * The blockchain state should be the parent of the first recorded block. The first blocks
+ * are connected to warm up the caches and the JIT, and they are not measured.
+ */
+public class BlockReplayBenchmark implements BlockConnectListener {
+    private static final Logger logger = LoggerFactory.getLogger("blockplayer");
+
+    private final Blockchain blockchain;
+    private final int warmupBlocks;
+
+    private final Map<Phase, BlockArchiveImporter.StageMetrics> phaseMetrics = new EnumMap<>(Phase.class);
+    private volatile boolean measuring;
+
+    private long blocks;
+    private long failedBlocks;
+    private long transactions;
+    private long gasUsed;
+    private long totalNanos;
+    private long gcCount;
+    private long gcMillis;
+
+    public BlockReplayBenchmark(Blockchain blockchain, int warmupBlocks) {
+        if (warmupBlocks < 0) {
+            throw new IllegalArgumentException("Warmup blocks should not be negative");
+        }
+
+        this.blockchain = blockchain;
+        this.warmupBlocks = warmupBlocks;
+
+        for (Phase phase : Phase.values()) {
+            phaseMetrics.put(phase, new BlockArchiveImporter.StageMetrics(phase.name().toLowerCase()));
+        }
+    }
+
+    /**
+     * Connects all the blocks of the player, measuring the ones after the warmup
+     */
+    public void replay(BlockPlayer player) {
+        blockchain.setConnectListener(this);
+
+        try {
+            long warmedUp = 0;
+            Block block = player.readBlock();
+
+            for (; block != null && warmedUp < warmupBlocks; block = player.readBlock()) {
+                connect(block);
+                warmedUp++;
+            }
+
+            logger.info("Warmed up with {} blocks", warmedUp);
+
+            long gcCountStart = getTotalGcCount();
+            long gcMillisStart = getTotalGcMillis();
+            long start = System.nanoTime();
+            measuring = true;
+
+            for (; block != null; block = player.readBlock()) {
+                if (connect(block)) {
+                    blocks++;
+                    transactions += block.getTransactionsList().size();
+                    gasUsed += block.getGasUsed();
+                } else {
+                    failedBlocks++;
+                }
+            }
+
+            measuring = false;
+            totalNanos += System.nanoTime() - start;
+            gcCount += getTotalGcCount() - gcCountStart;
+            gcMillis += getTotalGcMillis() - gcMillisStart;
+        } finally {
+            measuring = false;
+            blockchain.setConnectListener(null);
+        }
+    }
+
+    @Override
+    public void onPhaseCompleted(Block block, Phase phase, long nanos) {
+        if (measuring) {
+            phaseMetrics.get(phase).add(nanos);
+        }
+    }
+
+    /**
+     * Returns the time spent in each connection phase of the measured blocks
+     */
+    public List<BlockArchiveImporter.StageMetrics> getPhaseMetrics() {
+        return Collections.unmodifiableList(new ArrayList<>(phaseMetrics.values()));
+    }
+
+    public long getBlocks() {
+        return blocks;
+    }
+
+    public long getFailedBlocks() {
+        return failedBlocks;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public long getGasUsed() {
+        return gasUsed;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public long getGcMillis() {
+        return gcMillis;
+    }
+
+    public double getBlocksPerSecond() {
+        return perSecond(blocks);
+    }
+
+    public double getTransactionsPerSecond() {
+        return perSecond(transactions);
+    }
+
+    public double getGasPerSecond() {
+        return perSecond(gasUsed);
+    }
+
+    /**
+     * Returns the report lines: the totals, the throughput, the GC stats and the phase times
+     */
+    public List<String> getReport() {
+        List<String> lines = new ArrayList<>();
+
+        lines.add(String.format("blocks: [%d] failed: [%d] txs: [%d] gas: [%d] time: [%d]ms",
+                blocks, failedBlocks, transactions, gasUsed, totalNanos / 1000000));
+        lines.add(String.format("blocks/s: [%.2f] txs/s: [%.2f] gas/s: [%.0f]",
+                getBlocksPerSecond(), getTransactionsPerSecond(), getGasPerSecond()));
+        lines.add(String.format("gc collections: [%d] gc time: [%d]ms", gcCount, gcMillis));
+
+        for (BlockArchiveImporter.StageMetrics metrics : getPhaseMetrics()) {
+            lines.add(metrics.toString());
+        }
+
+        return lines;
+    }
+
+    private boolean connect(Block block) {
+        ImportResult result = blockchain.tryToConnect(block);
+
+        if (BlockProcessResult.importOk(result)) {
+            return true;
+        }
+
+        logger.warn("Block {} {} not imported: {}", block.getNumber(), block.getShortHash(), result);
+
+        return false;
+    }
+
+    private double perSecond(long value) {
+        return totalNanos == 0 ? 0 : value * 1000000000.0 / totalNanos;
+    }
+
+    private static long getTotalGcCount() {
+        long count = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+
+        return count;
+    }
+
+    private static long getTotalGcMillis() {
+        long millis = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+
+        return millis;
+    }
+}
@@ -216,6 +216,13 @@ public class RskSystemProperties extends SystemProperties {
         return getString("blocks.player", null);
     }
 
+    /**
+     * Whether the blocks recorder writes a compressed binary archive instead of the text format
+     */
+    public boolean isBlocksRecorderCompressed() {
+        return getBoolean("blocks.compressed", false);
+    }
+
     public boolean isFlushEnabled() {
         return getBoolean("blockchain.flush", true);
     }
@@ -225,6 +232,49 @@ public class RskSystemProperties extends SystemProperties {
                 configFromFiles.getInt("blockchain.flushNumberOfBlocks") : 20;
     }
 
+    /**
+     * Whether the state root after each transaction of a block is computed and traced, for debugging
+     */
+    public boolean intermediateStateRoots() {
+        return getBoolean("blockchain.intermediateStateRoots", false);
+    }
+
+    /**
+     * Threads executing speculatively the transactions of a block, 1 to execute them sequentially
+     */
+    public int blockExecutionThreads() {
+        return Math.max(1, getInt("blockchain.executionThreads", 1));
+    }
+
+    /**
+     * Threads checking concurrently the block validation rules, 1 to check them sequentially
+     */
+    public int blockValidationThreads() {
+        return Math.max(1, getInt("blockchain.validationThreads", 1));
+    }
+
+    /**
+     * Threads recovering the senders of the received and imported transactions, 0 to recover them on demand
+     */
+    public int senderRecoveryThreads() {
+        return Math.max(0, getInt("blockchain.senderRecoveryThreads", 0));
+    }
+
+    /**
+     * Whether the VM collects the executed opcodes and contracts, exposed by debug_opcodeProfile
+     */
+    public boolean isOpcodeProfilerEnabled() {
+        return getBoolean("vm.profiler.enabled", false);
+    }
+
+    public int bloomsNumberOfBlocks() {
+        return getInt("blooms.blocks", 64);
+    }
+
+    public int bloomsNumberOfConfirmations() {
+        return getInt("blooms.confirmations", 20);
+    }
+
     public int soLingerTime() {
         return configFromFiles.getInt("rpc.providers.web.http.linger_time");
 
@@ -357,7 +407,7 @@ public class RskSystemProperties extends SystemProperties {
     }
 
     public VmConfig getVmConfig() {
-        return new VmConfig(vmTrace(), vmTraceInitStorageLimit(), dumpBlock(), dumpStyle());
+        return new VmConfig(vmTrace(), vmTraceInitStorageLimit(), vmTraceDetail(), vmTraceStreaming(), dumpBlock(), dumpStyle());
     }
 
     // New prune service properties
@@ -18,6 +18,8 @@
 
 package co.rsk.config;
 
+import org.ethereum.vm.trace.TraceDetail;
+
 /**
  * Wraps configuration for the VM, which is usually derived from configuration files.
  */
@@ -25,16 +27,22 @@ public class VmConfig {
 
     private final boolean vmTrace;
     private final int vmTraceInitStorageLimit;
+    private final TraceDetail vmTraceDetail;
+    private final boolean vmTraceStreaming;
     private final int dumpBlock;
     private final String dumpStyle;
 
     public VmConfig(
             boolean vmTrace,
             int vmTraceInitStorageLimit,
+            TraceDetail vmTraceDetail,
+            boolean vmTraceStreaming,
             int dumpBlock,
             String dumpStyle) {
         this.vmTrace = vmTrace;
         this.vmTraceInitStorageLimit = vmTraceInitStorageLimit;
+        this.vmTraceDetail = vmTraceDetail;
+        this.vmTraceStreaming = vmTraceStreaming;
         this.dumpBlock = dumpBlock;
         this.dumpStyle = dumpStyle;
     }
@@ -54,4 +62,12 @@ public class VmConfig {
     public int vmTraceInitStorageLimit() {
         return vmTraceInitStorageLimit;
     }
+
+    public TraceDetail vmTraceDetail() {
+        return vmTraceDetail;
+    }
+
+    public boolean vmTraceStreaming() {
+        return vmTraceStreaming;
+    }
 }
\ No newline at end of file
@@ -20,6 +20,7 @@
 package co.rsk.core;
 
 import co.rsk.config.RskSystemProperties;
+import org.bouncycastle.util.BigIntegers;
 import org.ethereum.core.Block;
 import org.ethereum.core.Repository;
 import org.ethereum.core.Transaction;
@@ -33,12 +34,15 @@ import org.ethereum.vm.program.invoke.ProgramInvokeFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.math.BigInteger;
+
 /**
  * Encapsulates the logic to execute a transaction in an
  * isolated environment (e.g. no persistent state changes).
  */
 @Component
 public class ReversibleTransactionExecutor {
+    private static final long ESTIMATION_PRECISION = 64;
 
     private final RskSystemProperties config;
     private final Repository track;
@@ -69,7 +73,75 @@ public class ReversibleTransactionExecutor {
             byte[] value,
             byte[] data,
             Address fromAddress) {
-        Repository repository = track.getSnapshotTo(executionBlock.getStateRoot()).startTracking();
+        Repository snapshot = track.getSnapshotTo(executionBlock.getStateRoot());
+
+        return execute(snapshot, executionBlock, coinbase, gasPrice, gasLimit, toAddress, value, data, fromAddress).getResult();
+    }
+
+    /**
+     * Estimates the gas limit the transaction needs to be executed successfully.
+     *
+     * The gas used by an execution can be lower than the gas limit it needs, because of the refunds
+     * and the gas kept by the calls, so the lowest successful gas limit is searched, from the gas used
+     * up to the given gas limit, capped at the gas limit of the execution block, because a transaction
+     * can't use more than that. All the executions are done on the same snapshot of the state,
+     * each one on its own discarded track.
+     *
+     * @return the estimated gas limit, or the gas used if the transaction fails using the given gas limit
+     */
+    public long estimateGas(
+            Block executionBlock,
+            Address coinbase,
+            byte[] gasPrice,
+            byte[] gasLimit,
+            byte[] toAddress,
+            byte[] value,
+            byte[] data,
+            Address fromAddress) {
+        Repository snapshot = track.getSnapshotTo(executionBlock.getStateRoot());
+
+        BigInteger gasLimitValue = new BigInteger(1, gasLimit).min(executionBlock.getGasLimitAsInteger());
+        long high = gasLimitValue.bitLength() < 64 ? gasLimitValue.longValue() : Long.MAX_VALUE;
+
+        TransactionExecutor executor = execute(snapshot, executionBlock, coinbase, gasPrice, toBytes(high), toAddress, value, data, fromAddress);
+        long gasUsed = executor.getResult().getGasUsed();
+
+        if (!isSuccessful(executor)) {
+            return gasUsed;
+        }
+
+        // the gas used is usually enough, the search is done only for gas dependent executions
+        if (gasUsed >= high || isSuccessful(execute(snapshot, executionBlock, coinbase, gasPrice, toBytes(gasUsed), toAddress, value, data, fromAddress))) {
+            return Math.min(gasUsed, high);
+        }
+
+        long low = gasUsed;
+
+        // stops when the estimation is within 1/64 of the needed gas, the largest error of the gas kept by the calls
+        while (high - low > Math.max(1, high / ESTIMATION_PRECISION)) {
+            long middle = low + (high - low) / 2;
+
+            if (isSuccessful(execute(snapshot, executionBlock, coinbase, gasPrice, toBytes(middle), toAddress, value, data, fromAddress))) {
+                high = middle;
+            } else {
+                low = middle;
+            }
+        }
+
+        return high;
+    }
+
+    private TransactionExecutor execute(
+            Repository snapshot,
+            Block executionBlock,
+            Address coinbase,
+            byte[] gasPrice,
+            byte[] gasLimit,
+            byte[] toAddress,
+            byte[] value,
+            byte[] data,
+            Address fromAddress) {
+        Repository repository = snapshot.startTracking();
 
         byte[] nonce = repository.getNonce(fromAddress).toByteArray();
         UnsignedTransaction tx = new UnsignedTransaction(
@@ -93,7 +165,17 @@ public class ReversibleTransactionExecutor {
         executor.execute();
         executor.go();
         executor.finalization();
-        return executor.getResult();
+        return executor;
+    }
+
+    private static boolean isSuccessful(TransactionExecutor executor) {
+        ProgramResult result = executor.getResult();
+
+        return result.getException() == null && !result.isRevert() && executor.getReceipt().isSuccessful();
+    }
+
+    private static byte[] toBytes(long value) {
+        return BigIntegers.asUnsignedByteArray(BigInteger.valueOf(value));
     }
 
     private static class UnsignedTransaction extends Transaction {
@@ -21,6 +21,9 @@ package co.rsk.core;
 import co.rsk.config.RskSystemProperties;
 import co.rsk.core.bc.Blockchain;
 import co.rsk.core.bc.TransactionPoolImpl;
+import co.rsk.logfilter.BlocksBloomProcessor;
+import co.rsk.logfilter.BlocksBloomService;
+import co.rsk.logfilter.BlocksBloomStore;
 import co.rsk.metrics.HashRateCalculator;
 import co.rsk.mine.*;
 import co.rsk.net.*;
@@ -163,6 +166,7 @@ public class RskFactory {
                         NetworkStateExporter networkStateExporter,
                         org.ethereum.db.BlockStore blockStore,
                         ReceiptStore receiptStore,
+                        BlocksBloomStore blocksBloomStore,
                         PeerServer peerServer,
                         BlockProcessor nodeBlockProcessor,
                         HashRateCalculator hashRateCalculator,
@@ -187,6 +191,7 @@ public class RskFactory {
                 networkStateExporter,
                 blockStore,
                 receiptStore,
+                blocksBloomStore,
                 peerServer,
                 nodeBlockProcessor,
                 hashRateCalculator,
@@ -195,6 +200,15 @@ public class RskFactory {
         );
     }
 
+    @Bean
+    public BlocksBloomService getBlocksBloomService(RskSystemProperties config,
+                                                   CompositeEthereumListener emitter,
+                                                   BlocksBloomStore blocksBloomStore,
+                                                   org.ethereum.db.BlockStore blockStore) {
+        BlocksBloomProcessor blocksBloomProcessor = new BlocksBloomProcessor(blocksBloomStore, blockStore, config.bloomsNumberOfConfirmations());
+        return new BlocksBloomService(emitter, blocksBloomProcessor);
+    }
+
     @Bean
     public JsonRpcWeb3FilterHandler getJsonRpcWeb3FilterHandler(RskSystemProperties rskSystemProperties) {
         return new JsonRpcWeb3FilterHandler(rskSystemProperties.corsDomains(), rskSystemProperties.rpcHttpBindAddress(), rskSystemProperties.rpcHttpHost());
@@ -0,0 +1,83 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.util.MaxSizeHashMap;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the senders recovered from the most recently seen transaction signatures,
+ * keyed by the transaction hash, which covers both the signed data and the signature.
+ *
+ * The same transaction is received as pending, in blocks and from the block store
+ * as different instances, and its signature is recovered only once.
+ */
+public class SenderCache {
+    private final Map<Keccak256, Address> senders;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public SenderCache(int maxSize) {
+        this.senders = new MaxSizeHashMap<>(maxSize, true);
+    }
+
+    /**
+     * Returns the sender of the transaction with the given hash, or null if it is not cached
+     */
+    public Address getSender(Keccak256 hash) {
+        Address sender;
+
+        synchronized (this) {
+            sender = senders.get(hash);
+        }
+
+        if (sender == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        return sender;
+    }
+
+    public synchronized void putSender(Keccak256 hash, Address sender) {
+        senders.put(hash, sender);
+    }
+
+    public synchronized int size() {
+        return senders.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long lookups = hits.get() + misses.get();
+        return lookups == 0 ? 0 : (double) hits.get() / lookups;
+    }
+}
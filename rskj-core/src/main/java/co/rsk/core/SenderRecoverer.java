@@ -0,0 +1,140 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core;
+
+import org.ethereum.core.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recovers the senders of received transactions on a bounded pool of workers,
+ * before the messages that contain them are processed. A single instance is shared
+ * by the message handler, the block validation and the block import.
+ *
+ * The sender is cached by each transaction, so the block validation and execution
+ * find it already recovered. If the pool is full, the recovery is left to the thread
+ * that first asks for the sender.
+ */
+public class SenderRecoverer {
+    private static final Logger logger = LoggerFactory.getLogger("blockchain");
+
+    private static final int MAX_PENDING_TASKS = 10000;
+
+    private final int threads;
+    private final ThreadPoolExecutor executorService;
+
+    public SenderRecoverer(int threads) {
+        this.threads = threads;
+
+        if (threads <= 0) {
+            this.executorService = null;
+            return;
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+
+        this.executorService = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(MAX_PENDING_TASKS), runnable -> {
+            Thread thread = new Thread(runnable, "senderRecoverer-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.executorService.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts the recovery of the transaction senders, without waiting for it
+     */
+    public void recoverAsync(List<Transaction> transactions) {
+        if (this.executorService == null || transactions.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (List<Transaction> part : split(transactions)) {
+                this.executorService.execute(() -> recoverSenders(part));
+            }
+        } catch (RejectedExecutionException e) {
+            logger.trace("Sender recovery queue full, senders will be recovered on demand");
+        }
+    }
+
+    /**
+     * Recovers the transaction senders, waiting until all of them are recovered
+     */
+    public void recover(List<Transaction> transactions) {
+        if (this.executorService == null || transactions.size() < 2) {
+            recoverSenders(transactions);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (List<Transaction> part : split(transactions)) {
+            try {
+                futures.add(this.executorService.submit(() -> recoverSenders(part)));
+            } catch (RejectedExecutionException e) {
+                recoverSenders(part);
+            }
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.warn("Unable to recover transaction senders", e);
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (this.executorService != null) {
+            this.executorService.shutdownNow();
+        }
+    }
+
+    private List<List<Transaction>> split(List<Transaction> transactions) {
+        List<List<Transaction>> parts = new ArrayList<>();
+        int size = (transactions.size() + this.threads - 1) / this.threads;
+
+        for (int k = 0; k < transactions.size(); k += size) {
+            parts.add(transactions.subList(k, Math.min(k + size, transactions.size())));
+        }
+
+        return parts;
+    }
+
+    private static void recoverSenders(List<Transaction> transactions) {
+        for (Transaction tx : transactions) {
+            try {
+                tx.getSender();
+            } catch (RuntimeException e) {
+                logger.debug("Unable to recover sender of tx {}", tx.getHash(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core.bc;
+
+import org.ethereum.core.Block;
+
+/**
+ * Receives the time spent in each phase of connecting a block to the blockchain
+ */
+public interface BlockConnectListener {
+    enum Phase {
+        // the block rules, before executing it
+        VALIDATION,
+        // the transactions execution and the state root check
+        EXECUTION,
+        // the new best block or alternative chain, the receipts and the listeners
+        COMMIT,
+        // the stores flush
+        FLUSH
+    }
+
+    void onPhaseCompleted(Block block, Phase phase, long nanos);
+}
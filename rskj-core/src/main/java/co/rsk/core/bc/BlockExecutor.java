@@ -21,13 +21,12 @@ package co.rsk.core.bc;
 import co.rsk.core.Coin;
 import co.rsk.core.Address;
 import org.ethereum.core.*;
+import org.ethereum.db.RepositoryTrack;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.bouncycastle.util.encoders.Hex;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
 
 /**
  * BlockExecutor has methods to execute block with its transactions.
@@ -42,10 +41,35 @@ public class BlockExecutor {
 
     private final Repository repository;
     private final TransactionExecutorFactory transactionExecutorFactory;
+    private final boolean intermediateStateRoots;
+    private final SpeculativeExecutor speculativeExecutor;
 
     public BlockExecutor(Repository repository, TransactionExecutorFactory transactionExecutorFactory) {
+        this(repository, transactionExecutorFactory, false);
+    }
+
+    public BlockExecutor(Repository repository, TransactionExecutorFactory transactionExecutorFactory, boolean intermediateStateRoots) {
+        this(repository, transactionExecutorFactory, intermediateStateRoots, 1);
+    }
+
+    /**
+     * The state root is only needed at the end of the block, as the receipts don't include it,
+     * so it is computed and traced after each transaction only if intermediateStateRoots is true
+     * (blockchain.intermediateStateRoots) and the trace log is enabled.
+     *
+     * With more than one execution thread, the transactions are executed speculatively in parallel
+     * and then committed in order, executing again the ones that conflict with a previous transaction.
+     */
+    public BlockExecutor(Repository repository, TransactionExecutorFactory transactionExecutorFactory, boolean intermediateStateRoots, int executionThreads) {
         this.repository = repository;
         this.transactionExecutorFactory = transactionExecutorFactory;
+        this.intermediateStateRoots = intermediateStateRoots;
+        this.speculativeExecutor = executionThreads > 1 && !intermediateStateRoots ?
+                new SpeculativeExecutor(repository, transactionExecutorFactory, executionThreads) : null;
+    }
+
+    public SpeculativeExecutor getSpeculativeExecutor() {
+        return this.speculativeExecutor;
     }
 
     /**
@@ -176,48 +200,68 @@ public class BlockExecutor {
 
         Repository initialRepository = repository.getSnapshotTo(stateRoot);
 
-        byte[] lastStateRootHash = initialRepository.getRoot();
+        List<Transaction> transactions = block.getTransactionsList();
+        List<SpeculativeExecutor.Speculation> speculations = null;
+        Repository track;
+
+        if (speculativeExecutor != null && transactions.size() > 1) {
+            Set<Address> written = new HashSet<>();
+            speculations = speculativeExecutor.execute(block, stateRoot, written);
+            track = new RepositoryTrack(new SpeculativeRepository(initialRepository, written, false));
+        } else {
+            track = initialRepository.startTracking();
+        }
 
-        Repository track = initialRepository.startTracking();
         int i = 1;
         long totalGasUsed = 0;
         Coin totalPaidFees = Coin.ZERO;
         List<TransactionReceipt> receipts = new ArrayList<>();
         List<Transaction> executedTransactions = new ArrayList<>();
 
-        for (Transaction tx : block.getTransactionsList()) {
+        for (int k = 0; k < transactions.size(); k++) {
+            Transaction tx = transactions.get(k);
+
             logger.trace("apply block: [{}] tx: [{}] ", block.getNumber(), i);
 
-            TransactionExecutor txExecutor = transactionExecutorFactory.newInstance(
-                    tx,
-                    block.getCoinbase(),
-                    track,
-                    block,
-                    totalGasUsed
-            );
-            boolean readyToExecute = txExecutor.init();
-            if (!ignoreReadyToExecute && !readyToExecute) {
-                if (discardInvalidTxs) {
-                    logger.warn("block: [{}] discarded tx: [{}]", block.getNumber(), tx.getHash());
-                    continue;
-                } else {
-                    logger.warn("block: [{}] execution interrupted because of invalid tx: [{}]",
-                                block.getNumber(), tx.getHash());
-                    return BlockResult.INTERRUPTED_EXECUTION_BLOCK_RESULT;
+            TransactionExecutor txExecutor = speculations == null ? null :
+                    speculativeExecutor.commit(speculations.get(k), block, initialRepository, track, totalGasUsed);
+
+            if (txExecutor != null) {
+                executedTransactions.add(tx);
+
+                logger.trace("speculative tx committed");
+            } else {
+                txExecutor = transactionExecutorFactory.newInstance(
+                        tx,
+                        block.getCoinbase(),
+                        track,
+                        block,
+                        totalGasUsed
+                );
+                boolean readyToExecute = txExecutor.init();
+                if (!ignoreReadyToExecute && !readyToExecute) {
+                    if (discardInvalidTxs) {
+                        logger.warn("block: [{}] discarded tx: [{}]", block.getNumber(), tx.getHash());
+                        continue;
+                    } else {
+                        logger.warn("block: [{}] execution interrupted because of invalid tx: [{}]",
+                                    block.getNumber(), tx.getHash());
+                        return BlockResult.INTERRUPTED_EXECUTION_BLOCK_RESULT;
+                    }
                 }
-            }
 
-            executedTransactions.add(tx);
+                executedTransactions.add(tx);
 
-            txExecutor.execute();
-            txExecutor.go();
-            txExecutor.finalization();
+                txExecutor.execute();
+                txExecutor.go();
+                txExecutor.finalization();
 
-            logger.trace("tx executed");
+                logger.trace("tx executed");
 
-            track.commit();
+                track.commit();
 
-            logger.trace("track commit");
+                logger.trace("track commit");
+            }
 
             long gasUsed = txExecutor.getGasUsed();
             totalGasUsed += gasUsed;
@@ -229,14 +273,17 @@ public class BlockExecutor {
             TransactionReceipt receipt = new TransactionReceipt();
             receipt.setGasUsed(gasUsed);
             receipt.setCumulativeGas(totalGasUsed);
-            lastStateRootHash = initialRepository.getRoot();
             receipt.setTxStatus(txExecutor.getReceipt().isSuccessful());
             receipt.setTransaction(tx);
             receipt.setLogInfoList(txExecutor.getVMLogs());
             receipt.setStatus(txExecutor.getReceipt().getStatus());
 
-            logger.trace("block: [{}] executed tx: [{}] state: [{}]", block.getNumber(), tx.getHash(),
-                         Hex.toHexString(lastStateRootHash));
+            if (intermediateStateRoots && logger.isTraceEnabled()) {
+                logger.trace("block: [{}] executed tx: [{}] state: [{}]", block.getNumber(), tx.getHash(),
+                             Hex.toHexString(initialRepository.getRoot()));
+            } else {
+                logger.trace("block: [{}] executed tx: [{}]", block.getNumber(), tx.getHash());
+            }
 
             logger.trace("tx[{}].receipt", i);
 
@@ -247,7 +294,9 @@ public class BlockExecutor {
             logger.trace("tx done");
         }
 
-        return new BlockResult(executedTransactions, receipts, lastStateRootHash, totalGasUsed, totalPaidFees);
+        byte[] stateRootHash = initialRepository.getRoot();
+
+        return new BlockResult(executedTransactions, receipts, stateRootHash, totalGasUsed, totalPaidFees);
     }
 
     public interface TransactionExecutorFactory {
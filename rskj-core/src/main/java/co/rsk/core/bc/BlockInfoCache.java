@@ -0,0 +1,128 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core.bc;
+
+import co.rsk.core.BlockDifficulty;
+
+import java.util.Arrays;
+
+/**
+ * In-memory total difficulty of the blocks in the recent levels.
+ *
+ * The levels are kept in a ring indexed by block number, so a lookup needs
+ * the block number and hash, and only compares the hashes of the blocks at that level.
+ * Older levels are overwritten by newer ones.
+ */
+public class BlockInfoCache {
+    private final Level[] levels;
+
+    public BlockInfoCache(int noLevels) {
+        if (noLevels <= 0) {
+            throw new IllegalArgumentException("Number of levels should be positive");
+        }
+
+        this.levels = new Level[noLevels];
+    }
+
+    public synchronized void addBlockInfo(long number, byte[] hash, BlockDifficulty totalDifficulty) {
+        int slot = slotFor(number);
+        Level level = levels[slot];
+
+        if (level == null || level.number != number) {
+            level = new Level(number);
+            levels[slot] = level;
+        }
+
+        level.add(hash, totalDifficulty);
+    }
+
+    /**
+     * Returns the total difficulty of a block, null if the block is not in the cache
+     */
+    public synchronized BlockDifficulty getTotalDifficulty(long number, byte[] hash) {
+        Level level = getLevel(number);
+
+        if (level == null) {
+            return null;
+        }
+
+        int position = level.indexOf(hash);
+
+        return position < 0 ? null : level.totalDifficulties[position];
+    }
+
+    public synchronized void removeLevel(long number) {
+        int slot = slotFor(number);
+
+        if (levels[slot] != null && levels[slot].number == number) {
+            levels[slot] = null;
+        }
+    }
+
+    private Level getLevel(long number) {
+        if (number < 0) {
+            return null;
+        }
+
+        Level level = levels[slotFor(number)];
+
+        return level != null && level.number == number ? level : null;
+    }
+
+    private int slotFor(long number) {
+        return (int) (number % levels.length);
+    }
+
+    private static class Level {
+        private final long number;
+        private byte[][] hashes = new byte[1][];
+        private BlockDifficulty[] totalDifficulties = new BlockDifficulty[1];
+        private int size;
+
+        Level(long number) {
+            this.number = number;
+        }
+
+        void add(byte[] hash, BlockDifficulty totalDifficulty) {
+            int position = indexOf(hash);
+
+            if (position < 0) {
+                if (size == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, size * 2);
+                    totalDifficulties = Arrays.copyOf(totalDifficulties, size * 2);
+                }
+
+                position = size++;
+            }
+
+            hashes[position] = hash;
+            totalDifficulties[position] = totalDifficulty;
+        }
+
+        int indexOf(byte[] hash) {
+            for (int k = 0; k < size; k++) {
+                if (Arrays.equals(hashes[k], hash)) {
+                    return k;
+                }
+            }
+
+            return -1;
+        }
+    }
+}
@@ -30,7 +30,9 @@ import org.ethereum.crypto.HashUtil;
 import org.ethereum.db.BlockInformation;
 import org.ethereum.db.BlockStore;
 import org.ethereum.db.ReceiptStore;
+import org.ethereum.db.TransactionIndex;
 import org.ethereum.db.TransactionInfo;
+import org.ethereum.db.TransactionLocation;
 import org.ethereum.listener.EthereumListener;
 import org.ethereum.util.RLP;
 import org.slf4j.Logger;
@@ -38,6 +40,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -76,13 +79,16 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class Blockchain {
     private static final Logger logger = LoggerFactory.getLogger("blockchain");
     private static final PanicProcessor panicProcessor = new PanicProcessor();
+    private static final int CACHED_LEVELS = 1000;
 
     private final Repository repository;
     private final BlockStore blockStore;
     private final ReceiptStore receiptStore;
+    private final TransactionIndex transactionIndex;
     private final TransactionPool transactionPool;
     private final EthereumListener listener;
     private BlockValidator blockValidator;
+    private final BlockInfoCache blockInfoCache = new BlockInfoCache(CACHED_LEVELS);
 
     private volatile BlockChainStatus status = new BlockChainStatus(null, BlockDifficulty.ZERO);
 
@@ -95,10 +101,13 @@ public class Blockchain {
     private final BlockExecutor blockExecutor;
     private BlockRecorder blockRecorder;
     private boolean noValidation;
+    private final ThreadLocal<Executor> persistenceExecutor = new ThreadLocal<>();
+    private volatile BlockConnectListener connectListener;
 
     public Blockchain(Repository repository,
                       BlockStore blockStore,
                       ReceiptStore receiptStore,
+                      TransactionIndex transactionIndex,
                       TransactionPool transactionPool,
                       EthereumListener listener,
                       BlockValidator blockValidator,
@@ -108,6 +117,7 @@ public class Blockchain {
         this.repository = repository;
         this.blockStore = blockStore;
         this.receiptStore = receiptStore;
+        this.transactionIndex = transactionIndex;
         this.listener = listener;
         this.blockValidator = blockValidator;
         this.flushEnabled = flushEnabled;
@@ -122,6 +132,10 @@ public class Blockchain {
 
     public BlockStore getBlockStore() { return blockStore; }
 
+    public BlockExecutor getBlockExecutor() {
+        return blockExecutor;
+    }
+
     @VisibleForTesting
     public void setBlockValidator(BlockValidator validator) {
         this.blockValidator = validator;
@@ -190,8 +204,7 @@ public class Blockchain {
     }
 
     private ImportResult internalTryToConnect(Block block) {
-        if (blockStore.getBlockByHash(block.getHash().getBytes()) != null &&
-                !BlockDifficulty.ZERO.equals(blockStore.getTotalDifficultyForHash(block.getHash().getBytes()))) {
+        if (isKnownBlock(block)) {
             logger.debug("Block already exist in chain hash: {}, number: {}",
                          block.getShortHash(),
                          block.getNumber());
@@ -227,7 +240,7 @@ public class Blockchain {
                 return ImportResult.NO_PARENT;
             }
 
-            parentTotalDifficulty = blockStore.getTotalDifficultyForHash(parent.getHash().getBytes());
+            parentTotalDifficulty = getTotalDifficulty(parent);
 
             if (parentTotalDifficulty == null || parentTotalDifficulty.equals(BlockDifficulty.ZERO)) {
                 return ImportResult.NO_PARENT;
@@ -235,7 +248,11 @@ public class Blockchain {
         }
 
         // Validate incoming block before its processing
-        if (!isValid(block)) {
+        long phaseStart = System.nanoTime();
+        boolean isValidBlock = isValid(block);
+        phaseStart = onPhaseCompleted(block, BlockConnectListener.Phase.VALIDATION, phaseStart);
+
+        if (!isValidBlock) {
             long blockNumber = block.getNumber();
             logger.warn("Invalid block with number: {}", blockNumber);
             panicProcessor.panic("invalidblock", String.format("Invalid block %s %s", blockNumber, block.getHash()));
@@ -266,6 +283,7 @@ public class Blockchain {
 
             long totalTime = System.nanoTime() - saveTime;
             logger.trace("block: num: [{}] hash: [{}], executed after: [{}]nano", block.getNumber(), block.getShortHash(), totalTime);
+            phaseStart = onPhaseCompleted(block, BlockConnectListener.Phase.EXECUTION, phaseStart);
         }
 
         // the new accumulated difficulty
@@ -274,28 +292,32 @@ public class Blockchain {
 
         // It is the new best block
         if (SelectionRule.shouldWeAddThisBlock(totalDifficulty, status.getTotalDifficulty(),block, bestBlock)) {
+            BlockFork fork = null;
+
             if (bestBlock != null && !bestBlock.isParentOf(block)) {
                 logger.trace("Rebranching: {} ~> {} From block {} ~> {} Difficulty {} Challenger difficulty {}",
                         bestBlock.getShortHash(), block.getShortHash(), bestBlock.getNumber(), block.getNumber(),
                         status.getTotalDifficulty().toString(), totalDifficulty.toString());
-                BlockFork fork = new BlockFork();
+                fork = new BlockFork();
                 fork.calculate(bestBlock, block, blockStore);
                 Metrics.rebranch(bestBlock, block, fork.getNewBlocks().size() + fork.getOldBlocks().size());
                 blockStore.reBranch(block);
             }
 
             logger.trace("Start switchToBlockChain");
-            switchToBlockChain(block, totalDifficulty);
+            switchToBlockChain(block, totalDifficulty, fork);
             logger.trace("Start saveReceipts");
-            saveReceipts(block, result);
+            persistReceipts(block, result);
             logger.trace("Start processBest");
             processBest(block);
             logger.trace("Start onBestBlock");
             onBestBlock(block, result);
             logger.trace("Start onBlock");
             onBlock(block, result);
+            phaseStart = onPhaseCompleted(block, BlockConnectListener.Phase.COMMIT, phaseStart);
             logger.trace("Start flushData");
             flushData();
+            onPhaseCompleted(block, BlockConnectListener.Phase.FLUSH, phaseStart);
 
             logger.trace("Better block {} {}", block.getNumber(), block.getShortHash());
 
@@ -317,11 +339,13 @@ public class Blockchain {
             logger.trace("Start extendAlternativeBlockChain");
             extendAlternativeBlockChain(block, totalDifficulty);
             logger.trace("Start saveReceipts");
-            saveReceipts(block, result);
+            persistReceipts(block, result);
             logger.trace("Start onBlock");
             onBlock(block, result);
+            phaseStart = onPhaseCompleted(block, BlockConnectListener.Phase.COMMIT, phaseStart);
             logger.trace("Start flushData");
             flushData();
+            onPhaseCompleted(block, BlockConnectListener.Phase.FLUSH, phaseStart);
 
             if (bestBlock != null && block.getNumber() > bestBlock.getNumber()) {
                 logger.warn("Strange block number state");
@@ -347,6 +371,7 @@ public class Blockchain {
         synchronized (accessLock) {
             status = new BlockChainStatus(block, totalDifficulty);
             blockStore.saveBlock(block, totalDifficulty, true);
+            cacheBlockInfo(block, totalDifficulty);
             repository.syncToRoot(block.getStateRoot());
         }
     }
@@ -392,6 +417,8 @@ public class Blockchain {
             for (Block block : blocks) {
                 blockStore.removeBlock(block);
             }
+
+            blockInfoCache.removeLevel(number);
         }
         finally {
             this.lock.writeLock().unlock();
@@ -431,6 +458,20 @@ public class Blockchain {
         return txInfo;
     }
 
+    /**
+     * Returns the location of a transaction in the main chain
+     *
+     * @param hash      the hash of the transaction
+     * @return transaction location, null if the transaction is not indexed
+     */
+    public TransactionLocation getTransactionLocation(byte[] hash) {
+        if (transactionIndex == null) {
+            return null;
+        }
+
+        return transactionIndex.get(hash);
+    }
+
     public BlockDifficulty getTotalDifficulty() {
         return status.getTotalDifficulty();
     }
@@ -448,12 +489,64 @@ public class Blockchain {
         this.blockRecorder = blockRecorder;
     }
 
-    private void switchToBlockChain(Block block, BlockDifficulty totalDifficulty) {
+    /**
+     * Sets the executor that saves the receipts and indexes the transactions of the blocks connected
+     * by the calling thread, so they are persisted while the next block is executed. It should run the
+     * tasks in order. The blocks connected by other threads are still persisted in tryToConnect.
+     *
+     * @param persistenceExecutor   the executor, null to persist them before returning from tryToConnect
+     */
+    public void setPersistenceExecutor(Executor persistenceExecutor) {
+        if (persistenceExecutor == null) {
+            this.persistenceExecutor.remove();
+        } else {
+            this.persistenceExecutor.set(persistenceExecutor);
+        }
+    }
+
+    /**
+     * Sets the listener that receives the time spent in each phase of connecting a block
+     *
+     * @param connectListener   the listener, null to not report the times
+     */
+    public void setConnectListener(BlockConnectListener connectListener) {
+        this.connectListener = connectListener;
+    }
+
+    /**
+     * Reports the time since the start of the phase, and returns the start of the next one
+     */
+    private long onPhaseCompleted(Block block, BlockConnectListener.Phase phase, long phaseStart) {
+        long now = System.nanoTime();
+        BlockConnectListener currentListener = this.connectListener;
+
+        if (currentListener != null) {
+            currentListener.onPhaseCompleted(block, phase, now - phaseStart);
+        }
+
+        return now;
+    }
+
+    private void switchToBlockChain(Block block, BlockDifficulty totalDifficulty, BlockFork fork) {
         synchronized (accessLock) {
             storeBlock(block, totalDifficulty, true);
             status = new BlockChainStatus(block, totalDifficulty);
             repository.syncToRoot(block.getStateRoot());
         }
+
+        persist(() -> indexTransactions(block, fork));
+    }
+
+    private void indexTransactions(Block block, BlockFork fork) {
+        if (transactionIndex == null) {
+            return;
+        }
+
+        if (fork == null) {
+            transactionIndex.addBlock(block);
+        } else {
+            transactionIndex.reBranch(fork.getOldBlocks(), fork.getNewBlocks());
+        }
     }
 
     private void extendAlternativeBlockChain(Block block, BlockDifficulty totalDifficulty) {
@@ -462,10 +555,55 @@ public class Blockchain {
 
     private void storeBlock(Block block, BlockDifficulty totalDifficulty, boolean inBlockChain) {
         blockStore.saveBlock(block, totalDifficulty, inBlockChain);
+        cacheBlockInfo(block, totalDifficulty);
         logger.trace("Block saved: number: {}, hash: {}, TD: {}",
                 block.getNumber(), block.getShortHash(), totalDifficulty);
     }
 
+    private void cacheBlockInfo(Block block, BlockDifficulty totalDifficulty) {
+        blockInfoCache.addBlockInfo(block.getNumber(), block.getHash().getBytes(), totalDifficulty);
+    }
+
+    /**
+     * Checks if the block was already connected, using the cached levels before the block store
+     */
+    private boolean isKnownBlock(Block block) {
+        byte[] hash = block.getHash().getBytes();
+        BlockDifficulty totalDifficulty = blockInfoCache.getTotalDifficulty(block.getNumber(), hash);
+
+        if (totalDifficulty != null) {
+            return !BlockDifficulty.ZERO.equals(totalDifficulty);
+        }
+
+        return blockStore.getBlockByHash(hash) != null &&
+                !BlockDifficulty.ZERO.equals(blockStore.getTotalDifficultyForHash(hash));
+    }
+
+    private BlockDifficulty getTotalDifficulty(Block block) {
+        byte[] hash = block.getHash().getBytes();
+        BlockDifficulty totalDifficulty = blockInfoCache.getTotalDifficulty(block.getNumber(), hash);
+
+        if (totalDifficulty != null) {
+            return totalDifficulty;
+        }
+
+        return blockStore.getTotalDifficultyForHash(hash);
+    }
+
+    private void persistReceipts(Block block, BlockResult result) {
+        persist(() -> saveReceipts(block, result));
+    }
+
+    private void persist(Runnable task) {
+        Executor executor = this.persistenceExecutor.get();
+
+        if (executor == null) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+    }
+
     private void saveReceipts(Block block, BlockResult result) {
         if (result == null) {
             return;
@@ -0,0 +1,216 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core.bc;
+
+import co.rsk.validators.*;
+import org.ethereum.core.Block;
+import org.ethereum.db.BlockStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates a block checking the same rules as BlockValidatorImpl, but concurrently.
+ *
+ * The composite rules are split into their rules, and each one is checked by a worker.
+ * When a rule fails the pending ones are skipped, and the block is invalid,
+ * so the validation takes as long as the slowest rule instead of the sum of all of them.
+ * The rules already running are not interrupted, as they could be in the middle of reading the stores;
+ * they finish in the background.
+ */
+public class ParallelBlockValidator implements BlockValidator {
+    private static final Logger logger = LoggerFactory.getLogger("blockvalidator");
+
+    private final BlockStore blockStore;
+    private final List<BlockParentDependantValidationRule> rules = new ArrayList<>();
+    private final List<RuleMetrics> metrics = new ArrayList<>();
+    private final ThreadPoolExecutor executorService;
+
+    public ParallelBlockValidator(BlockStore blockStore, BlockParentDependantValidationRule blockParentValidator, BlockValidationRule blockValidator, int threads) {
+        this.blockStore = blockStore;
+
+        if (blockParentValidator instanceof BlockParentCompositeRule) {
+            ((BlockParentCompositeRule) blockParentValidator).getRules().forEach(this::addRule);
+        } else if (blockParentValidator != null) {
+            addRule(blockParentValidator);
+        }
+
+        if (blockValidator instanceof BlockCompositeRule) {
+            ((BlockCompositeRule) blockValidator).getRules().forEach(this::addRule);
+        } else if (blockValidator != null) {
+            addRule(blockValidator);
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+
+        this.executorService = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "blockValidator-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.executorService.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public boolean isValid(Block block) {
+        if (block.isGenesis()) {
+            return true;
+        }
+
+        Block parent = getParent(block);
+
+        CompletionService<Boolean> completionService = new ExecutorCompletionService<>(this.executorService);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean();
+
+        for (int k = 0; k < this.rules.size(); k++) {
+            BlockParentDependantValidationRule rule = this.rules.get(k);
+            RuleMetrics ruleMetrics = this.metrics.get(k);
+
+            futures.add(completionService.submit(() -> check(rule, ruleMetrics, block, parent, failed)));
+        }
+
+        try {
+            for (int k = 0; k < futures.size(); k++) {
+                if (!completionService.take().get()) {
+                    logger.warn("Error Validating block {} {}", block.getShortHash(), block.getNumber());
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            logger.error("Error Validating block {} {}", block.getShortHash(), block.getNumber(), e);
+            return false;
+        } finally {
+            for (Future<Boolean> future : futures) {
+                future.cancel(false);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the times spent checking each rule
+     */
+    public List<RuleMetrics> getMetrics() {
+        return Collections.unmodifiableList(this.metrics);
+    }
+
+    private void addRule(BlockParentDependantValidationRule rule) {
+        this.rules.add(rule);
+        this.metrics.add(new RuleMetrics(rule.getClass().getSimpleName()));
+    }
+
+    private void addRule(BlockValidationRule rule) {
+        this.rules.add((block, parent) -> rule.isValid(block));
+        this.metrics.add(new RuleMetrics(rule.getClass().getSimpleName()));
+    }
+
+    private static boolean check(BlockParentDependantValidationRule rule, RuleMetrics ruleMetrics, Block block, Block parent, AtomicBoolean failed) {
+        // another rule already failed, the block is invalid
+        if (failed.get()) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        boolean valid;
+
+        try {
+            valid = rule.isValid(block, parent);
+        } catch (RuntimeException e) {
+            logger.warn("Rule {} failed validating block {} {}", ruleMetrics.getName(), block.getShortHash(), block.getNumber(), e);
+            valid = false;
+        }
+
+        ruleMetrics.add(System.nanoTime() - start, valid);
+
+        if (!valid) {
+            failed.set(true);
+        }
+
+        return valid;
+    }
+
+    private Block getParent(Block block) {
+        if (this.blockStore == null) {
+            return null;
+        }
+
+        return blockStore.getBlockByHash(block.getParentHash().getBytes());
+    }
+
+    /**
+     * Number of times a rule was checked, the number of failures, and the time spent checking it
+     */
+    public static class RuleMetrics {
+        private final String name;
+        private long count;
+        private long failures;
+        private long totalNanos;
+        private long maxNanos;
+
+        RuleMetrics(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(long nanos, boolean valid) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+
+            if (!valid) {
+                failures++;
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getFailures() {
+            return failures;
+        }
+
+        public synchronized long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public synchronized long getMaxNanos() {
+            return maxNanos;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("rule: [%s] count: [%d] failures: [%d] total: [%d]nano max: [%d]nano",
+                    name, count, failures, totalNanos, maxNanos);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core.bc;
+
+import co.rsk.core.Address;
+import org.ethereum.core.Block;
+import org.ethereum.core.Repository;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionExecutor;
+import org.ethereum.db.RepositoryTrack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executes the transactions of a block concurrently, each one on its own track
+ * over a snapshot of the block initial state, recording what it reads.
+ *
+ * The executions are then committed in block order: if a transaction read an account
+ * or storage cell that a previous transaction changed, it is executed again by the BlockExecutor.
+ */
+public class SpeculativeExecutor {
+    private static final Logger logger = LoggerFactory.getLogger("blockexecutor");
+
+    private final Repository repository;
+    private final BlockExecutor.TransactionExecutorFactory transactionExecutorFactory;
+    private final int threads;
+    private final ThreadPoolExecutor executorService;
+
+    private final AtomicLong speculatedTransactions = new AtomicLong();
+    private final AtomicLong conflictingTransactions = new AtomicLong();
+    private final AtomicLong reexecutedTransactions = new AtomicLong();
+
+    public SpeculativeExecutor(Repository repository, BlockExecutor.TransactionExecutorFactory transactionExecutorFactory, int threads) {
+        this.repository = repository;
+        this.transactionExecutorFactory = transactionExecutorFactory;
+        this.threads = threads;
+
+        AtomicInteger counter = new AtomicInteger();
+
+        this.executorService = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "speculativeExecutor-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.executorService.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Executes the block transactions over the state with the given root
+     *
+     * @param written   the accounts written while committing the block transactions, initially empty
+     * @return a speculative execution for each transaction, null if it could not be executed
+     */
+    public List<Speculation> execute(Block block, byte[] stateRoot, Set<Address> written) {
+        List<Transaction> transactions = block.getTransactionsList();
+        Speculation[] speculations = new Speculation[transactions.size()];
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int k = 0; k < Math.min(this.threads, transactions.size()); k++) {
+            Repository snapshot = this.repository.getSnapshotTo(stateRoot);
+
+            futures.add(this.executorService.submit(() -> {
+                for (int n = next.getAndIncrement(); n < speculations.length; n = next.getAndIncrement()) {
+                    speculations[n] = speculate(transactions.get(n), block, snapshot, written);
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Arrays.asList(new Speculation[speculations.length]);
+            } catch (ExecutionException e) {
+                logger.error("Speculative execution of block {} failed", block.getNumber(), e);
+            }
+        }
+
+        this.speculatedTransactions.addAndGet(speculations.length);
+
+        return Arrays.asList(speculations);
+    }
+
+    /**
+     * Commits a speculative execution to the state of the block execution,
+     * if what the transaction read was not changed by the previous transactions.
+     *
+     * @param initialRepository     the repository with the state after the previous transactions
+     * @param track                 the track over the initial repository used by the block execution
+     * @param totalGasUsed          the gas used by the previous transactions
+     * @return the transaction executor, or null if the transaction has to be executed again
+     */
+    public TransactionExecutor commit(Speculation speculation, Block block, Repository initialRepository, Repository track, long totalGasUsed) {
+        if (speculation == null || !speculation.executed) {
+            this.reexecutedTransactions.incrementAndGet();
+            return null;
+        }
+
+        Transaction tx = speculation.transaction;
+        BigInteger txGasLimit = new BigInteger(1, tx.getGasLimit());
+
+        if (txGasLimit.add(BigInteger.valueOf(totalGasUsed)).compareTo(new BigInteger(1, block.getGasLimit())) > 0) {
+            this.reexecutedTransactions.incrementAndGet();
+            return null;
+        }
+
+        TransactionExecutor executor = speculation.executor;
+        SpeculativeRepository reads = speculation.reads;
+        Address coinbase = block.getCoinbase();
+
+        // the fees are added to the coinbase balance as in a sequential execution
+        boolean onlyPaidFees = isOnlyPaidFees(coinbase, tx, executor, reads);
+
+        if (onlyPaidFees) {
+            reads.exclude(coinbase);
+        }
+
+        if (!reads.hasSameReads(initialRepository)) {
+            logger.trace("block: [{}] conflicting tx: [{}]", block.getNumber(), tx.getHash());
+            this.conflictingTransactions.incrementAndGet();
+            this.reexecutedTransactions.incrementAndGet();
+            return null;
+        }
+
+        reads.rebase(initialRepository);
+        speculation.track.commit();
+
+        if (onlyPaidFees) {
+            track.addBalance(coinbase, executor.getPaidFees());
+            track.commit();
+        }
+
+        executor.publish();
+
+        return executor;
+    }
+
+    public long getSpeculatedTransactions() {
+        return this.speculatedTransactions.get();
+    }
+
+    public long getConflictingTransactions() {
+        return this.conflictingTransactions.get();
+    }
+
+    public long getReexecutedTransactions() {
+        return this.reexecutedTransactions.get();
+    }
+
+    /**
+     * Returns the fraction of the speculated transactions that read a value written by a previous transaction
+     */
+    public double getConflictRate() {
+        long speculated = this.speculatedTransactions.get();
+        return speculated == 0 ? 0 : (double) this.conflictingTransactions.get() / speculated;
+    }
+
+    private Speculation speculate(Transaction tx, Block block, Repository snapshot, Set<Address> written) {
+        SpeculativeRepository reads = new SpeculativeRepository(snapshot, written, true);
+        Repository track = new RepositoryTrack(reads);
+
+        try {
+            TransactionExecutor executor = this.transactionExecutorFactory.newInstance(tx, block.getCoinbase(), track, block, 0)
+                    .setSpeculative(true);
+
+            boolean executed = executor.init();
+
+            if (executed) {
+                executor.execute();
+                executor.go();
+                reads.startFinalization();
+                executor.finalization();
+            }
+
+            return new Speculation(tx, reads, track, executor, executed);
+        } catch (RuntimeException e) {
+            logger.debug("Speculative execution of tx {} failed", tx.getHash(), e);
+            return null;
+        }
+    }
+
+    private static boolean isOnlyPaidFees(Address coinbase, Transaction tx, TransactionExecutor executor, SpeculativeRepository reads) {
+        if (!reads.isReadOnlyInFinalization(coinbase) || coinbase.equals(tx.getSender())) {
+            return false;
+        }
+
+        return executor.getResult().getDeleteAccounts().stream().noneMatch(address -> coinbase.equals(new Address(address)))
+                && executor.getResult().getCodeChanges().keySet().stream().noneMatch(address -> coinbase.equals(new Address(address)));
+    }
+
+    public static class Speculation {
+        private final Transaction transaction;
+        private final SpeculativeRepository reads;
+        private final Repository track;
+        private final TransactionExecutor executor;
+        private final boolean executed;
+
+        Speculation(Transaction transaction, SpeculativeRepository reads, Repository track, TransactionExecutor executor, boolean executed) {
+            this.transaction = transaction;
+            this.reads = reads;
+            this.track = track;
+            this.executor = executor;
+            this.executed = executed;
+        }
+    }
+}
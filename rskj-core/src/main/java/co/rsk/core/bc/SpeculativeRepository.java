@@ -0,0 +1,637 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core.bc;
+
+import co.rsk.core.Address;
+import co.rsk.core.Coin;
+import org.ethereum.core.AccountState;
+import org.ethereum.core.Block;
+import org.ethereum.core.Repository;
+import org.ethereum.crypto.HashUtil;
+import org.ethereum.db.ContractDetails;
+import org.ethereum.db.ContractDetailsCacheImpl;
+import org.ethereum.db.RepositoryTrack;
+import org.ethereum.vm.DataWord;
+
+import javax.annotation.Nullable;
+import java.math.BigInteger;
+import java.util.*;
+
+import static org.ethereum.util.ByteUtil.EMPTY_BYTE_ARRAY;
+
+/**
+ * Repository below the RepositoryTrack of a transaction execution, recording the
+ * accounts and storage cells the transaction reads, and the accounts it writes on commit.
+ *
+ * The read values are the ones the transaction saw, so the execution is still valid
+ * on another state if that state has the same values for them.
+ *
+ * The other reads are served from the recorded values too, and the writes are applied
+ * to the wrapped repository, recording the written accounts. Accounts already written
+ * by this repository are read from the wrapped one.
+ */
+public class SpeculativeRepository implements Repository {
+    private static final byte[] EMPTY_DATA_HASH = HashUtil.keccak256(EMPTY_BYTE_ARRAY);
+
+    private final Set<Address> written;
+    private final boolean recordReads;
+    private Repository repository;
+
+    private final Map<Address, AccountState> accounts = new HashMap<>();
+    private final Set<Address> accountsWithoutDetails = new HashSet<>();
+    private final Map<Address, ReadRecordingDetails> details = new HashMap<>();
+    private final Map<Address, ContractDetailsCacheImpl> detailsCaches = new HashMap<>();
+    private final Set<Address> finalizationReads = new HashSet<>();
+    private final Set<Address> excluded = new HashSet<>();
+    private final Set<Address> committed = new HashSet<>();
+    private boolean finalization;
+
+    /**
+     * @param repository    where the accounts are read from, and the commited changes are written to
+     * @param written       set where the written accounts are added
+     * @param recordReads   true to record the read accounts and storage cells
+     */
+    public SpeculativeRepository(Repository repository, Set<Address> written, boolean recordReads) {
+        this.repository = repository;
+        this.written = written;
+        this.recordReads = recordReads;
+    }
+
+    /**
+     * Accounts first read after this call are considered read by the transaction finalization
+     */
+    public void startFinalization() {
+        this.finalization = true;
+    }
+
+    public boolean isReadOnlyInFinalization(Address addr) {
+        return this.finalizationReads.contains(addr);
+    }
+
+    /**
+     * The account is not validated nor commited, its changes have to be applied by other means
+     */
+    public void exclude(Address addr) {
+        this.excluded.add(addr);
+    }
+
+    /**
+     * Checks that the given repository has the same values for the accounts and storage cells read,
+     * only for the accounts in the written set, the other ones are unchanged
+     */
+    public boolean hasSameReads(Repository current) {
+        for (Map.Entry<Address, AccountState> entry : this.accounts.entrySet()) {
+            Address addr = entry.getKey();
+
+            if (!this.written.contains(addr) || this.excluded.contains(addr)) {
+                continue;
+            }
+
+            if (!hasSameValues(entry.getValue(), current.getAccountState(addr))) {
+                return false;
+            }
+
+            ReadRecordingDetails readDetails = this.details.get(addr);
+
+            if (readDetails == null && !this.accountsWithoutDetails.contains(addr)) {
+                continue;
+            }
+
+            ContractDetails currentDetails = contractDetailsOf(current, addr);
+
+            if (readDetails == null) {
+                if (currentDetails != null) {
+                    return false;
+                }
+            } else if (currentDetails == null || !readDetails.hasSameReads(currentDetails)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Switches to the given repository, that has the same values for the read accounts and storage cells,
+     * so the track over this repository commits its changes there.
+     */
+    public void rebase(Repository current) {
+        this.repository = current;
+
+        for (Map.Entry<Address, ContractDetailsCacheImpl> entry : this.detailsCaches.entrySet()) {
+            if (entry.getValue().isDirty()) {
+                this.details.get(entry.getKey()).setContractDetails(contractDetailsOf(current, entry.getKey()));
+            }
+        }
+    }
+
+    @Override
+    public void loadAccount(Address addr, Map<Address, AccountState> cacheAccounts, Map<Address, ContractDetails> cacheDetails) {
+        if (!this.recordReads || this.committed.contains(addr)) {
+            this.repository.loadAccount(addr, cacheAccounts, cacheDetails);
+            return;
+        }
+
+        AccountState accountState = readAccountState(addr);
+        ReadRecordingDetails readDetails = readContractDetails(addr);
+        ContractDetailsCacheImpl contractDetailsCache = new ContractDetailsCacheImpl(readDetails);
+
+        if (readDetails != null) {
+            this.detailsCaches.put(addr, contractDetailsCache);
+        }
+
+        cacheAccounts.put(addr, accountState == null ? new AccountState() : accountState.clone());
+        cacheDetails.put(addr, contractDetailsCache);
+    }
+
+    @Override
+    public boolean isExist(Address addr) {
+        return getAccountState(addr) != null;
+    }
+
+    @Override
+    public void updateBatch(Map<Address, AccountState> accountStates, Map<Address, ContractDetails> contractDetails) {
+        for (Map.Entry<Address, ContractDetails> entry : contractDetails.entrySet()) {
+            ContractDetailsCacheImpl contractDetailsCache = (ContractDetailsCacheImpl) entry.getValue();
+            ContractDetails originalContractDetails = contractDetailsCache.getOriginalContractDetails();
+
+            if (originalContractDetails instanceof ReadRecordingDetails) {
+                contractDetailsCache.setOriginalContractDetails(((ReadRecordingDetails) originalContractDetails).getContractDetails());
+            }
+        }
+
+        for (Address addr : this.excluded) {
+            accountStates.remove(addr);
+            contractDetails.remove(addr);
+        }
+
+        for (Map.Entry<Address, AccountState> entry : accountStates.entrySet()) {
+            ContractDetails entryDetails = contractDetails.get(entry.getKey());
+
+            if (entry.getValue().isDeleted() || (entryDetails != null && entryDetails.isDirty())) {
+                markWritten(entry.getKey());
+            }
+        }
+
+        this.repository.updateBatch(accountStates, contractDetails);
+    }
+
+    private void markWritten(Address addr) {
+        this.written.add(addr);
+        this.committed.add(addr);
+    }
+
+    private AccountState readAccountState(Address addr) {
+        if (this.accounts.containsKey(addr)) {
+            return this.accounts.get(addr);
+        }
+
+        AccountState accountState = this.repository.getAccountState(addr);
+        this.accounts.put(addr, accountState);
+
+        if (this.finalization) {
+            this.finalizationReads.add(addr);
+        }
+
+        return accountState;
+    }
+
+    private ReadRecordingDetails readContractDetails(Address addr) {
+        ReadRecordingDetails readDetails = this.details.get(addr);
+
+        if (readDetails != null || this.accountsWithoutDetails.contains(addr)) {
+            return readDetails;
+        }
+
+        ContractDetails contractDetails = contractDetailsOf(this.repository, addr);
+
+        if (contractDetails == null) {
+            this.accountsWithoutDetails.add(addr);
+            return null;
+        }
+
+        readDetails = new ReadRecordingDetails(contractDetails);
+        this.details.put(addr, readDetails);
+
+        return readDetails;
+    }
+
+    /**
+     * The storage reads are recorded on the contract details, only available through the deprecated getter
+     */
+    @SuppressWarnings("deprecation")
+    private static ContractDetails contractDetailsOf(Repository repository, Address addr) {
+        return repository.getContractDetails(addr);
+    }
+
+    private static boolean hasSameValues(AccountState accountState, AccountState other) {
+        if (accountState == null || other == null) {
+            return accountState == other;
+        }
+
+        if (!accountState.getNonce().equals(other.getNonce()) || !accountState.getBalance().equals(other.getBalance())) {
+            return false;
+        }
+
+        if (!Arrays.equals(accountState.getCodeHash(), other.getCodeHash())) {
+            return false;
+        }
+
+        // without code, the storage root is not recalculated on commit
+        return !Arrays.equals(accountState.getCodeHash(), EMPTY_DATA_HASH)
+                || Arrays.equals(accountState.getStateRoot(), other.getStateRoot());
+    }
+
+    @Override
+    public AccountState createAccount(Address addr) {
+        markWritten(addr);
+        return this.repository.createAccount(addr);
+    }
+
+    @Override
+    public AccountState getAccountState(Address addr) {
+        if (!this.recordReads || this.committed.contains(addr)) {
+            return this.repository.getAccountState(addr);
+        }
+
+        AccountState accountState = readAccountState(addr);
+
+        return accountState == null ? null : accountState.clone();
+    }
+
+    @Override
+    public void delete(Address addr) {
+        markWritten(addr);
+        this.repository.delete(addr);
+    }
+
+    @Override
+    public BigInteger increaseNonce(Address addr) {
+        markWritten(addr);
+        return this.repository.increaseNonce(addr);
+    }
+
+    @Override
+    @Deprecated
+    public ContractDetails getContractDetails(Address addr) {
+        if (!this.recordReads || this.committed.contains(addr)) {
+            return this.repository.getContractDetails(addr);
+        }
+
+        ReadRecordingDetails readDetails = readContractDetails(addr);
+
+        // the changes to the returned details are not applied to the recorded ones
+        return readDetails == null ? null : new ContractDetailsCacheImpl(readDetails);
+    }
+
+    @Override
+    public void saveCode(Address addr, byte[] code) {
+        markWritten(addr);
+        this.repository.saveCode(addr, code);
+    }
+
+    @Override
+    public void addStorageRow(Address addr, DataWord key, DataWord value) {
+        markWritten(addr);
+        this.repository.addStorageRow(addr, key, value);
+    }
+
+    @Override
+    public void addStorageBytes(Address addr, DataWord key, byte[] value) {
+        markWritten(addr);
+        this.repository.addStorageBytes(addr, key, value);
+    }
+
+    @Override
+    public Coin addBalance(Address addr, Coin value) {
+        markWritten(addr);
+        return this.repository.addBalance(addr, value);
+    }
+
+    @Override
+    public Set<Address> getAccountsKeys() {
+        return this.repository.getAccountsKeys();
+    }
+
+    @Override
+    public void dumpState(Block block, long gasUsed, int txNumber, byte[] txHash) {
+        this.repository.dumpState(block, gasUsed, txNumber, txHash);
+    }
+
+    @Override
+    public Repository startTracking() {
+        return new RepositoryTrack(this);
+    }
+
+    @Override
+    public void flush() {
+        this.repository.flush();
+    }
+
+    @Override
+    public void flushNoReconnect() {
+        this.repository.flushNoReconnect();
+    }
+
+    /**
+     * The writes are already applied to the wrapped repository, so it is committed
+     */
+    @Override
+    public void commit() {
+        this.repository.commit();
+    }
+
+    /**
+     * The writes are already applied to the wrapped repository, so it is rolled back
+     */
+    @Override
+    public void rollback() {
+        this.repository.rollback();
+    }
+
+    /**
+     * Syncs the wrapped repository, discarding the recorded reads, they belong to the previous state
+     */
+    @Override
+    public void syncToRoot(byte[] root) {
+        this.repository.syncToRoot(root);
+
+        this.accounts.clear();
+        this.accountsWithoutDetails.clear();
+        this.details.clear();
+        this.detailsCaches.clear();
+        this.finalizationReads.clear();
+    }
+
+    @Override
+    public byte[] getRoot() {
+        return this.repository.getRoot();
+    }
+
+    @Override
+    public Repository getSnapshotTo(byte[] root) {
+        return this.repository.getSnapshotTo(root);
+    }
+
+    @Override
+    public void updateContractDetails(Address addr, ContractDetails contractDetails) {
+        markWritten(addr);
+        this.repository.updateContractDetails(addr, contractDetails);
+    }
+
+    @Override
+    public void updateAccountState(Address addr, AccountState accountState) {
+        markWritten(addr);
+        this.repository.updateAccountState(addr, accountState);
+    }
+
+    @Override
+    public Coin getBalance(Address addr) {
+        AccountState accountState = getAccountState(addr);
+        return accountState == null ? new AccountState().getBalance() : accountState.getBalance();
+    }
+
+    @Override
+    public DataWord getStorageValue(Address addr, DataWord key) {
+        ContractDetails contractDetails = getContractDetails(addr);
+        return contractDetails == null ? null : contractDetails.get(key);
+    }
+
+    @Override
+    public byte[] getStorageBytes(Address addr, DataWord key) {
+        ContractDetails contractDetails = getContractDetails(addr);
+        return contractDetails == null ? null : contractDetails.getBytes(key);
+    }
+
+    @Override
+    public Iterator<DataWord> getStorageKeys(Address addr) {
+        ContractDetails contractDetails = getContractDetails(addr);
+        return contractDetails == null ? null : contractDetails.getStorageKeys().iterator();
+    }
+
+    @Override
+    public int getStorageKeysCount(Address addr) {
+        ContractDetails contractDetails = getContractDetails(addr);
+        return contractDetails == null ? 0 : contractDetails.getStorageKeys().size();
+    }
+
+    @Override
+    public byte[] getCode(Address addr) {
+        AccountState accountState = getAccountState(addr);
+
+        if (accountState == null || Arrays.equals(accountState.getCodeHash(), EMPTY_DATA_HASH)) {
+            return EMPTY_BYTE_ARRAY;
+        }
+
+        ContractDetails contractDetails = getContractDetails(addr);
+        return contractDetails == null ? null : contractDetails.getCode();
+    }
+
+    @Override
+    public boolean isContract(Address addr) {
+        return getContractDetails(addr) != null;
+    }
+
+    @Override
+    public BigInteger getNonce(Address addr) {
+        AccountState accountState = getAccountState(addr);
+        return accountState == null ? new AccountState().getNonce() : accountState.getNonce();
+    }
+
+    /**
+     * Contract details recording the storage cells read, with the value seen
+     */
+    private static class ReadRecordingDetails implements ContractDetails {
+        private final Map<DataWord, DataWord> storage = new HashMap<>();
+        private final Map<DataWord, byte[]> bytesStorage = new HashMap<>();
+        private boolean keysRead;
+
+        private ContractDetails contractDetails;
+
+        ReadRecordingDetails(ContractDetails contractDetails) {
+            this.contractDetails = contractDetails;
+        }
+
+        ContractDetails getContractDetails() {
+            return this.contractDetails;
+        }
+
+        void setContractDetails(ContractDetails contractDetails) {
+            this.contractDetails = contractDetails;
+        }
+
+        boolean hasSameReads(ContractDetails current) {
+            if (this.keysRead) {
+                return false;
+            }
+
+            for (Map.Entry<DataWord, DataWord> entry : this.storage.entrySet()) {
+                if (!isSameValue(entry.getValue(), current.get(entry.getKey()))) {
+                    return false;
+                }
+            }
+
+            for (Map.Entry<DataWord, byte[]> entry : this.bytesStorage.entrySet()) {
+                if (!Arrays.equals(entry.getValue(), current.getBytes(entry.getKey()))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private static boolean isSameValue(DataWord value, DataWord other) {
+            if (value == null || value.isZero()) {
+                return other == null || other.isZero();
+            }
+
+            return value.equals(other);
+        }
+
+        @Override
+        public DataWord get(DataWord key) {
+            DataWord value = this.contractDetails.get(key);
+
+            if (!this.storage.containsKey(key)) {
+                this.storage.put(key.clone(), value == null ? null : value.clone());
+            }
+
+            return value;
+        }
+
+        @Override
+        public byte[] getBytes(DataWord key) {
+            byte[] value = this.contractDetails.getBytes(key);
+
+            if (!this.bytesStorage.containsKey(key)) {
+                this.bytesStorage.put(key.clone(), value == null ? null : value.clone());
+            }
+
+            return value;
+        }
+
+        @Override
+        public int getStorageSize() {
+            this.keysRead = true;
+            return this.contractDetails.getStorageSize();
+        }
+
+        @Override
+        public Set<DataWord> getStorageKeys() {
+            this.keysRead = true;
+            return this.contractDetails.getStorageKeys();
+        }
+
+        @Override
+        public boolean isNullObject() {
+            this.keysRead = true;
+            return this.contractDetails.isNullObject();
+        }
+
+        @Override
+        public void put(DataWord key, DataWord value) {
+            this.contractDetails.put(key, value);
+        }
+
+        @Override
+        public void putBytes(DataWord key, byte[] bytes) {
+            this.contractDetails.putBytes(key, bytes);
+        }
+
+        @Override
+        public byte[] getCode() {
+            return this.contractDetails.getCode();
+        }
+
+        @Override
+        public void setCode(byte[] code) {
+            this.contractDetails.setCode(code);
+        }
+
+        @Override
+        public byte[] getStorageHash() {
+            return this.contractDetails.getStorageHash();
+        }
+
+        @Override
+        public void setDirty(boolean dirty) {
+            this.contractDetails.setDirty(dirty);
+        }
+
+        @Override
+        public void setDeleted(boolean deleted) {
+            this.contractDetails.setDeleted(deleted);
+        }
+
+        @Override
+        public boolean isDirty() {
+            return this.contractDetails.isDirty();
+        }
+
+        @Override
+        public boolean isDeleted() {
+            return this.contractDetails.isDeleted();
+        }
+
+        @Override
+        public byte[] getEncoded() {
+            return this.contractDetails.getEncoded();
+        }
+
+        @Override
+        public Map<DataWord, DataWord> getStorage(@Nullable Collection<DataWord> keys) {
+            return this.contractDetails.getStorage(keys);
+        }
+
+        @Override
+        public Map<DataWord, DataWord> getStorage() {
+            return this.contractDetails.getStorage();
+        }
+
+        @Override
+        public void setStorage(Map<DataWord, DataWord> storage) {
+            this.contractDetails.setStorage(storage);
+        }
+
+        @Override
+        public byte[] getAddress() {
+            return this.contractDetails.getAddress();
+        }
+
+        @Override
+        public void setAddress(byte[] address) {
+            this.contractDetails.setAddress(address);
+        }
+
+        @Override
+        public void syncStorage() {
+            this.contractDetails.syncStorage();
+        }
+
+        @Override
+        public ContractDetails getSnapshotTo(byte[] hash) {
+            return this.contractDetails.getSnapshotTo(hash);
+        }
+
+        @Override
+        public byte[] getCodeHash() {
+            return this.contractDetails.getCodeHash();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import org.ethereum.core.Bloom;
+import org.ethereum.util.ByteUtil;
+import org.ethereum.util.RLP;
+import org.ethereum.util.RLPList;
+
+/**
+ * Aggregated logs bloom of a consecutive range of blocks.
+ *
+ * If a filter does not match the aggregated bloom, it does not match
+ * the logs bloom of any of the blocks in the range. When built block by block,
+ * it also keeps the rotated bloom bits, to find the candidate blocks in the range.
+ */
+public class BlocksBloom {
+    private final Bloom bloom;
+    private long fromBlock;
+    private long toBlock;
+    private boolean empty;
+    private BloomBits bloomBits;
+
+    public BlocksBloom() {
+        this.bloom = new Bloom();
+        this.fromBlock = 0;
+        this.toBlock = 0;
+        this.empty = true;
+    }
+
+    public BlocksBloom(long fromBlock, long toBlock, Bloom bloom) {
+        this.bloom = bloom;
+        this.fromBlock = fromBlock;
+        this.toBlock = toBlock;
+        this.empty = false;
+    }
+
+    public BlocksBloom(long fromBlock, long toBlock, Bloom bloom, BloomBits bloomBits) {
+        this(fromBlock, toBlock, bloom);
+        this.bloomBits = bloomBits;
+    }
+
+    public Bloom getBloom() { return this.bloom; }
+
+    /**
+     * Returns the rotated bloom bits of the range, or null if they are not available
+     */
+    public BloomBits getBloomBits() { return this.bloomBits; }
+
+    public long fromBlock() { return this.fromBlock; }
+
+    public long toBlock() { return this.toBlock; }
+
+    public long size() {
+        if (this.empty) {
+            return 0;
+        }
+
+        return this.toBlock - this.fromBlock + 1;
+    }
+
+    public void addBlockBloom(long blockNumber, Bloom blockBloom) {
+        if (this.empty) {
+            this.fromBlock = blockNumber;
+            this.toBlock = blockNumber;
+            this.empty = false;
+            this.bloomBits = new BloomBits(blockNumber);
+        }
+        else if (blockNumber == toBlock + 1) {
+            this.toBlock = blockNumber;
+        }
+        else {
+            throw new IllegalArgumentException("Block out of sequence");
+        }
+
+        this.bloom.or(blockBloom);
+
+        if (this.bloomBits != null) {
+            this.bloomBits.addBlockBloom(blockNumber, blockBloom);
+        }
+    }
+
+    public boolean matches(Bloom bloom) {
+        return this.bloom.matches(bloom);
+    }
+
+    public byte[] getEncoded() {
+        byte[] rlpFrom = RLP.encodeElement(ByteUtil.longToBytesNoLeadZeroes(this.fromBlock));
+        byte[] rlpTo = RLP.encodeElement(ByteUtil.longToBytesNoLeadZeroes(this.toBlock));
+        byte[] rlpBloom = RLP.encodeElement(this.bloom.getData());
+
+        if (this.bloomBits == null) {
+            return RLP.encodeList(rlpFrom, rlpTo, rlpBloom);
+        }
+
+        byte[] rlpBloomBits = RLP.encodeElement(this.bloomBits.getEncoded());
+
+        return RLP.encodeList(rlpFrom, rlpTo, rlpBloom, rlpBloomBits);
+    }
+
+    public static BlocksBloom fromEncoded(byte[] data) {
+        RLPList list = RLP.decodeList(data);
+
+        long from = ByteUtil.byteArrayToLong(list.get(0).getRLPData());
+        long to = ByteUtil.byteArrayToLong(list.get(1).getRLPData());
+        Bloom bloom = new Bloom(list.get(2).getRLPData());
+        BloomBits bloomBits = list.size() > 3 ? BloomBits.fromEncoded(list.get(3).getRLPData()) : null;
+
+        return new BlocksBloom(from, to, bloom, bloomBits);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import org.ethereum.core.Block;
+import org.ethereum.core.Bloom;
+import org.ethereum.db.BlockStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the blocks bloom sections incrementally, as new best blocks arrive.
+ *
+ * Only sections whose last block has at least noConfirmations blocks on top
+ * are indexed, so regular reorganizations do not invalidate the stored blooms.
+ * The first call also builds the sections of the existing chain, from block 0,
+ * skipping the ones already in the store.
+ */
+public class BlocksBloomProcessor {
+    private static final Logger logger = LoggerFactory.getLogger("blooms");
+
+    private final BlocksBloomStore blocksBloomStore;
+    private final BlockStore blockStore;
+    private final int noConfirmations;
+
+    private long lastSectionTo = -1;
+
+    public BlocksBloomProcessor(BlocksBloomStore blocksBloomStore, BlockStore blockStore, int noConfirmations) {
+        this.blocksBloomStore = blocksBloomStore;
+        this.blockStore = blockStore;
+        this.noConfirmations = noConfirmations;
+    }
+
+    public synchronized void processNewBlockNumber(long newBlockNumber) {
+        long confirmedNumber = newBlockNumber - this.noConfirmations;
+
+        if (confirmedNumber < 0) {
+            return;
+        }
+
+        long sectionTo = this.blocksBloomStore.lastNumberInRange(confirmedNumber);
+
+        if (sectionTo != confirmedNumber) {
+            sectionTo = this.blocksBloomStore.firstNumberInRange(confirmedNumber) - 1;
+        }
+
+        if (sectionTo < 0 || sectionTo <= this.lastSectionTo) {
+            return;
+        }
+
+        for (long number = this.lastSectionTo + 1; number <= sectionTo; number += this.blocksBloomStore.getNoBlocks()) {
+            if (!this.blocksBloomStore.hasBlockNumber(number) && !this.buildSection(number)) {
+                return;
+            }
+
+            this.lastSectionTo = this.blocksBloomStore.lastNumberInRange(number);
+        }
+    }
+
+    private boolean buildSection(long fromNumber) {
+        long toNumber = this.blocksBloomStore.lastNumberInRange(fromNumber);
+        BlocksBloom blocksBloom = new BlocksBloom();
+
+        for (long number = fromNumber; number <= toNumber; number++) {
+            Block block = this.blockStore.getChainBlockByNumber(number);
+
+            if (block == null) {
+                logger.warn("Missing block {} building blocks bloom section", number);
+                return false;
+            }
+
+            blocksBloom.addBlockBloom(number, new Bloom(block.getLogBloom()));
+        }
+
+        this.blocksBloomStore.setBlocksBloom(blocksBloom);
+
+        logger.trace("Blocks bloom section {} to {} built", fromNumber, toNumber);
+
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import org.ethereum.core.Block;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.listener.CompositeEthereumListener;
+import org.ethereum.listener.EthereumListenerAdapter;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the blocks bloom index up to date, listening to new best blocks.
+ *
+ * The sections are built in their own thread, so building the sections of an
+ * existing chain doesn't delay the processing of the new blocks.
+ */
+public class BlocksBloomService {
+    private final CompositeEthereumListener emitter;
+    private final BlocksBloomProcessor blocksBloomProcessor;
+
+    private final OnBestBlockListener listener = new OnBestBlockListener();
+
+    private ExecutorService executorService;
+
+    public BlocksBloomService(CompositeEthereumListener emitter, BlocksBloomProcessor blocksBloomProcessor) {
+        this.emitter = Objects.requireNonNull(emitter);
+        this.blocksBloomProcessor = Objects.requireNonNull(blocksBloomProcessor);
+    }
+
+    public synchronized void start() {
+        executorService = Executors.newSingleThreadExecutor(target -> new Thread(target, "blocksBloomProcessor"));
+        emitter.addListener(listener);
+    }
+
+    public synchronized void stop() {
+        emitter.removeListener(listener);
+        executorService.shutdownNow();
+    }
+
+    private synchronized void processNewBlockNumber(long number) {
+        if (!executorService.isShutdown()) {
+            executorService.execute(() -> blocksBloomProcessor.processNewBlockNumber(number));
+        }
+    }
+
+    private class OnBestBlockListener extends EthereumListenerAdapter {
+        @Override
+        public void onBestBlock(Block block, List<TransactionReceipt> receipts) {
+            processNewBlockNumber(block.getNumber());
+        }
+    }
+}
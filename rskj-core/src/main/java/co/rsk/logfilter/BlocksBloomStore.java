@@ -0,0 +1,100 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import org.ethereum.datasource.KeyValueDataSource;
+import org.ethereum.util.ByteUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent index of aggregated logs blooms.
+ *
+ * The block numbers are divided in sections of noBlocks consecutive blocks,
+ * and each section has an associated BlocksBloom, keyed by its first block number.
+ */
+public class BlocksBloomStore {
+    private final int noBlocks;
+    private final Map<Long, BlocksBloom> blocksBlooms = new ConcurrentHashMap<>();
+    private final KeyValueDataSource dataSource;
+
+    public BlocksBloomStore(int noBlocks, KeyValueDataSource dataSource) {
+        if (noBlocks <= 0) {
+            throw new IllegalArgumentException("Number of blocks in a section should be positive");
+        }
+
+        this.noBlocks = noBlocks;
+        this.dataSource = dataSource;
+    }
+
+    public int getNoBlocks() {
+        return this.noBlocks;
+    }
+
+    public long firstNumberInRange(long number) {
+        return number - number % this.noBlocks;
+    }
+
+    public long lastNumberInRange(long number) {
+        return this.firstNumberInRange(number) + this.noBlocks - 1;
+    }
+
+    public boolean hasBlockNumber(long blockNumber) {
+        return this.getBlocksBloomByNumber(blockNumber) != null;
+    }
+
+    public BlocksBloom getBlocksBloomByNumber(long number) {
+        long key = this.firstNumberInRange(number);
+
+        BlocksBloom blocksBloom = this.blocksBlooms.get(key);
+
+        if (blocksBloom != null) {
+            return blocksBloom;
+        }
+
+        if (this.dataSource == null) {
+            return null;
+        }
+
+        byte[] data = this.dataSource.get(ByteUtil.longToBytes(key));
+
+        if (data == null) {
+            return null;
+        }
+
+        blocksBloom = BlocksBloom.fromEncoded(data);
+        this.blocksBlooms.put(key, blocksBloom);
+
+        return blocksBloom;
+    }
+
+    public void setBlocksBloom(BlocksBloom blocksBloom) {
+        if (blocksBloom.fromBlock() != this.firstNumberInRange(blocksBloom.fromBlock())
+                || blocksBloom.toBlock() != this.lastNumberInRange(blocksBloom.fromBlock())) {
+            throw new IllegalArgumentException("Blocks bloom does not cover a complete section");
+        }
+
+        this.blocksBlooms.put(blocksBloom.fromBlock(), blocksBloom);
+
+        if (this.dataSource != null) {
+            this.dataSource.put(ByteUtil.longToBytes(blocksBloom.fromBlock()), blocksBloom.getEncoded());
+        }
+    }
+}
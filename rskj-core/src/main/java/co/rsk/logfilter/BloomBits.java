@@ -0,0 +1,201 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import org.ethereum.core.Bloom;
+import org.ethereum.util.ByteUtil;
+import org.ethereum.util.RLP;
+import org.ethereum.util.RLPElement;
+import org.ethereum.util.RLPList;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rotated (bit-sliced) logs blooms of a consecutive range of blocks.
+ *
+ * For each of the 2048 bloom bit positions, it keeps a bitmap over the blocks
+ * of the range, so the blocks having all the bits of a filter bloom
+ * are found ANDing a few rows, one word per 64 blocks.
+ */
+public class BloomBits {
+    public static final int BLOOM_BITS = 2048;
+
+    private final long fromBlock;
+    private final long[][] rows = new long[BLOOM_BITS][];
+    private int size;
+
+    public BloomBits(long fromBlock) {
+        this.fromBlock = fromBlock;
+    }
+
+    public long fromBlock() { return this.fromBlock; }
+
+    public int size() { return this.size; }
+
+    public void addBlockBloom(long blockNumber, Bloom bloom) {
+        if (blockNumber != this.fromBlock + this.size) {
+            throw new IllegalArgumentException("Block out of sequence");
+        }
+
+        int offset = this.size++;
+        int nwords = wordsFor(this.size);
+        byte[] data = bloom.getData();
+
+        for (int k = 0; k < data.length; k++) {
+            if (data[k] == 0) {
+                continue;
+            }
+
+            for (int j = 0; j < 8; j++) {
+                if ((data[k] & (1 << j)) == 0) {
+                    continue;
+                }
+
+                int bit = k * 8 + j;
+                long[] row = this.rows[bit];
+
+                if (row == null) {
+                    row = new long[nwords];
+                    this.rows[bit] = row;
+                } else if (row.length < nwords) {
+                    row = Arrays.copyOf(row, nwords);
+                    this.rows[bit] = row;
+                }
+
+                row[offset >>> 6] |= 1L << (offset & 63);
+            }
+        }
+    }
+
+    /**
+     * Returns the bitmap of the blocks whose logs bloom contains all the bits of the given bloom
+     */
+    public long[] matches(Bloom bloom) {
+        long[] result = allBlocks();
+        byte[] data = bloom.getData();
+
+        for (int k = 0; k < data.length; k++) {
+            if (data[k] == 0) {
+                continue;
+            }
+
+            for (int j = 0; j < 8; j++) {
+                if ((data[k] & (1 << j)) == 0) {
+                    continue;
+                }
+
+                long[] row = this.rows[k * 8 + j];
+
+                if (row == null) {
+                    return new long[result.length];
+                }
+
+                for (int w = 0; w < result.length; w++) {
+                    result[w] &= w < row.length ? row[w] : 0;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the bitmap having all the blocks of the range
+     */
+    public long[] allBlocks() {
+        long[] result = new long[wordsFor(this.size)];
+
+        for (int offset = 0; offset < this.size; offset++) {
+            result[offset >>> 6] |= 1L << (offset & 63);
+        }
+
+        return result;
+    }
+
+    public List<Long> toBlockNumbers(long[] bitmap) {
+        List<Long> numbers = new ArrayList<>();
+
+        for (int w = 0; w < bitmap.length; w++) {
+            long word = bitmap[w];
+
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                numbers.add(this.fromBlock + w * 64 + bit);
+                word &= word - 1;
+            }
+        }
+
+        return numbers;
+    }
+
+    public byte[] getEncoded() {
+        List<byte[]> elements = new ArrayList<>();
+
+        elements.add(RLP.encodeElement(ByteUtil.longToBytesNoLeadZeroes(this.fromBlock)));
+        elements.add(RLP.encodeInt(this.size));
+
+        for (int bit = 0; bit < BLOOM_BITS; bit++) {
+            long[] row = this.rows[bit];
+
+            if (row == null) {
+                continue;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(row.length * 8);
+
+            for (long word : row) {
+                buffer.putLong(word);
+            }
+
+            elements.add(RLP.encodeList(RLP.encodeInt(bit), RLP.encodeElement(buffer.array())));
+        }
+
+        return RLP.encodeList(elements.toArray(new byte[elements.size()][]));
+    }
+
+    public static BloomBits fromEncoded(byte[] data) {
+        RLPList list = RLP.decodeList(data);
+
+        BloomBits bloomBits = new BloomBits(ByteUtil.byteArrayToLong(list.get(0).getRLPData()));
+        bloomBits.size = (int) ByteUtil.byteArrayToLong(list.get(1).getRLPData());
+
+        for (int k = 2; k < list.size(); k++) {
+            RLPList rowList = (RLPList) list.get(k);
+            RLPElement bitElement = rowList.get(0);
+            int bit = (int) ByteUtil.byteArrayToLong(bitElement.getRLPData());
+            ByteBuffer buffer = ByteBuffer.wrap(rowList.get(1).getRLPData());
+            long[] row = new long[buffer.remaining() / 8];
+
+            for (int w = 0; w < row.length; w++) {
+                row[w] = buffer.getLong();
+            }
+
+            bloomBits.rows[bit] = row;
+        }
+
+        return bloomBits;
+    }
+
+    private static int wordsFor(int nblocks) {
+        return (nblocks + 63) >>> 6;
+    }
+}
@@ -20,6 +20,7 @@ package co.rsk.net;
 
 import co.rsk.config.RskSystemProperties;
 import co.rsk.core.BlockDifficulty;
+import co.rsk.core.SenderRecoverer;
 import co.rsk.core.bc.BlockChainStatus;
 import co.rsk.crypto.Keccak256;
 import co.rsk.net.messages.*;
@@ -59,6 +60,7 @@ public class NodeMessageHandler implements MessageHandler, Runnable {
     private final ChannelManager channelManager;
     private final TransactionGateway transactionGateway;
     private final PeerScoringManager peerScoringManager;
+    private final SenderRecoverer senderRecoverer;
     private volatile long lastStatusSent = System.currentTimeMillis();
     private volatile long lastTickSent = System.currentTimeMillis();
 
@@ -70,7 +72,6 @@ public class NodeMessageHandler implements MessageHandler, Runnable {
 
     private volatile boolean stopped;
 
-    @Autowired
     public NodeMessageHandler(RskSystemProperties config,
                               @Nonnull final BlockProcessor blockProcessor,
                               final SyncProcessor syncProcessor,
@@ -78,6 +79,18 @@ public class NodeMessageHandler implements MessageHandler, Runnable {
                               @Nullable final TransactionGateway transactionGateway,
                               @Nullable final PeerScoringManager peerScoringManager,
                               @Nonnull BlockValidationRule blockValidationRule) {
+        this(config, blockProcessor, syncProcessor, channelManager, transactionGateway, peerScoringManager, blockValidationRule, new SenderRecoverer(0));
+    }
+
+    @Autowired
+    public NodeMessageHandler(RskSystemProperties config,
+                              @Nonnull final BlockProcessor blockProcessor,
+                              final SyncProcessor syncProcessor,
+                              @Nullable final ChannelManager channelManager,
+                              @Nullable final TransactionGateway transactionGateway,
+                              @Nullable final PeerScoringManager peerScoringManager,
+                              @Nonnull BlockValidationRule blockValidationRule,
+                              @Nonnull SenderRecoverer senderRecoverer) {
         this.config = config;
         this.channelManager = channelManager;
         this.blockProcessor = blockProcessor;
@@ -86,6 +99,7 @@ public class NodeMessageHandler implements MessageHandler, Runnable {
         this.blockValidationRule = blockValidationRule;
         this.cleanMsgTimestamp = System.currentTimeMillis();
         this.peerScoringManager = peerScoringManager;
+        this.senderRecoverer = senderRecoverer;
     }
 
     /**
@@ -162,7 +176,9 @@ public class NodeMessageHandler implements MessageHandler, Runnable {
                 }
                 this.receivedMessages.add(encodedMessage);
             }
-            if (!this.queue.offer(new MessageTask(sender, message))){
+            if (this.queue.offer(new MessageTask(sender, message))) {
+                recoverSenders(message);
+            } else {
                 logger.trace("Queue full, message not added to the queue");
             }
         } else {
@@ -171,6 +187,23 @@ public class NodeMessageHandler implements MessageHandler, Runnable {
         }
     }
 
+    /**
+     * Starts recovering the senders of the message transactions while the message waits in the queue
+     */
+    private void recoverSenders(Message message) {
+        MessageType type = message.getMessageType();
+
+        if (type == MessageType.BLOCK_MESSAGE) {
+            this.senderRecoverer.recoverAsync(((BlockMessage) message).getBlock().getTransactionsList());
+        } else if (type == MessageType.BLOCK_RESPONSE_MESSAGE) {
+            this.senderRecoverer.recoverAsync(((BlockResponseMessage) message).getBlock().getTransactionsList());
+        } else if (type == MessageType.BODY_RESPONSE_MESSAGE) {
+            this.senderRecoverer.recoverAsync(((BodyResponseMessage) message).getTransactions());
+        } else if (type == MessageType.TRANSACTIONS) {
+            this.senderRecoverer.recoverAsync(((TransactionsMessage) message).getTransactions());
+        }
+    }
+
     private void cleanExpiredMessages() {
         long currentTime = System.currentTimeMillis();
         if (currentTime - cleanMsgTimestamp > RECEIVED_MESSAGES_CACHE_DURATION) {
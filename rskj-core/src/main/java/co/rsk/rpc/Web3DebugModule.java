@@ -26,6 +26,18 @@ public interface Web3DebugModule {
         return getDebugModule().wireProtocolQueueSize();
     }
 
+    default String debug_opcodeProfile() {
+        return getDebugModule().opcodeProfile();
+    }
+
+    default String debug_resetOpcodeProfile() {
+        return getDebugModule().resetOpcodeProfile();
+    }
+
+    default String debug_senderCacheStats() {
+        return getDebugModule().senderCacheStats();
+    }
+
     DebugModule getDebugModule();
 }
 
@@ -21,6 +21,7 @@ package co.rsk.rpc;
 import co.rsk.config.RskSystemProperties;
 import co.rsk.core.NetworkStateExporter;
 import co.rsk.core.bc.Blockchain;
+import co.rsk.logfilter.BlocksBloomStore;
 import co.rsk.metrics.HashRateCalculator;
 import co.rsk.mine.*;
 import co.rsk.net.BlockProcessor;
@@ -80,12 +81,13 @@ public class Web3RskImpl extends Web3Impl {
                        NetworkStateExporter networkStateExporter,
                        BlockStore blockStore,
                        ReceiptStore receiptStore,
+                       BlocksBloomStore blocksBloomStore,
                        PeerServer peerServer,
                        BlockProcessor nodeBlockProcessor,
                        HashRateCalculator hashRateCalculator,
                        ConfigCapabilities configCapabilities,
                        BuildInfo buildInfo) {
-        super(eth, blockchain, transactionPool, blockStore, receiptStore, properties, minerClient, minerServer,
+        super(eth, blockchain, transactionPool, blockStore, receiptStore, blocksBloomStore, properties, minerClient, minerServer,
               personalModule, ethModule, evmModule, txPoolModule, mnrModule, debugModule,
               channelManager, repository, peerScoringManager, peerServer, nodeBlockProcessor,
               hashRateCalculator, configCapabilities, buildInfo);
@@ -22,4 +22,10 @@ public interface DebugModule {
 
     String wireProtocolQueueSize();
 
+    String opcodeProfile();
+
+    String resetOpcodeProfile();
+
+    String senderCacheStats();
+
 }
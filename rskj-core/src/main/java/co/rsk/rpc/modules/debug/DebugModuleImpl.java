@@ -18,8 +18,15 @@
 
 package co.rsk.rpc.modules.debug;
 
+import co.rsk.core.SenderCache;
 import co.rsk.net.MessageHandler;
+import co.rsk.vm.OpcodeProfiler;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.ethereum.core.Transaction;
 import org.ethereum.rpc.TypeConverter;
+import org.ethereum.vm.VM;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -27,10 +34,17 @@ import org.springframework.stereotype.Component;
 public class DebugModuleImpl implements DebugModule {
 
     private final MessageHandler messageHandler;
+    private final OpcodeProfiler profiler;
+    private final JsonNodeFactory jsonNodeFactory = JsonNodeFactory.instance;
 
     @Autowired
     public DebugModuleImpl(MessageHandler messageHandler) {
+        this(messageHandler, VM.getOpcodeProfiler());
+    }
+
+    public DebugModuleImpl(MessageHandler messageHandler, OpcodeProfiler profiler) {
         this.messageHandler = messageHandler;
+        this.profiler = profiler;
     }
 
     @Override
@@ -38,4 +52,75 @@ public class DebugModuleImpl implements DebugModule {
         long n = messageHandler.getMessageQueueSize();
         return TypeConverter.toJsonHex(n);
     }
+
+    /**
+     * Returns the executed opcodes, and the executed contracts by code hash,
+     * sorted by their estimated time, in nanoseconds
+     */
+    @Override
+    public String opcodeProfile() {
+        return serializeProfile(profiler.getSnapshot());
+    }
+
+    /**
+     * Returns the profile as opcodeProfile, and starts a new one
+     */
+    @Override
+    public String resetOpcodeProfile() {
+        synchronized (profiler) {
+            OpcodeProfiler.Snapshot snapshot = profiler.getSnapshot();
+            profiler.reset();
+            return serializeProfile(snapshot);
+        }
+    }
+
+    /**
+     * Returns the size, hits and misses of the transaction sender cache
+     */
+    @Override
+    public String senderCacheStats() {
+        SenderCache cache = Transaction.getSenderCache();
+
+        ObjectNode node = jsonNodeFactory.objectNode();
+        node.put("size", cache.size());
+        node.put("hits", cache.getHits());
+        node.put("misses", cache.getMisses());
+        node.put("hitRate", cache.getHitRate());
+
+        return node.toString();
+    }
+
+    private String serializeProfile(OpcodeProfiler.Snapshot snapshot) {
+        ArrayNode opcodes = jsonNodeFactory.arrayNode();
+
+        for (OpcodeProfiler.OpcodeProfile opcode : snapshot.getOpcodes()) {
+            ObjectNode opcodeNode = jsonNodeFactory.objectNode();
+            opcodeNode.put("opcode", opcode.getOpcode() == null ? "INVALID" : opcode.getOpcode().name());
+            opcodeNode.put("count", opcode.getCount());
+            opcodeNode.put("gas", opcode.getGas());
+            opcodeNode.put("nanos", opcode.getNanos());
+            opcodeNode.put("samples", opcode.getSamples());
+            opcodes.add(opcodeNode);
+        }
+
+        ArrayNode contracts = jsonNodeFactory.arrayNode();
+
+        for (OpcodeProfiler.ContractProfile contract : snapshot.getContracts()) {
+            ObjectNode contractNode = jsonNodeFactory.objectNode();
+            contractNode.put("codeHash", contract.getCodeHash().toJsonString());
+            contractNode.put("calls", contract.getCalls());
+            contractNode.put("instructions", contract.getInstructions());
+            contractNode.put("gas", contract.getGas());
+            contractNode.put("nanos", contract.getNanos());
+            contracts.add(contractNode);
+        }
+
+        ObjectNode node = jsonNodeFactory.objectNode();
+        node.put("since", snapshot.getSince());
+        node.put("sampleInterval", OpcodeProfiler.SAMPLE_INTERVAL);
+        node.set("opcodes", opcodes);
+        node.set("contracts", contracts);
+
+        return node.toString();
+    }
 }
@@ -87,8 +87,20 @@ public class EthModule
     public String estimateGas(Web3.CallArguments args) {
         String s = null;
         try {
-            ProgramResult res = callConstant(args, blockchain.getBestBlock());
-            return s = toJsonHex(res.getGasUsed());
+            Block bestBlock = blockchain.getBestBlock();
+            CallArgumentsToByteArray hexArgs = new CallArgumentsToByteArray(args);
+            long gas = reversibleTransactionExecutor.estimateGas(
+                    bestBlock,
+                    bestBlock.getCoinbase(),
+                    hexArgs.getGasPrice(),
+                    hexArgs.getGasLimit(),
+                    hexArgs.getToAddress(),
+                    hexArgs.getValue(),
+                    hexArgs.getData(),
+                    hexArgs.getFromAddress()
+            );
+
+            return s = toJsonHex(gas);
         } finally {
             LOGGER.debug("eth_estimateGas(): {}", s);
         }
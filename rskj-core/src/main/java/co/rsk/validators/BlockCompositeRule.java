@@ -23,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -44,6 +45,14 @@ public class BlockCompositeRule implements BlockValidationRule {
             }
         }
     }
+
+    /**
+     * Returns the rules checked by this rule, in order
+     */
+    public List<BlockValidationRule> getRules() {
+        return Collections.unmodifiableList(this.rules);
+    }
+
     @Override
     public boolean isValid(Block block) {
         String shortHash = block.getShortHash();
@@ -23,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -45,6 +46,13 @@ public class BlockParentCompositeRule implements BlockParentDependantValidationR
         }
     }
 
+    /**
+     * Returns the rules checked by this rule, in order
+     */
+    public List<BlockParentDependantValidationRule> getRules() {
+        return Collections.unmodifiableList(this.rules);
+    }
+
     @Override
     public boolean isValid(Block block, Block parent) {
         final String shortHash = block.getShortHash();
@@ -20,6 +20,7 @@ package co.rsk.validators;
 
 import co.rsk.panic.PanicProcessor;
 import co.rsk.core.Address;
+import co.rsk.core.SenderRecoverer;
 import org.ethereum.core.Block;
 import org.ethereum.core.Repository;
 import org.ethereum.core.Transaction;
@@ -46,9 +47,18 @@ public class BlockTxsValidationRule implements BlockParentDependantValidationRul
     private static final PanicProcessor panicProcessor = new PanicProcessor();
 
     private final Repository repository;
+    private final SenderRecoverer senderRecoverer;
 
     public BlockTxsValidationRule(Repository repository) {
+        this(repository, new SenderRecoverer(0));
+    }
+
+    /**
+     * The senders not yet recovered are recovered on the sender recoverer workers, before checking the nonces
+     */
+    public BlockTxsValidationRule(Repository repository, SenderRecoverer senderRecoverer) {
         this.repository = repository;
+        this.senderRecoverer = senderRecoverer;
     }
 
     @Override
@@ -63,6 +73,8 @@ public class BlockTxsValidationRule implements BlockParentDependantValidationRul
             return true;
         }
 
+        senderRecoverer.recover(txs);
+
         Repository parentRepo = repository.getSnapshotTo(parent.getStateRoot());
 
         Map<Address, BigInteger> curNonce = new HashMap<>();
@@ -0,0 +1,179 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.vm;
+
+import co.rsk.crypto.Keccak256;
+import org.ethereum.crypto.HashUtil;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.OpCode;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Static analysis of a contract code: the decoded instructions, the valid jump
+ * destinations and the basic blocks of opcodes having only a fixed gas cost.
+ *
+ * The instructions are indexed by position, with the PUSH values already parsed.
+ * The positions of PUSH data, and of invalid opcodes, have no instruction.
+ * There is a STOP just after the end of the code, as the code is followed by zeros.
+ *
+ * A basic block starts at the code start, at a JUMPDEST, or after any other
+ * opcode that ends a block, and it ends with a JUMP, a JUMPI, or just before
+ * an opcode whose gas is computed at execution time. The analysis is
+ * immutable, so it can be shared by all the programs running the same code.
+ */
+public class CodeAnalysis {
+    public static final int DYNAMIC_GAS = -1;
+
+    private static final Set<OpCode> FIXED_GAS_OPCODES = EnumSet.of(
+            OpCode.ADD, OpCode.MUL, OpCode.SUB, OpCode.DIV, OpCode.SDIV, OpCode.MOD, OpCode.SMOD,
+            OpCode.ADDMOD, OpCode.MULMOD, OpCode.SIGNEXTEND,
+            OpCode.LT, OpCode.GT, OpCode.SLT, OpCode.SGT, OpCode.EQ, OpCode.ISZERO,
+            OpCode.AND, OpCode.OR, OpCode.XOR, OpCode.NOT, OpCode.BYTE,
+            OpCode.ADDRESS, OpCode.ORIGIN, OpCode.CALLER, OpCode.CALLVALUE,
+            OpCode.CALLDATALOAD, OpCode.CALLDATASIZE, OpCode.GASPRICE,
+            OpCode.COINBASE, OpCode.TIMESTAMP, OpCode.NUMBER, OpCode.DIFFICULTY, OpCode.GASLIMIT,
+            OpCode.POP, OpCode.PC, OpCode.MSIZE, OpCode.JUMPDEST, OpCode.JUMP, OpCode.JUMPI
+    );
+
+    private final byte[] code;
+    private final OpCode[] instructions;
+    private final DataWord[] pushValues;
+    private final BitSet jumpdestSet;
+    private final int[] blockGas;
+    private volatile Keccak256 codeHash;
+
+    /**
+     * @param ops       the code, kept by the analysis, so it must not be changed
+     * @param start     the position where the analysis starts
+     */
+    public CodeAnalysis(byte[] ops, int start) {
+        this.code = ops;
+        this.instructions = new OpCode[ops.length + 1];
+        this.pushValues = new DataWord[ops.length];
+        this.jumpdestSet = new BitSet(ops.length);
+        this.blockGas = new int[ops.length];
+
+        this.instructions[ops.length] = OpCode.STOP;
+
+        int blockStart = -1;
+
+        for (int i = start; i < ops.length; ++i) {
+            OpCode op = OpCode.code(ops[i]);
+
+            instructions[i] = op;
+
+            if (op == OpCode.JUMPDEST) {
+                jumpdestSet.set(i);
+                blockStart = -1;
+            }
+
+            if (op == null || !isFixedGas(op)) {
+                blockGas[i] = DYNAMIC_GAS;
+                blockStart = -1;
+            } else {
+                if (blockStart < 0) {
+                    blockStart = i;
+                }
+
+                blockGas[blockStart] += op.getTier().asInt();
+
+                if (op == OpCode.JUMP || op == OpCode.JUMPI) {
+                    blockStart = -1;
+                }
+            }
+
+            if (op != null && op.asInt() >= OpCode.PUSH1.asInt() && op.asInt() <= OpCode.PUSH32.asInt()) {
+                int npush = op.asInt() - OpCode.PUSH1.asInt() + 1;
+                pushValues[i] = pushValue(ops, i + 1, npush);
+                i += npush;
+            }
+        }
+    }
+
+    /**
+     * Returns the decoded opcode at the given position, null if there is no valid opcode
+     */
+    public OpCode getInstruction(int pc) {
+        return this.instructions[pc];
+    }
+
+    /**
+     * Returns the value pushed by the PUSH at the given position. It must not be changed.
+     */
+    public DataWord getPushValue(int pc) {
+        return this.pushValues[pc];
+    }
+
+    /**
+     * Returns the hash of the code, computed on the first call, as only the opcode profiler needs it
+     */
+    public Keccak256 getCodeHash() {
+        Keccak256 hash = this.codeHash;
+
+        if (hash == null) {
+            hash = new Keccak256(HashUtil.keccak256(this.code));
+            this.codeHash = hash;
+        }
+
+        return hash;
+    }
+
+    public BitSet getJumpdestSet() {
+        return this.jumpdestSet;
+    }
+
+    /**
+     * Returns the fixed gas of the basic block starting at the given position,
+     * DYNAMIC_GAS if the opcode at the position has a computed gas,
+     * or zero if the position is inside a block
+     */
+    public int getBlockGas(int pc) {
+        return this.blockGas[pc];
+    }
+
+    // missing bytes at the end of code are taken as zeros
+    private static DataWord pushValue(byte[] ops, int offset, int npush) {
+        byte[] data = new byte[32];
+        int available = Math.max(0, Math.min(npush, ops.length - offset));
+
+        System.arraycopy(ops, offset, data, 32 - npush, available);
+
+        return new DataWord(data);
+    }
+
+    private static boolean isFixedGas(OpCode op) {
+        int value = op.asInt();
+
+        if (value >= OpCode.PUSH1.asInt() && value <= OpCode.PUSH32.asInt()) {
+            return true;
+        }
+
+        if (value >= OpCode.DUP1.asInt() && value <= OpCode.DUP16.asInt()) {
+            return true;
+        }
+
+        if (value >= OpCode.SWAP1.asInt() && value <= OpCode.SWAP16.asInt()) {
+            return true;
+        }
+
+        return FIXED_GAS_OPCODES.contains(op);
+    }
+}
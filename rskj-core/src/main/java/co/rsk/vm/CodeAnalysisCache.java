@@ -0,0 +1,54 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.vm;
+
+import co.rsk.util.MaxSizeHashMap;
+import org.ethereum.db.ByteArrayWrapper;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Keeps the analysis of the most recently executed codes,
+ * so a contract called many times is analyzed only once.
+ */
+public class CodeAnalysisCache {
+    private final Map<ByteArrayWrapper, CodeAnalysis> analyses;
+
+    public CodeAnalysisCache(int maxSize) {
+        this.analyses = new MaxSizeHashMap<>(maxSize, true);
+    }
+
+    public synchronized CodeAnalysis getCodeAnalysis(byte[] ops, int start) {
+        CodeAnalysis analysis = analyses.get(new ByteArrayWrapper(ops));
+
+        if (analysis == null) {
+            // the analysis keeps the code to hash it when profiling, so it shares the key copy
+            byte[] code = Arrays.copyOf(ops, ops.length);
+            analysis = new CodeAnalysis(code, start);
+            analyses.put(new ByteArrayWrapper(code), analysis);
+        }
+
+        return analysis;
+    }
+
+    public synchronized int size() {
+        return analyses.size();
+    }
+}
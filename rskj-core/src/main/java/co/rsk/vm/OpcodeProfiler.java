@@ -0,0 +1,313 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.vm;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.util.MaxSizeHashMap;
+import org.ethereum.vm.OpCode;
+
+import java.util.*;
+
+/**
+ * Aggregates the opcodes executed by the VM: count and charged gas of each opcode,
+ * and the time of one of every SAMPLE_INTERVAL executions, so the timing overhead is low.
+ * It also aggregates the executions of each contract, by code hash, where the time
+ * and gas include the calls made by the contract.
+ *
+ * It is disabled by default. Each thread records into its own recorder, without
+ * sharing any lock with other threads, and the recorders are merged only when
+ * a snapshot is taken. The counts of the running threads are read without
+ * synchronization, so a snapshot could miss their latest opcodes.
+ */
+public class OpcodeProfiler {
+    public static final int SAMPLE_INTERVAL = 64;
+    private static final int MAX_CONTRACTS = 1000;
+    private static final int NOPCODES = 256;
+
+    private final List<Recorder> recorders = new ArrayList<>();
+    private final ThreadLocal<Recorder> threadRecorders = ThreadLocal.withInitial(this::register);
+
+    // the executions of the finished threads
+    private final Recorder retired = new Recorder(null);
+    // the totals at the last reset, subtracted from the snapshots
+    private final long[][] baseline = new long[4][NOPCODES];
+
+    private volatile boolean enabled;
+    private long since = System.currentTimeMillis();
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the recorder of the current thread
+     */
+    public Recorder getRecorder() {
+        return this.threadRecorders.get();
+    }
+
+    public synchronized Snapshot getSnapshot() {
+        long[][] totals = getTotals();
+        List<OpcodeProfile> opcodes = new ArrayList<>();
+
+        for (int k = 0; k < NOPCODES; k++) {
+            long count = totals[0][k] - this.baseline[0][k];
+
+            if (count == 0) {
+                continue;
+            }
+
+            long gas = totals[1][k] - this.baseline[1][k];
+            long sampledNanos = totals[2][k] - this.baseline[2][k];
+            long samples = totals[3][k] - this.baseline[3][k];
+
+            // the time of all the executions is estimated from the sampled ones
+            long nanos = samples == 0 ? 0 : sampledNanos * count / samples;
+            opcodes.add(new OpcodeProfile(OpCode.code((byte) k), count, gas, nanos, samples));
+        }
+
+        Map<Keccak256, ContractProfile> contracts = new HashMap<>();
+        this.retired.addContractsTo(contracts);
+
+        for (Recorder recorder : this.recorders) {
+            recorder.addContractsTo(contracts);
+        }
+
+        List<ContractProfile> contractProfiles = new ArrayList<>(contracts.values());
+
+        opcodes.sort(Comparator.comparingLong(OpcodeProfile::getNanos).reversed());
+        contractProfiles.sort(Comparator.comparingLong(ContractProfile::getNanos).reversed());
+
+        return new Snapshot(this.since, opcodes, contractProfiles);
+    }
+
+    public synchronized void reset() {
+        long[][] totals = getTotals();
+
+        for (int k = 0; k < totals.length; k++) {
+            System.arraycopy(totals[k], 0, this.baseline[k], 0, NOPCODES);
+        }
+
+        this.retired.clearContracts();
+
+        for (Recorder recorder : this.recorders) {
+            recorder.clearContracts();
+        }
+
+        this.since = System.currentTimeMillis();
+    }
+
+    private synchronized Recorder register() {
+        Recorder recorder = new Recorder(Thread.currentThread());
+        this.recorders.add(recorder);
+        return recorder;
+    }
+
+    /**
+     * Returns the counts, gas, sampled time and samples of each opcode, of all the recorders.
+     * The recorders of the finished threads are added to the retired one and released.
+     */
+    private long[][] getTotals() {
+        long[][] totals = new long[4][NOPCODES];
+        this.retired.addCountsTo(totals);
+
+        for (Iterator<Recorder> iterator = this.recorders.iterator(); iterator.hasNext();) {
+            Recorder recorder = iterator.next();
+            recorder.addCountsTo(totals);
+
+            if (!recorder.thread.isAlive()) {
+                this.retired.retire(recorder);
+                iterator.remove();
+            }
+        }
+
+        return totals;
+    }
+
+    /**
+     * Records the opcodes executed by a thread. Only the owner thread updates it,
+     * the contracts are guarded by the recorder, to be read by the snapshots.
+     */
+    public static class Recorder {
+        private final Thread thread;
+        private final long[] counts = new long[NOPCODES];
+        private final long[] gas = new long[NOPCODES];
+        private final long[] sampledNanos = new long[NOPCODES];
+        private final long[] samples = new long[NOPCODES];
+        private final Map<Keccak256, ContractProfile> contracts = new MaxSizeHashMap<>(MAX_CONTRACTS, true);
+        private int countdown = SAMPLE_INTERVAL;
+
+        private Recorder(Thread thread) {
+            this.thread = thread;
+        }
+
+        /**
+         * Returns true if the next execution should be timed
+         */
+        public boolean sample() {
+            if (--this.countdown > 0) {
+                return false;
+            }
+
+            this.countdown = SAMPLE_INTERVAL;
+            return true;
+        }
+
+        public void addOpcode(OpCode op, long opGas) {
+            int k = op.val() & 0xff;
+            this.counts[k]++;
+            this.gas[k] += opGas;
+        }
+
+        public void addSample(OpCode op, long nanos) {
+            int k = op.val() & 0xff;
+            this.sampledNanos[k] += nanos;
+            this.samples[k]++;
+        }
+
+        /**
+         * Adds the execution of a contract
+         */
+        public synchronized void addExecution(Keccak256 codeHash, long instructions, long gasUsed, long nanos) {
+            ContractProfile contract = this.contracts.get(codeHash);
+
+            if (contract == null) {
+                contract = new ContractProfile(codeHash);
+                this.contracts.put(codeHash, contract);
+            }
+
+            contract.calls++;
+            contract.instructions += instructions;
+            contract.gas += gasUsed;
+            contract.nanos += nanos;
+        }
+
+        private void addCountsTo(long[][] totals) {
+            for (int k = 0; k < NOPCODES; k++) {
+                totals[0][k] += this.counts[k];
+                totals[1][k] += this.gas[k];
+                totals[2][k] += this.sampledNanos[k];
+                totals[3][k] += this.samples[k];
+            }
+        }
+
+        private synchronized void addContractsTo(Map<Keccak256, ContractProfile> totals) {
+            for (ContractProfile contract : this.contracts.values()) {
+                totals.computeIfAbsent(contract.codeHash, ContractProfile::new).add(contract);
+            }
+        }
+
+        private synchronized void clearContracts() {
+            this.contracts.clear();
+        }
+
+        private void retire(Recorder recorder) {
+            for (int k = 0; k < NOPCODES; k++) {
+                this.counts[k] += recorder.counts[k];
+                this.gas[k] += recorder.gas[k];
+                this.sampledNanos[k] += recorder.sampledNanos[k];
+                this.samples[k] += recorder.samples[k];
+            }
+
+            synchronized (this) {
+                recorder.addContractsTo(this.contracts);
+            }
+        }
+    }
+
+    public static class OpcodeProfile {
+        private final OpCode opcode;
+        private final long count;
+        private final long gas;
+        private final long nanos;
+        private final long samples;
+
+        public OpcodeProfile(OpCode opcode, long count, long gas, long nanos, long samples) {
+            this.opcode = opcode;
+            this.count = count;
+            this.gas = gas;
+            this.nanos = nanos;
+            this.samples = samples;
+        }
+
+        public OpCode getOpcode() { return this.opcode; }
+
+        public long getCount() { return this.count; }
+
+        public long getGas() { return this.gas; }
+
+        public long getNanos() { return this.nanos; }
+
+        public long getSamples() { return this.samples; }
+    }
+
+    public static class ContractProfile {
+        private final Keccak256 codeHash;
+        private long calls;
+        private long instructions;
+        private long gas;
+        private long nanos;
+
+        public ContractProfile(Keccak256 codeHash) {
+            this.codeHash = codeHash;
+        }
+
+        public Keccak256 getCodeHash() { return this.codeHash; }
+
+        public long getCalls() { return this.calls; }
+
+        public long getInstructions() { return this.instructions; }
+
+        public long getGas() { return this.gas; }
+
+        public long getNanos() { return this.nanos; }
+
+        private void add(ContractProfile contract) {
+            this.calls += contract.calls;
+            this.instructions += contract.instructions;
+            this.gas += contract.gas;
+            this.nanos += contract.nanos;
+        }
+    }
+
+    public static class Snapshot {
+        private final long since;
+        private final List<OpcodeProfile> opcodes;
+        private final List<ContractProfile> contracts;
+
+        public Snapshot(long since, List<OpcodeProfile> opcodes, List<ContractProfile> contracts) {
+            this.since = since;
+            this.opcodes = opcodes;
+            this.contracts = contracts;
+        }
+
+        /**
+         * Returns the time, in milliseconds, of the start of the profile
+         */
+        public long getSince() { return this.since; }
+
+        public List<OpcodeProfile> getOpcodes() { return this.opcodes; }
+
+        public List<ContractProfile> getContracts() { return this.contracts; }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.vm;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.util.MaxSizeHashMap;
+import org.ethereum.crypto.HashUtil;
+import org.ethereum.util.ByteUtil;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keeps the most recent results of a precompiled contract without state,
+ * keyed by the hash of the input data, so a repeated call is not computed again.
+ */
+public class PrecompiledResultCache {
+    private final Map<Keccak256, byte[]> results;
+
+    public PrecompiledResultCache(int maxSize) {
+        this.results = new MaxSizeHashMap<>(maxSize, true);
+    }
+
+    /**
+     * Returns a copy of the cached result for the data, or computes and keeps it.
+     * The computation runs outside the lock, so concurrent calls are not serialized.
+     */
+    public byte[] getResult(byte[] data, Function<byte[], byte[]> function) {
+        Keccak256 key = new Keccak256(HashUtil.keccak256(data == null ? ByteUtil.EMPTY_BYTE_ARRAY : data));
+        byte[] result;
+
+        synchronized (this) {
+            result = results.get(key);
+        }
+
+        if (result == null) {
+            result = function.apply(data);
+
+            synchronized (this) {
+                results.put(key, result);
+            }
+        }
+
+        return Arrays.copyOf(result, result.length);
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+}
@@ -23,7 +23,11 @@ import co.rsk.cli.CliArgs;
 import co.rsk.config.*;
 import co.rsk.core.DifficultyCalculator;
 import co.rsk.core.NetworkStateExporter;
+import co.rsk.core.SenderRecoverer;
+import co.rsk.core.bc.BlockValidatorImpl;
+import co.rsk.core.bc.ParallelBlockValidator;
 import co.rsk.crypto.Keccak256;
+import co.rsk.logfilter.BlocksBloomStore;
 import co.rsk.metrics.BlockHeaderElement;
 import co.rsk.metrics.HashRateCalculator;
 import co.rsk.metrics.HashRateCalculatorMining;
@@ -46,6 +50,7 @@ import org.mapdb.DBMaker;
 import org.mapdb.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -108,6 +113,20 @@ public class DefaultConfig {
         return new ReceiptStoreImpl(ds);
     }
 
+    @Bean
+    public TransactionIndex transactionIndex(RskSystemProperties config) {
+        KeyValueDataSource ds = new LevelDbDataSource("txindex", config.databaseDir());
+        ds.init();
+        return new TransactionIndex(ds);
+    }
+
+    @Bean
+    public BlocksBloomStore blocksBloomStore(RskSystemProperties config) {
+        KeyValueDataSource ds = new LevelDbDataSource("blooms", config.databaseDir());
+        ds.init();
+        return new BlocksBloomStore(config.bloomsNumberOfBlocks(), ds);
+    }
+
     @Bean
     public HashRateCalculator hashRateCalculator(RskSystemProperties rskSystemProperties, BlockStore blockStore, MiningConfig miningConfig) {
         RskCustomCache<Keccak256, BlockHeaderElement> cache = new RskCustomCache<>(60000L);
@@ -140,12 +159,18 @@ public class DefaultConfig {
         return new RskSystemProperties(new ConfigLoader(cliArgs));
     }
 
+    @Bean
+    public SenderRecoverer senderRecoverer(RskSystemProperties config) {
+        return new SenderRecoverer(config.senderRecoveryThreads());
+    }
+
     @Bean
     public BlockParentDependantValidationRule blockParentDependantValidationRule(
             Repository repository,
             RskSystemProperties config,
-            DifficultyCalculator difficultyCalculator) {
-        BlockTxsValidationRule blockTxsValidationRule = new BlockTxsValidationRule(repository);
+            DifficultyCalculator difficultyCalculator,
+            SenderRecoverer senderRecoverer) {
+        BlockTxsValidationRule blockTxsValidationRule = new BlockTxsValidationRule(repository, senderRecoverer);
         BlockTxsFieldsValidationRule blockTxsFieldsValidationRule = new BlockTxsFieldsValidationRule();
         PrevMinGasPriceRule prevMinGasPriceRule = new PrevMinGasPriceRule();
         BlockParentNumberRule parentNumberRule = new BlockParentNumberRule();
@@ -181,6 +206,21 @@ public class DefaultConfig {
         return new BlockCompositeRule(new TxsMinGasPriceRule(), blockUnclesValidationRule, new BlockRootValidationRule(), blockTimeStampValidationRule, new GasLimitRule(minGasLimit), new ExtraDataRule(maxExtraDataSize));
     }
 
+    @Bean
+    public BlockValidator blockValidator(
+            RskSystemProperties config,
+            BlockStore blockStore,
+            BlockParentDependantValidationRule blockParentDependantValidationRule,
+            @Qualifier("blockValidationRule") BlockValidationRule blockValidationRule) {
+        int threads = config.blockValidationThreads();
+
+        if (threads > 1) {
+            return new ParallelBlockValidator(blockStore, blockParentDependantValidationRule, blockValidationRule, threads);
+        }
+
+        return new BlockValidatorImpl(blockStore, blockParentDependantValidationRule, blockValidationRule);
+    }
+
     @Bean
     public NetworkStateExporter networkStateExporter(Repository repository) {
         return new NetworkStateExporter(repository);
@@ -37,6 +37,7 @@ import org.ethereum.crypto.Keccak256Helper;
 import org.ethereum.net.p2p.P2pHandler;
 import org.ethereum.net.rlpx.MessageCodec;
 import org.ethereum.net.rlpx.Node;
+import org.ethereum.vm.trace.TraceDetail;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -427,6 +428,16 @@ public abstract class SystemProperties {
         return configFromFiles.getInt("vm.structured.initStorageLimit");
     }
 
+    @ValidateMe
+    public TraceDetail vmTraceDetail() {
+        return TraceDetail.valueOf(configFromFiles.getString("vm.structured.detail").toUpperCase());
+    }
+
+    @ValidateMe
+    public boolean vmTraceStreaming() {
+        return configFromFiles.getBoolean("vm.structured.streaming");
+    }
+
     @ValidateMe
     public String vmTraceDir() {
         return configFromFiles.getString("vm.structured.dir");
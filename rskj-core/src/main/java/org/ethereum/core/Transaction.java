@@ -21,6 +21,7 @@ package org.ethereum.core;
 
 import co.rsk.config.RskSystemProperties;
 import co.rsk.core.Coin;
+import co.rsk.core.SenderCache;
 import co.rsk.core.Address;
 import co.rsk.crypto.Keccak256;
 import co.rsk.panic.PanicProcessor;
@@ -68,6 +69,10 @@ public class Transaction {
     private static final byte CHAIN_ID_INC = 35;
 
     private static final byte LOWER_REAL_V = 27;
+
+    private static final int SENDER_CACHE_SIZE = 50000;
+    private static final SenderCache senderCache = new SenderCache(SENDER_CACHE_SIZE);
+
     protected Address sender;
     /* whether this is a local call transaction */
     private boolean isLocalCall;
@@ -368,9 +373,17 @@ public class Transaction {
             return sender;
         }
 
+        Keccak256 txHash = getHash();
+        sender = senderCache.getSender(txHash);
+
+        if (sender != null) {
+            return sender;
+        }
+
         try {
             ECKey key = ECKey.signatureToKey(getRawHash().getBytes(), getSignature());
             sender = new Address(key.getAddress());
+            senderCache.putSender(txHash, sender);
         } catch (SignatureException e) {
             logger.error(e.getMessage(), e);
             panicProcessor.panic("transaction", e.getMessage());
@@ -380,6 +393,13 @@ public class Transaction {
         return sender;
     }
 
+    /**
+     * Returns the cache of the senders recovered by all the transactions
+     */
+    public static SenderCache getSenderCache() {
+        return senderCache;
+    }
+
     public byte getChainId() {
         return chainId;
     }
@@ -36,6 +36,7 @@ import org.ethereum.vm.program.ProgramResult;
 import org.ethereum.vm.program.invoke.ProgramInvoke;
 import org.ethereum.vm.program.invoke.ProgramInvokeFactory;
 import org.ethereum.vm.trace.ProgramTrace;
+import org.ethereum.vm.trace.ProgramTraceWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +50,7 @@ import static org.apache.commons.lang3.ArrayUtils.getLength;
 import static org.apache.commons.lang3.ArrayUtils.isEmpty;
 import static org.ethereum.util.BIUtil.*;
 import static org.ethereum.util.ByteUtil.EMPTY_BYTE_ARRAY;
+import static org.ethereum.vm.VMUtils.createProgramTraceWriter;
 import static org.ethereum.vm.VMUtils.saveProgramTraceFile;
 
 /**
@@ -97,6 +99,8 @@ public class TransactionExecutor {
     private List<LogInfo> logs = null;
 
     private boolean localCall = false;
+    private boolean speculative = false;
+    private TransactionExecutionSummary summary;
 
     public TransactionExecutor(Transaction tx, Address coinbase, Repository track, BlockStore blockStore, ReceiptStore receiptStore,
                                ProgramInvokeFactory programInvokeFactory, Block executionBlock, EthereumListener listener, long gasUsedInTheBlock,
@@ -358,6 +362,7 @@ public class TransactionExecutor {
             program.spendGas(tx.transactionCost(executionBlock, netConfig), "TRANSACTION COST");
 
             if (playVm) {
+                startTraceWriter();
                 vm.play(program);
             }
 
@@ -410,6 +415,9 @@ public class TransactionExecutor {
             mEndGas = BigInteger.ZERO;
             execError(e);
 
+        } finally {
+            // the result is already taken, the stack and memory are reused by the next transaction
+            program.release();
         }
     }
 
@@ -495,6 +503,23 @@ public class TransactionExecutor {
         // Traverse list of suicides
         result.getDeleteAccounts().forEach(address -> track.delete(new Address(address)));
 
+        this.summary = summary;
+
+        if (!speculative) {
+            publish();
+        }
+
+        logger.trace("tx finalization done");
+    }
+
+    /**
+     * Notifies the listener and saves the VM trace of the finalized execution
+     */
+    public void publish() {
+        if (summary == null) {
+            return;
+        }
+
         if (listener != null) {
             listener.onTransactionExecuted(summary);
         }
@@ -505,7 +530,14 @@ public class TransactionExecutor {
             ProgramTrace trace = program.getTrace().result(result.getHReturn()).error(result.getException());
             String txHash = tx.getHash().toHexString();
             try {
-                saveProgramTraceFile(txHash, trace, databaseDir, vmTraceDir, vmTraceCompressed);
+                ProgramTraceWriter writer = trace.getWriter();
+
+                if (writer != null) {
+                    writer.close(trace);
+                } else {
+                    saveProgramTraceFile(txHash, trace, databaseDir, vmTraceDir, vmTraceCompressed);
+                }
+
                 if (listener != null) {
                     listener.onVMTraceCreated(txHash, trace);
                 }
@@ -515,8 +547,23 @@ public class TransactionExecutor {
                 logger.error(errorMessage);
             }
         }
+    }
 
-        logger.trace("tx finalization done");
+    /**
+     * With streaming VM trace, the program ops are written to the trace file while executing
+     */
+    private void startTraceWriter() {
+        if (!vmTrace || !vmConfig.vmTraceStreaming() || speculative) {
+            return;
+        }
+
+        try {
+            program.getTrace().setWriter(createProgramTraceWriter(tx.getHash().toHexString(), databaseDir, vmTraceDir, vmTraceCompressed));
+        } catch (IOException e) {
+            String errorMessage = String.format("Cannot write trace to file: %s", e.getMessage());
+            panicProcessor.panic("executor", errorMessage);
+            logger.error(errorMessage);
+        }
     }
 
     public TransactionExecutor setLocalCall(boolean localCall) {
@@ -525,6 +572,15 @@ public class TransactionExecutor {
         return this;
     }
 
+    /**
+     * A speculative execution may be discarded, so the listener is not notified
+     * and the VM trace is not saved until publish() is called
+     */
+    public TransactionExecutor setSpeculative(boolean speculative) {
+        this.speculative = speculative;
+        return this;
+    }
+
     public List<LogInfo> getVMLogs() {
         return logs;
     }
@@ -29,6 +29,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.ethereum.core.*;
 import org.ethereum.db.BlockStore;
 import org.ethereum.db.ReceiptStore;
+import org.ethereum.db.TransactionIndex;
 import org.ethereum.listener.EthereumListener;
 import org.ethereum.vm.PrecompiledContracts;
 import org.ethereum.vm.program.invoke.ProgramInvokeFactoryImpl;
@@ -56,6 +57,7 @@ public class BlockChainLoader {
     private final BlockStore blockStore;
     private final Repository repository;
     private final ReceiptStore receiptStore;
+    private final TransactionIndex transactionIndex;
     private final TransactionPool transactionPool;
     private final EthereumListener listener;
     private final BlockValidator blockValidator;
@@ -66,6 +68,7 @@ public class BlockChainLoader {
             org.ethereum.core.Repository repository,
             org.ethereum.db.BlockStore blockStore,
             ReceiptStore receiptStore,
+            TransactionIndex transactionIndex,
             TransactionPool transactionPool,
             EthereumListener listener,
             BlockValidator blockValidator) {
@@ -74,6 +77,7 @@ public class BlockChainLoader {
         this.blockStore = blockStore;
         this.repository = repository;
         this.receiptStore = receiptStore;
+        this.transactionIndex = transactionIndex;
         this.transactionPool = transactionPool;
         this.listener = listener;
         this.blockValidator = blockValidator;
@@ -85,6 +89,7 @@ public class BlockChainLoader {
                 repository,
                 blockStore,
                 receiptStore,
+                transactionIndex,
                 transactionPool,
                 listener,
                 blockValidator,
@@ -110,7 +115,10 @@ public class BlockChainLoader {
                             config.databaseDir(),
                             config.vmTraceDir(),
                             config.vmTraceCompressed()
-                        )
+                        ),
+                        config.intermediateStateRoots(),
+                        // the VM traces are written by sequential executions
+                        config.vmTrace() ? 1 : config.blockExecutionThreads()
                 )
         );
 
@@ -41,6 +41,7 @@ import org.bouncycastle.asn1.sec.SECNamedCurves;
 import org.bouncycastle.asn1.x9.X9ECParameters;
 import org.bouncycastle.asn1.x9.X9IntegerConverter;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
 import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.crypto.engines.AESEngine;
 import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
@@ -103,6 +104,10 @@ public class ECKey implements Serializable {
     public static final BigInteger HALF_CURVE_ORDER;
 
     private static final SecureRandom secureRandom;
+
+    // The same curve, with specific field arithmetic and the GLV endomorphism, used to recover public keys faster
+    private static final X9ECParameters RECOVERY_CURVE = CustomNamedCurves.getByName("secp256k1");
+
     private static final long serialVersionUID = -728224901792295832L;
 
     static {
@@ -790,7 +795,8 @@ public class ECKey implements Serializable {
         // So it's encoded in the recId.
         ECPoint r = decompressKey(x, (recId & 1) == 1);
         //   1.4. If nR != point at infinity, then do another iteration of Step 1 (callers responsibility).
-        if (!r.multiply(n).isInfinity()) {
+        //   The secp256k1 cofactor is one, so every point of the curve has order n, and the check is skipped.
+        if (CURVE.getH().compareTo(BigInteger.ONE) > 0 && !r.multiply(n).isInfinity()) {
             return null;
         }
         //   1.5. Compute e from M using Steps 2 and 3 of ECDSA signature verification.
@@ -810,13 +816,13 @@ public class ECKey implements Serializable {
         BigInteger rInv = sig.r.modInverse(n);
         BigInteger srInv = rInv.multiply(sig.s).mod(n);
         BigInteger eInvrInv = rInv.multiply(eInv).mod(n);
-        ECPoint.Fp q = (ECPoint.Fp) ECAlgorithms.sumOfTwoMultiplies(CURVE.getG(), eInvrInv, r, srInv);
+        ECPoint q = ECAlgorithms.sumOfTwoMultiplies(RECOVERY_CURVE.getG(), eInvrInv, r, srInv);
         return ECKey.fromPublicOnly(q.getEncoded(compressed));
     }
 
 
     /**
-     * Decompress a compressed public key (x co-ord and low-bit of y-coord).
+     * Decompress a compressed public key (x co-ord and low-bit of y-coord) into a point of the recovery curve.
      *
      * @param xBN -
      * @param yBit -
@@ -824,9 +830,9 @@ public class ECKey implements Serializable {
      */
     private static ECPoint decompressKey(BigInteger xBN, boolean yBit) {
         X9IntegerConverter x9 = new X9IntegerConverter();
-        byte[] compEnc = x9.integerToBytes(xBN, 1 + x9.getByteLength(CURVE.getCurve()));
+        byte[] compEnc = x9.integerToBytes(xBN, 1 + x9.getByteLength(RECOVERY_CURVE.getCurve()));
         compEnc[0] = (byte) (yBit ? 0x03 : 0x02);
-        return CURVE.getCurve().decodePoint(compEnc);
+        return RECOVERY_CURVE.getCurve().decodePoint(compEnc);
     }
 
     /**
@@ -38,11 +38,13 @@ import static org.ethereum.util.ByteUtil.EMPTY_BYTE_ARRAY;
 public class HashUtil {
     public static final byte[] EMPTY_TRIE_HASH = keccak256(RLP.encodeElement(EMPTY_BYTE_ARRAY));
 
-    private static final MessageDigest sha256digest;
+    // digests reused by each thread, instead of being created or locked by each call
+    private static final ThreadLocal<MessageDigest> sha256digest = ThreadLocal.withInitial(HashUtil::newSha256Digest);
+    private static final ThreadLocal<RIPEMD160Digest> ripemd160digest = ThreadLocal.withInitial(RIPEMD160Digest::new);
 
-    static {
+    private static MessageDigest newSha256Digest() {
         try {
-            sha256digest = MessageDigest.getInstance("SHA-256");
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);  // Can't happen.
         }
@@ -53,7 +55,7 @@ public class HashUtil {
      * @return - sha256 hash of the data
      */
     public static byte[] sha256(byte[] input) {
-        return sha256digest.digest(input);
+        return sha256digest.get().digest(input);
     }
 
     public static byte[] keccak256(byte[] input) {
@@ -79,7 +81,7 @@ public class HashUtil {
      * @return - reipmd160 hash of the message
      */
     public static byte[] ripemd160(byte[] data) {
-        Digest digest = new RIPEMD160Digest();
+        Digest digest = ripemd160digest.get();
         if (data != null) {
             byte[] resBuf = new byte[digest.getDigestSize()];
             digest.update(data, 0, data.length);
@@ -136,12 +138,11 @@ public class HashUtil {
      * @return -
      */
     public static byte[] doubleDigest(byte[] input, int offset, int length) {
-        synchronized (sha256digest) {
-            sha256digest.reset();
-            sha256digest.update(input, offset, length);
-            byte[] first = sha256digest.digest();
-            return sha256digest.digest(first);
-        }
+        MessageDigest digest = sha256digest.get();
+        digest.reset();
+        digest.update(input, offset, length);
+        byte[] first = digest.digest();
+        return digest.digest(first);
     }
 
     /**
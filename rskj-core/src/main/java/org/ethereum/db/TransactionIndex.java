@@ -0,0 +1,96 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.db;
+
+import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
+import org.ethereum.datasource.KeyValueDataSource;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index from transaction hash to its location in the main chain.
+ *
+ * It is updated when a block is connected as the new best block,
+ * removing the transactions of the blocks that leave the main chain in a rebranch.
+ */
+public class TransactionIndex {
+    private final KeyValueDataSource dataSource;
+
+    public TransactionIndex(KeyValueDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public TransactionLocation get(byte[] transactionHash) {
+        byte[] data = this.dataSource.get(transactionHash);
+
+        if (data == null) {
+            return null;
+        }
+
+        return TransactionLocation.fromEncoded(data);
+    }
+
+    public void addBlock(Block block) {
+        List<Transaction> txs = block.getTransactionsList();
+
+        if (txs.isEmpty()) {
+            return;
+        }
+
+        byte[] blockHash = block.getHash().getBytes();
+        Map<byte[], byte[]> rows = new HashMap<>();
+
+        for (int k = 0; k < txs.size(); k++) {
+            TransactionLocation location = new TransactionLocation(block.getNumber(), blockHash, k);
+            rows.put(txs.get(k).getHash().getBytes(), location.getEncoded());
+        }
+
+        this.dataSource.updateBatch(rows);
+    }
+
+    public void removeBlock(Block block) {
+        byte[] blockHash = block.getHash().getBytes();
+
+        for (Transaction tx : block.getTransactionsList()) {
+            byte[] txHash = tx.getHash().getBytes();
+            TransactionLocation location = this.get(txHash);
+
+            if (location != null && Arrays.equals(blockHash, location.getBlockHash())) {
+                this.dataSource.delete(txHash);
+            }
+        }
+    }
+
+    /**
+     * Updates the index after a rebranch: the old blocks leave the main chain, the new ones enter it
+     */
+    public void reBranch(List<Block> oldBlocks, List<Block> newBlocks) {
+        for (Block block : oldBlocks) {
+            this.removeBlock(block);
+        }
+
+        for (Block block : newBlocks) {
+            this.addBlock(block);
+        }
+    }
+}
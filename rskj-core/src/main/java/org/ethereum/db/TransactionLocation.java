@@ -0,0 +1,63 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.db;
+
+import org.ethereum.util.ByteUtil;
+import org.ethereum.util.RLP;
+import org.ethereum.util.RLPList;
+
+/**
+ * Location of a transaction in the blockchain: block number, block hash and index in the block
+ */
+public class TransactionLocation {
+    private final long blockNumber;
+    private final byte[] blockHash;
+    private final int index;
+
+    public TransactionLocation(long blockNumber, byte[] blockHash, int index) {
+        this.blockNumber = blockNumber;
+        this.blockHash = blockHash;
+        this.index = index;
+    }
+
+    public long getBlockNumber() { return this.blockNumber; }
+
+    public byte[] getBlockHash() { return this.blockHash; }
+
+    public int getIndex() { return this.index; }
+
+    /* [blockNumber, blockHash, index] */
+    public byte[] getEncoded() {
+        byte[] rlpNumber = RLP.encodeElement(ByteUtil.longToBytesNoLeadZeroes(this.blockNumber));
+        byte[] rlpHash = RLP.encodeElement(this.blockHash);
+        byte[] rlpIndex = RLP.encodeInt(this.index);
+
+        return RLP.encodeList(rlpNumber, rlpHash, rlpIndex);
+    }
+
+    public static TransactionLocation fromEncoded(byte[] data) {
+        RLPList list = RLP.decodeList(data);
+
+        long number = ByteUtil.byteArrayToLong(list.get(0).getRLPData());
+        byte[] hash = list.get(1).getRLPData();
+        int index = (int) ByteUtil.byteArrayToLong(list.get(2).getRLPData());
+
+        return new TransactionLocation(number, hash, index);
+    }
+}
@@ -20,6 +20,7 @@
 package org.ethereum.rpc;
 
 import co.rsk.core.Address;
+import co.rsk.logfilter.BloomBits;
 import org.ethereum.core.Bloom;
 import org.ethereum.crypto.Keccak256Helper;
 import org.ethereum.vm.DataWord;
@@ -107,6 +108,32 @@ public class AddressesTopicsFilter {
         return true;
     }
 
+    /**
+     * Returns the bitmap of the candidate blocks in the range of the bloom bits,
+     * the ones whose logs bloom matches the filter
+     */
+    public long[] matchBloomBits(BloomBits bloomBits) {
+        long[] result = bloomBits.allBlocks();
+
+        for (Bloom[] andBloom : filterBlooms) {
+            long[] orResult = new long[result.length];
+
+            for (Bloom orBloom : andBloom) {
+                long[] matched = orBloom == null ? bloomBits.allBlocks() : bloomBits.matches(orBloom);
+
+                for (int k = 0; k < orResult.length; k++) {
+                    orResult[k] |= matched[k];
+                }
+            }
+
+            for (int k = 0; k < result.length; k++) {
+                result[k] &= orResult[k];
+            }
+        }
+
+        return result;
+    }
+
     boolean matchesContractAddress(Address toAddr) {
         for (Address address : addresses) {
             if (address.equals(toAddr)) {
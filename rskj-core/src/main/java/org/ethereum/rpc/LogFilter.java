@@ -20,6 +20,9 @@ package org.ethereum.rpc;
 
 import co.rsk.core.Address;
 import co.rsk.core.bc.Blockchain;
+import co.rsk.logfilter.BlocksBloom;
+import co.rsk.logfilter.BlocksBloomStore;
+import co.rsk.logfilter.BloomBits;
 import org.ethereum.core.*;
 import org.ethereum.db.TransactionInfo;
 import org.ethereum.vm.LogInfo;
@@ -103,7 +106,7 @@ public class LogFilter extends Filter {
         //empty method
     }
 
-    public static LogFilter fromFilterRequest(Web3.FilterRequest fr, Blockchain blockchain) throws Exception {
+    public static LogFilter fromFilterRequest(Web3.FilterRequest fr, Blockchain blockchain, BlocksBloomStore blocksBloomStore) throws Exception {
         Address[] addresses;
 
         // Now, there is an array of array of topics
@@ -176,12 +179,12 @@ public class LogFilter extends Filter {
 
         LogFilter filter = new LogFilter(addressesTopicsFilter, blockchain, fromLatestBlock, toLatestBlock);
 
-        retrieveHistoricalData(fr, blockchain, filter);
+        retrieveHistoricalData(fr, blockchain, filter, blocksBloomStore);
 
         return filter;
     }
 
-    private static void retrieveHistoricalData(Web3.FilterRequest fr, Blockchain blockchain, LogFilter filter) throws Exception {
+    private static void retrieveHistoricalData(Web3.FilterRequest fr, Blockchain blockchain, LogFilter filter, BlocksBloomStore blocksBloomStore) throws Exception {
         Block blockFrom = isBlockWord(fr.fromBlock) ? null : Web3Impl.getBlockByNumberOrStr(fr.fromBlock, blockchain);
         Block blockTo = isBlockWord(fr.toBlock) ? null : Web3Impl.getBlockByNumberOrStr(fr.toBlock, blockchain);
 
@@ -193,15 +196,44 @@ public class LogFilter extends Filter {
             // need to add historical data
             blockTo = blockTo == null ? blockchain.getBestBlock() : blockTo;
 
-            for (long blockNum = blockFrom.getNumber(); blockNum <= blockTo.getNumber(); blockNum++) {
-                filter.onBlock(blockchain.getBlockByNumber(blockNum));
-            }
+            processBlocks(blockFrom.getNumber(), blockTo.getNumber(), filter, blockchain, blocksBloomStore);
         }
         else if ("latest".equalsIgnoreCase(fr.fromBlock)) {
             filter.onBlock(blockchain.getBestBlock());
         }
     }
 
+    private static void processBlocks(long fromBlockNumber, long toBlockNumber, LogFilter filter, Blockchain blockchain, BlocksBloomStore blocksBloomStore) {
+        long blockNumber = fromBlockNumber;
+
+        while (blockNumber <= toBlockNumber) {
+            BlocksBloom blocksBloom = blocksBloomStore == null ? null : blocksBloomStore.getBlocksBloomByNumber(blockNumber);
+
+            // the whole indexed section can be skipped if its aggregated bloom does not match
+            if (blocksBloom != null && !filter.addressesTopicsFilter.matchBloom(blocksBloom.getBloom())) {
+                blockNumber = blocksBloom.toBlock() + 1;
+                continue;
+            }
+
+            // with the rotated bloom bits, only the candidate blocks of the section are retrieved
+            if (blocksBloom != null && blocksBloom.getBloomBits() != null) {
+                BloomBits bloomBits = blocksBloom.getBloomBits();
+
+                for (long candidate : bloomBits.toBlockNumbers(filter.addressesTopicsFilter.matchBloomBits(bloomBits))) {
+                    if (candidate >= blockNumber && candidate <= toBlockNumber) {
+                        filter.onBlock(blockchain.getBlockByNumber(candidate));
+                    }
+                }
+
+                blockNumber = blocksBloom.toBlock() + 1;
+                continue;
+            }
+
+            filter.onBlock(blockchain.getBlockByNumber(blockNumber));
+            blockNumber++;
+        }
+    }
+
     private static boolean isBlockWord(String id) {
         return "latest".equalsIgnoreCase(id) || "pending".equalsIgnoreCase(id) || "earliest".equalsIgnoreCase(id);
     }
@@ -24,6 +24,7 @@ import co.rsk.core.Address;
 import co.rsk.core.bc.AccountInformationProvider;
 import co.rsk.core.bc.Blockchain;
 import co.rsk.crypto.Keccak256;
+import co.rsk.logfilter.BlocksBloomStore;
 import co.rsk.metrics.HashRateCalculator;
 import co.rsk.mine.MinerClient;
 import co.rsk.mine.MinerServer;
@@ -45,6 +46,7 @@ import org.ethereum.db.BlockInformation;
 import org.ethereum.db.BlockStore;
 import org.ethereum.db.ReceiptStore;
 import org.ethereum.db.TransactionInfo;
+import org.ethereum.db.TransactionLocation;
 import org.ethereum.facade.Ethereum;
 import org.ethereum.net.client.Capability;
 import org.ethereum.net.client.ConfigCapabilities;
@@ -87,6 +89,7 @@ public class Web3Impl implements Web3 {
 
     private final Blockchain blockchain;
     private final ReceiptStore receiptStore;
+    private final BlocksBloomStore blocksBloomStore;
     private final BlockProcessor nodeBlockProcessor;
     private final HashRateCalculator hashRateCalculator;
     private final ConfigCapabilities configCapabilities;
@@ -110,6 +113,7 @@ public class Web3Impl implements Web3 {
             TransactionPool transactionPool,
             BlockStore blockStore,
             ReceiptStore receiptStore,
+            BlocksBloomStore blocksBloomStore,
             RskSystemProperties config,
             MinerClient minerClient,
             MinerServer minerServer,
@@ -131,6 +135,7 @@ public class Web3Impl implements Web3 {
         this.blockchain = blockchain;
         this.blockStore = blockStore;
         this.receiptStore = receiptStore;
+        this.blocksBloomStore = blocksBloomStore;
         this.evmModule = evmModule;
         this.repository = repository;
         this.transactionPool = transactionPool;
@@ -666,6 +671,18 @@ public class Web3Impl implements Web3 {
             Keccak256 txHash = new Keccak256(stringHexToByteArray(transactionHash));
             Block block = null;
 
+            // indexed transactions are in the main chain, only its block body has to be read
+            TransactionLocation location = blockchain.getTransactionLocation(txHash.getBytes());
+
+            if (location != null) {
+                block = blockchain.getBlockByHash(location.getBlockHash());
+
+                if (block != null) {
+                    Transaction tx = block.getTransactionsList().get(location.getIndex());
+                    return s = new TransactionResultDTO(block, location.getIndex(), tx);
+                }
+            }
+
             TransactionInfo txInfo = this.receiptStore.getInMainChain(txHash.getBytes(), blockStore);
 
             if (txInfo == null) {
@@ -831,7 +848,7 @@ public class Web3Impl implements Web3 {
         String str = null;
 
         try {
-            Filter filter = LogFilter.fromFilterRequest(fr, blockchain);
+            Filter filter = LogFilter.fromFilterRequest(fr, blockchain, blocksBloomStore);
             int id = filterManager.registerFilter(filter);
 
             return str = toJsonHex(id);
@@ -370,96 +370,100 @@ public final class DataWord implements Comparable<DataWord> {
         this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
     }
 
-    // TODO: mul can be done in more efficient way
-    // TODO:     with shift left shift right trick
-    // TODO      without BigInteger quick hack
     public void mul(DataWord word) {
-        BigInteger result = value().multiply(word.value());
-        this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+        Uint256.mul(this.data, word.data, this.data);
     }
 
-    // TODO: improve with no BigInteger
     public void div(DataWord word) {
-
-        if (word.isZero()) {
-            this.and(ZERO);
+        if (bothSmall(word)) {
+            divideSmall(word, false);
             return;
         }
 
-        BigInteger result = value().divide(word.value());
-        this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+        long[] result = limbs();
+        Uint256.div(result, word.limbs(), result);
+        Uint256.toBytes(result, this.data);
     }
 
-    // TODO: improve with no BigInteger
     public void sDiv(DataWord word) {
-
-        if (word.isZero()) {
-            this.and(ZERO);
+        // non negative operands, as unsigned
+        if (bothSmall(word)) {
+            divideSmall(word, false);
             return;
         }
 
-        BigInteger result = sValue().divide(word.sValue());
-        this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+        long[] result = limbs();
+        Uint256.sdiv(result, word.limbs(), result);
+        Uint256.toBytes(result, this.data);
     }
 
-
-    // TODO: improve with no BigInteger
     public void sub(DataWord word) {
-        BigInteger result = value().subtract(word.value());
-        this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+        Uint256.sub(this.data, word.data, this.data);
     }
 
-    // TODO: improve with no BigInteger
     public void exp(DataWord word) {
-        BigInteger result = value().modPow(word.value(), _2_256);
-        this.data = ByteUtil.copyToArray(result);
+        long[] result = limbs();
+        Uint256.exp(result, word.limbs(), result);
+        Uint256.toBytes(result, this.data);
     }
 
-    // TODO: improve with no BigInteger
     public void mod(DataWord word) {
-
-        if (word.isZero()) {
-            this.and(ZERO);
+        if (bothSmall(word)) {
+            divideSmall(word, true);
             return;
         }
 
-        BigInteger result = value().mod(word.value());
-        this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+        long[] result = limbs();
+        Uint256.mod(result, word.limbs(), result);
+        Uint256.toBytes(result, this.data);
     }
 
     public void sMod(DataWord word) {
-
-        if (word.isZero()) {
-            this.and(ZERO);
+        // non negative operands, as unsigned
+        if (bothSmall(word)) {
+            divideSmall(word, true);
             return;
         }
 
-        BigInteger result = sValue().abs().mod(word.sValue().abs());
-        result = (sValue().signum() == -1) ? result.negate() : result;
-
-        this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+        long[] result = limbs();
+        Uint256.smod(result, word.limbs(), result);
+        Uint256.toBytes(result, this.data);
     }
 
     public void addmod(DataWord word1, DataWord word2) {
-        if (word1.data[0] != 0 || data[0] != 0) {
-            // overflow possible: slower path
-            this.mod(word2);
-            word1 = word1.clone();
-            word1.mod(word2);
-        }
-        this.add(word1);
-        this.mod(word2);
+        long[] result = limbs();
+        Uint256.addmod(result, word1.limbs(), word2.limbs(), result);
+        Uint256.toBytes(result, this.data);
     }
 
     public void mulmod(DataWord word1, DataWord word2) {
+        long[] result = limbs();
+        Uint256.mulmod(result, word1.limbs(), word2.limbs(), result);
+        Uint256.toBytes(result, this.data);
+    }
 
-        if (word2.isZero()) {
-            this.data = new byte[32];
-            return;
+    private boolean bothSmall(DataWord word) {
+        return Uint256.isSmall(this.data) && Uint256.isSmall(word.data);
+    }
+
+    /**
+     * Divides operands less than 2^63, so the signed and unsigned results agree
+     */
+    private void divideSmall(DataWord word, boolean remainder) {
+        long dividend = Uint256.getLimb(this.data, 0);
+        long divisor = Uint256.getLimb(word.data, 0);
+
+        if (divisor == 0) {
+            zero();
+        } else {
+            assign(remainder ? dividend % divisor : dividend / divisor);
         }
+    }
 
-        BigInteger result = value().multiply(word1.value()).mod(word2.value());
-        this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    private long[] limbs() {
+        long[] result = new long[Uint256.LIMBS];
+        Uint256.fromBytes(this.data, result);
+        return result;
     }
 
     @JsonValue
@@ -534,11 +538,24 @@ public final class DataWord implements Comparable<DataWord> {
         }
     }
 
+    /**
+     * Compares both words as two's complement signed values
+     */
+    public int sCompareTo(DataWord o) {
+        boolean negative = this.isNegative();
+
+        if (negative != o.isNegative()) {
+            return negative ? -1 : 1;
+        }
+
+        return compareTo(o);
+    }
+
     public void signExtend(byte k) {
         if (0 > k || k > 31) {
             throw new IndexOutOfBoundsException();
         }
-        byte mask = this.sValue().testBit((k * 8) + 7) ? (byte) 0xff : 0;
+        byte mask = (this.data[31 - k] & 0x80) != 0 ? (byte) 0xff : 0;
         for (int i = 31; i > k; i--) {
             this.data[31 - i] = mask;
         }
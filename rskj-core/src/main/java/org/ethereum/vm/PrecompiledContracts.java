@@ -22,6 +22,7 @@ package org.ethereum.vm;
 import co.rsk.config.RskSystemProperties;
 import co.rsk.core.Address;
 import co.rsk.peg.SamplePrecompiledContract;
+import co.rsk.vm.PrecompiledResultCache;
 import org.ethereum.config.BlockchainConfig;
 import org.ethereum.core.Block;
 import org.ethereum.core.Repository;
@@ -63,6 +64,9 @@ public class PrecompiledContracts {
     public static final DataWord BIG_INT_MODEXP_ADDR_DW = new DataWord(BIG_INT_MODEXP_ADDR);
     public static final DataWord SHA256_ADDR_DW = new DataWord(SHA256_ADDR);
 
+    // results kept by each precompiled contract whose computation is worth caching
+    private static final int RESULT_CACHE_SIZE = 1000;
+
     private static ECRecover ecRecover = new ECRecover();
     private static Sha256 sha256 = new Sha256();
     private static Ripempd160 ripempd160 = new Ripempd160();
@@ -194,6 +198,7 @@ public class PrecompiledContracts {
 
 
     public static class ECRecover extends PrecompiledContract {
+        private final PrecompiledResultCache cache = new PrecompiledResultCache(RESULT_CACHE_SIZE);
 
         @Override
         public long getGasForData(byte[] data) {
@@ -202,6 +207,10 @@ public class PrecompiledContracts {
 
         @Override
         public byte[] execute(byte[] data) {
+            return cache.getResult(data, this::recover);
+        }
+
+        private byte[] recover(byte[] data) {
 
             byte[] h = new byte[32];
             byte[] v = new byte[32];
@@ -264,6 +273,8 @@ public class PrecompiledContracts {
 
         private static final int ARGS_OFFSET = 32 * 3; // addresses length part
 
+        private final PrecompiledResultCache cache = new PrecompiledResultCache(RESULT_CACHE_SIZE);
+
         @Override
         public long getGasForData(byte[] data) {
             byte[] safeData = data==null?EMPTY_BYTE_ARRAY:data;
@@ -296,6 +307,10 @@ public class PrecompiledContracts {
 
         @Override
         public byte[] execute(byte[] data) {
+            return cache.getResult(data, this::modexp);
+        }
+
+        private byte[] modexp(byte[] data) {
 
             if (data == null) {
                 return EMPTY_BYTE_ARRAY;
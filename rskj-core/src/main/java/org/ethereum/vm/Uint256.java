@@ -0,0 +1,594 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.vm;
+
+/**
+ * 256-bit arithmetic over four 64-bit limbs, least significant limb first.
+ *
+ * All operations are modulo 2^256, as the EVM arithmetic opcodes. The result array
+ * can be the same as any of the operands. Signed operations use two's complement.
+ */
+public final class Uint256 {
+    public static final int LIMBS = 4;
+
+    private static final long INT_MASK = 0xffffffffL;
+
+    private Uint256() {
+    }
+
+    public static void fromBytes(byte[] data, long[] result) {
+        for (int k = 0; k < LIMBS; k++) {
+            result[k] = getLimb(data, k);
+        }
+    }
+
+    public static void toBytes(long[] value, byte[] data) {
+        for (int k = 0; k < LIMBS; k++) {
+            setLimb(data, k, value[k]);
+        }
+    }
+
+    /**
+     * Returns the k-th limb, least significant first, of a 32 bytes big endian value
+     */
+    public static long getLimb(byte[] data, int k) {
+        int offset = 24 - k * 8;
+        long limb = 0;
+
+        for (int j = 0; j < 8; j++) {
+            limb = (limb << 8) | (data[offset + j] & 0xff);
+        }
+
+        return limb;
+    }
+
+    public static void setLimb(byte[] data, int k, long limb) {
+        int offset = 24 - k * 8;
+
+        for (int j = 7; j >= 0; j--) {
+            data[offset + j] = (byte) limb;
+            limb >>>= 8;
+        }
+    }
+
+    /**
+     * Returns true if the 32 bytes big endian value is less than 2^63
+     */
+    public static boolean isSmall(byte[] data) {
+        for (int k = 0; k < 24; k++) {
+            if (data[k] != 0) {
+                return false;
+            }
+        }
+
+        return data[24] >= 0;
+    }
+
+    public static boolean isZero(long[] a) {
+        return (a[0] | a[1] | a[2] | a[3]) == 0;
+    }
+
+    public static boolean isNegative(long[] a) {
+        return a[3] < 0;
+    }
+
+    public static int compare(long[] a, long[] b) {
+        for (int k = LIMBS - 1; k >= 0; k--) {
+            if (a[k] != b[k]) {
+                return Long.compareUnsigned(a[k], b[k]) < 0 ? -1 : 1;
+            }
+        }
+
+        return 0;
+    }
+
+    public static int compareSigned(long[] a, long[] b) {
+        if (a[3] < 0 != b[3] < 0) {
+            return a[3] < 0 ? -1 : 1;
+        }
+
+        return compare(a, b);
+    }
+
+    public static void add(long[] a, long[] b, long[] result) {
+        long carry = 0;
+
+        for (int k = 0; k < LIMBS; k++) {
+            long sum = a[k] + b[k];
+            long carry1 = Long.compareUnsigned(sum, a[k]) < 0 ? 1 : 0;
+            long total = sum + carry;
+            long carry2 = Long.compareUnsigned(total, sum) < 0 ? 1 : 0;
+            result[k] = total;
+            carry = carry1 | carry2;
+        }
+    }
+
+    public static void sub(long[] a, long[] b, long[] result) {
+        long borrow = 0;
+
+        for (int k = 0; k < LIMBS; k++) {
+            long ak = a[k];
+            long diff = ak - b[k];
+            long borrow1 = Long.compareUnsigned(ak, b[k]) < 0 ? 1 : 0;
+            long total = diff - borrow;
+            long borrow2 = Long.compareUnsigned(diff, borrow) < 0 ? 1 : 0;
+            result[k] = total;
+            borrow = borrow1 | borrow2;
+        }
+    }
+
+    public static void sub(byte[] a, byte[] b, byte[] result) {
+        long borrow = 0;
+
+        for (int k = 0; k < LIMBS; k++) {
+            long ak = getLimb(a, k);
+            long bk = getLimb(b, k);
+            long diff = ak - bk;
+            long borrow1 = Long.compareUnsigned(ak, bk) < 0 ? 1 : 0;
+            long borrow2 = Long.compareUnsigned(diff, borrow) < 0 ? 1 : 0;
+            setLimb(result, k, diff - borrow);
+            borrow = borrow1 | borrow2;
+        }
+    }
+
+    public static void negate(long[] a, long[] result) {
+        long carry = 1;
+
+        for (int k = 0; k < LIMBS; k++) {
+            long value = ~a[k] + carry;
+            carry = carry == 1 && value == 0 ? 1 : 0;
+            result[k] = value;
+        }
+    }
+
+    public static void mul(long[] a, long[] b, long[] result) {
+        mul(a[0], a[1], a[2], a[3], b[0], b[1], b[2], b[3], result, null);
+    }
+
+    public static void mul(byte[] a, byte[] b, byte[] result) {
+        mul(getLimb(a, 0), getLimb(a, 1), getLimb(a, 2), getLimb(a, 3),
+                getLimb(b, 0), getLimb(b, 1), getLimb(b, 2), getLimb(b, 3), null, result);
+    }
+
+    public static void div(long[] a, long[] b, long[] result) {
+        divMod(a, b, result, null);
+    }
+
+    public static void mod(long[] a, long[] b, long[] result) {
+        divMod(a, b, null, result);
+    }
+
+    public static void sdiv(long[] a, long[] b, long[] result) {
+        boolean negative = isNegative(a) != isNegative(b);
+        long[] absa = abs(a);
+        long[] absb = abs(b);
+
+        divMod(absa, absb, result, null);
+
+        if (negative) {
+            negate(result, result);
+        }
+    }
+
+    public static void smod(long[] a, long[] b, long[] result) {
+        boolean negative = isNegative(a);
+        long[] absa = abs(a);
+        long[] absb = abs(b);
+
+        divMod(absa, absb, null, result);
+
+        if (negative) {
+            negate(result, result);
+        }
+    }
+
+    public static void exp(long[] a, long[] b, long[] result) {
+        long[] base = a.clone();
+        long[] value = { 1, 0, 0, 0 };
+        int bits = bitLength(b);
+
+        for (int k = 0; k < bits; k++) {
+            if ((b[k >>> 6] & (1L << (k & 63))) != 0) {
+                mul(value, base, value);
+            }
+
+            if (k + 1 < bits) {
+                mul(base, base, base);
+            }
+        }
+
+        System.arraycopy(value, 0, result, 0, LIMBS);
+    }
+
+    /**
+     * Keeps the result of the original implementation, which is consensus: if an operand is not less
+     * than 2^248, both are reduced first, and their sum wraps around 2^256 before the last reduction
+     */
+    public static void addmod(long[] a, long[] b, long[] m, long[] result) {
+        if (isZero(m)) {
+            clear(result);
+            return;
+        }
+
+        long[] x = a;
+        long[] y = b;
+
+        if ((a[LIMBS - 1] >>> 56) != 0 || (b[LIMBS - 1] >>> 56) != 0) {
+            x = new long[LIMBS];
+            y = new long[LIMBS];
+            mod(a, m, x);
+            mod(b, m, y);
+        }
+
+        add(x, y, result);
+        mod(result, m, result);
+    }
+
+    public static void mulmod(long[] a, long[] b, long[] m, long[] result) {
+        if (isZero(m)) {
+            clear(result);
+            return;
+        }
+
+        int[] product = new int[4 * LIMBS];
+
+        for (int i = 0; i < 2 * LIMBS; i++) {
+            long ai = digit(a, i);
+
+            if (ai == 0) {
+                continue;
+            }
+
+            long carry = 0;
+
+            for (int j = 0; j < 2 * LIMBS; j++) {
+                long value = ai * digit(b, j) + (product[i + j] & INT_MASK) + carry;
+                product[i + j] = (int) value;
+                carry = value >>> 32;
+            }
+
+            product[i + 2 * LIMBS] = (int) carry;
+        }
+
+        remainder(product, m, result);
+    }
+
+    /**
+     * Schoolbook product of the limbs, keeping the low 256 bits, stored in the limbs or in the bytes result
+     */
+    private static void mul(long a0, long a1, long a2, long a3, long b0, long b1, long b2, long b3, long[] limbs, byte[] bytes) {
+        long lo;
+        long hi;
+        long sum;
+
+        // a0 * b
+        long r0 = a0 * b0;
+        hi = multiplyHighUnsigned(a0, b0);
+
+        lo = a0 * b1;
+        long r1 = lo + hi;
+        hi = multiplyHighUnsigned(a0, b1) + carry(r1, lo);
+
+        lo = a0 * b2;
+        long r2 = lo + hi;
+        hi = multiplyHighUnsigned(a0, b2) + carry(r2, lo);
+
+        long r3 = a0 * b3 + hi;
+
+        // a1 * b, shifted one limb
+        lo = a1 * b0;
+        hi = multiplyHighUnsigned(a1, b0);
+        sum = r1 + lo;
+        hi += carry(sum, lo);
+        r1 = sum;
+
+        lo = a1 * b1;
+        sum = lo + hi;
+        hi = multiplyHighUnsigned(a1, b1) + carry(sum, lo);
+        lo = sum;
+        sum = r2 + lo;
+        hi += carry(sum, lo);
+        r2 = sum;
+
+        r3 += a1 * b2 + hi;
+
+        // a2 * b, shifted two limbs
+        lo = a2 * b0;
+        hi = multiplyHighUnsigned(a2, b0);
+        sum = r2 + lo;
+        hi += carry(sum, lo);
+        r2 = sum;
+
+        r3 += a2 * b1 + hi;
+
+        // a3 * b, shifted three limbs
+        r3 += a3 * b0;
+
+        if (limbs != null) {
+            limbs[0] = r0;
+            limbs[1] = r1;
+            limbs[2] = r2;
+            limbs[3] = r3;
+        } else {
+            setLimb(bytes, 0, r0);
+            setLimb(bytes, 1, r1);
+            setLimb(bytes, 2, r2);
+            setLimb(bytes, 3, r3);
+        }
+    }
+
+    private static long carry(long sum, long addend) {
+        return Long.compareUnsigned(sum, addend) < 0 ? 1 : 0;
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of two longs
+     */
+    static long multiplyHighUnsigned(long x, long y) {
+        long x0 = x & INT_MASK;
+        long x1 = x >>> 32;
+        long y0 = y & INT_MASK;
+        long y1 = y >>> 32;
+
+        long w0 = x0 * y0;
+        long t = x1 * y0 + (w0 >>> 32);
+        long w1 = t & INT_MASK;
+        long w2 = t >>> 32;
+        w1 = x0 * y1 + w1;
+
+        return x1 * y1 + w2 + (w1 >>> 32);
+    }
+
+    static int bitLength(long[] a) {
+        for (int k = LIMBS - 1; k >= 0; k--) {
+            if (a[k] != 0) {
+                return k * 64 + 64 - Long.numberOfLeadingZeros(a[k]);
+            }
+        }
+
+        return 0;
+    }
+
+    private static long[] abs(long[] a) {
+        long[] result = new long[LIMBS];
+
+        if (isNegative(a)) {
+            negate(a, result);
+        } else {
+            System.arraycopy(a, 0, result, 0, LIMBS);
+        }
+
+        return result;
+    }
+
+    private static void clear(long[] a) {
+        a[0] = 0;
+        a[1] = 0;
+        a[2] = 0;
+        a[3] = 0;
+    }
+
+    private static long digit(long[] a, int k) {
+        long limb = a[k >>> 1];
+        return (k & 1) == 0 ? limb & INT_MASK : limb >>> 32;
+    }
+
+    private static void divMod(long[] a, long[] b, long[] quotient, long[] remainder) {
+        if (isZero(b)) {
+            if (quotient != null) {
+                clear(quotient);
+            }
+
+            if (remainder != null) {
+                clear(remainder);
+            }
+
+            return;
+        }
+
+        // both values fit in a long
+        if ((a[1] | a[2] | a[3] | b[1] | b[2] | b[3]) == 0) {
+            long q = Long.divideUnsigned(a[0], b[0]);
+            long r = Long.remainderUnsigned(a[0], b[0]);
+
+            if (quotient != null) {
+                clear(quotient);
+                quotient[0] = q;
+            }
+
+            if (remainder != null) {
+                clear(remainder);
+                remainder[0] = r;
+            }
+
+            return;
+        }
+
+        if (compare(a, b) < 0) {
+            if (remainder != null) {
+                System.arraycopy(a, 0, remainder, 0, LIMBS);
+            }
+
+            if (quotient != null) {
+                clear(quotient);
+            }
+
+            return;
+        }
+
+        int[] u = toDigits(a);
+        int[] v = toDigits(b);
+        int[] q = new int[2 * LIMBS];
+        int[] r = new int[2 * LIMBS];
+
+        divideDigits(u, digitLength(u), v, digitLength(v), q, r);
+
+        if (quotient != null) {
+            fromDigits(q, quotient);
+        }
+
+        if (remainder != null) {
+            fromDigits(r, remainder);
+        }
+    }
+
+    private static void remainder(int[] u, long[] m, long[] result) {
+        int[] v = toDigits(m);
+        int n = digitLength(v);
+        int ulength = digitLength(u);
+
+        if (ulength < n) {
+            fromDigits(u, result);
+            return;
+        }
+
+        int[] q = new int[ulength - n + 1];
+        int[] r = new int[2 * LIMBS];
+
+        divideDigits(u, ulength, v, n, q, r);
+
+        fromDigits(r, result);
+    }
+
+    private static int[] toDigits(long[] a) {
+        int[] digits = new int[2 * LIMBS];
+
+        for (int k = 0; k < LIMBS; k++) {
+            digits[2 * k] = (int) a[k];
+            digits[2 * k + 1] = (int) (a[k] >>> 32);
+        }
+
+        return digits;
+    }
+
+    private static void fromDigits(int[] digits, long[] result) {
+        for (int k = 0; k < LIMBS; k++) {
+            long lo = 2 * k < digits.length ? digits[2 * k] & INT_MASK : 0;
+            long hi = 2 * k + 1 < digits.length ? digits[2 * k + 1] & INT_MASK : 0;
+            result[k] = (hi << 32) | lo;
+        }
+    }
+
+    private static int digitLength(int[] digits) {
+        int length = digits.length;
+
+        while (length > 0 && digits[length - 1] == 0) {
+            length--;
+        }
+
+        return length;
+    }
+
+    /**
+     * Knuth's algorithm D (see Hacker's Delight, divmnu) over 32-bit digits, least significant first.
+     * The divisor length n must be positive, with a non zero top digit, and m >= n.
+     */
+    private static void divideDigits(int[] u, int m, int[] v, int n, int[] q, int[] r) {
+        if (n == 1) {
+            long divisor = v[0] & INT_MASK;
+            long rem = 0;
+
+            for (int j = m - 1; j >= 0; j--) {
+                long current = (rem << 32) | (u[j] & INT_MASK);
+                q[j] = (int) Long.divideUnsigned(current, divisor);
+                rem = Long.remainderUnsigned(current, divisor);
+            }
+
+            r[0] = (int) rem;
+            return;
+        }
+
+        int s = Integer.numberOfLeadingZeros(v[n - 1]);
+        int[] vn = new int[n];
+        int[] un = new int[m + 1];
+
+        for (int i = n - 1; i > 0; i--) {
+            vn[i] = (v[i] << s) | (s == 0 ? 0 : v[i - 1] >>> (32 - s));
+        }
+
+        vn[0] = v[0] << s;
+
+        un[m] = s == 0 ? 0 : u[m - 1] >>> (32 - s);
+
+        for (int i = m - 1; i > 0; i--) {
+            un[i] = (u[i] << s) | (s == 0 ? 0 : u[i - 1] >>> (32 - s));
+        }
+
+        un[0] = u[0] << s;
+
+        long vtop = vn[n - 1] & INT_MASK;
+        long vnext = vn[n - 2] & INT_MASK;
+        long base = 1L << 32;
+
+        for (int j = m - n; j >= 0; j--) {
+            long numerator = ((un[j + n] & INT_MASK) << 32) | (un[j + n - 1] & INT_MASK);
+            long qhat = Long.divideUnsigned(numerator, vtop);
+            long rhat = Long.remainderUnsigned(numerator, vtop);
+
+            while (qhat >= base || Long.compareUnsigned(qhat * vnext, (rhat << 32) | (un[j + n - 2] & INT_MASK)) > 0) {
+                qhat--;
+                rhat += vtop;
+
+                if (rhat >= base) {
+                    break;
+                }
+            }
+
+            long borrow = 0;
+            long t;
+
+            for (int i = 0; i < n; i++) {
+                long p = qhat * (vn[i] & INT_MASK);
+                t = (un[i + j] & INT_MASK) - borrow - (p & INT_MASK);
+                un[i + j] = (int) t;
+                borrow = (p >>> 32) - (t >> 32);
+            }
+
+            t = (un[j + n] & INT_MASK) - borrow;
+            un[j + n] = (int) t;
+
+            q[j] = (int) qhat;
+
+            // qhat was one too large, add back
+            if (t < 0) {
+                q[j]--;
+
+                long carry = 0;
+
+                for (int i = 0; i < n; i++) {
+                    t = (un[i + j] & INT_MASK) + (vn[i] & INT_MASK) + carry;
+                    un[i + j] = (int) t;
+                    carry = t >>> 32;
+                }
+
+                un[j + n] += (int) carry;
+            }
+        }
+
+        for (int i = 0; i < n - 1; i++) {
+            r[i] = (un[i] >>> s) | (s == 0 ? 0 : un[i + 1] << (32 - s));
+        }
+
+        r[n - 1] = un[n - 1] >>> s;
+
+        for (int i = n; i < r.length; i++) {
+            r[i] = 0;
+        }
+    }
+}
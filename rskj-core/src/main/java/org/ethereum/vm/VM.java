@@ -21,6 +21,8 @@ package org.ethereum.vm;
 
 import co.rsk.config.VmConfig;
 import co.rsk.core.Address;
+import co.rsk.vm.CodeAnalysis;
+import co.rsk.vm.OpcodeProfiler;
 import org.ethereum.core.Repository;
 import org.ethereum.crypto.HashUtil;
 import org.ethereum.config.BlockchainConfig;
@@ -90,6 +92,11 @@ public class VM {
 
     private static VMHook vmHook;
 
+    private static final OpcodeProfiler profiler = new OpcodeProfiler();
+
+    // fetch the opcodes from the decoded code analysis, instead of decoding the program bytes
+    private static boolean useDecodedCode = true;
+
     private final VmConfig vmConfig;
     private final PrecompiledContracts precompiledContracts;
 
@@ -106,6 +113,14 @@ public class VM {
     private long gasBefore; // only for tracing
     private boolean isLogEnabled;
 
+    // the fixed gas of the current basic block was already spent
+    private boolean blockGasPrepaid;
+
+    private CodeAnalysis codeAnalysis;
+
+    // the opcodes recorder of the current thread, or null if the profiler is disabled
+    private OpcodeProfiler.Recorder recorder;
+
     public VM(VmConfig vmConfig, PrecompiledContracts precompiledContracts) {
         this.vmConfig = vmConfig;
         this.precompiledContracts = precompiledContracts;
@@ -188,7 +203,7 @@ public class VM {
     }
 
     protected void spendOpCodeGas() {
-        if (!computeGas) {
+        if (!computeGas || blockGasPrepaid) {
             return;
         }
         program.spendGas(gasCost, op.name());
@@ -396,7 +411,6 @@ public class VM {
     protected void doSLT() {
         spendOpCodeGas();
         // EXECUTION PHASE
-        // TODO: can be improved by not using BigInteger
         DataWord word1 = program.stackPop();
         DataWord word2 = program.stackPop();
 
@@ -404,7 +418,7 @@ public class VM {
             hint = word1.sValue() + " < " + word2.sValue();
         }
 
-        if (word1.sValue().compareTo(word2.sValue()) < 0) {
+        if (word1.sCompareTo(word2) < 0) {
             word1.setTrue();
         } else {
             word1.zero();
@@ -417,7 +431,6 @@ public class VM {
     protected void doSGT() {
         spendOpCodeGas();
         // EXECUTION PHASE
-        // TODO: can be improved by not using BigInteger
         DataWord word1 = program.stackPop();
         DataWord word2 = program.stackPop();
 
@@ -425,7 +438,7 @@ public class VM {
             hint = word1.sValue() + " > " + word2.sValue();
         }
 
-        if (word1.sValue().compareTo(word2.sValue()) > 0) {
+        if (word1.sCompareTo(word2) > 0) {
             word1.setTrue();
         } else {
             word1.zero();
@@ -439,7 +452,6 @@ public class VM {
     protected void doGT() {
         spendOpCodeGas();
         // EXECUTION PHASE
-        // TODO: can be improved by not using BigInteger
         DataWord word1 = program.stackPop();
         DataWord word2 = program.stackPop();
 
@@ -447,7 +459,7 @@ public class VM {
             hint = word1.value() + " > " + word2.value();
         }
 
-        if (word1.value().compareTo(word2.value()) > 0) {
+        if (word1.compareTo(word2) > 0) {
             word1.setTrue();
         } else {
             word1.zero();
@@ -1306,10 +1318,17 @@ public class VM {
     protected void doPUSH(){
         spendOpCodeGas();
         // EXECUTION PHASE
-        program.step();
         int nPush = op.val() - OpCode.PUSH1.val() + 1;
+        DataWord data;
 
-        DataWord data = program.sweepGetDataWord(nPush);
+        if (useDecodedCode) {
+            int pc = program.getPC();
+            data = program.newDataWord(codeAnalysis.getPushValue(pc));
+            program.setPC(pc + nPush + 1);
+        } else {
+            program.step();
+            data = program.sweepGetDataWord(nPush);
+        }
 
         if (isLogEnabled) {
             hint = "" + Hex.toHexString(data.getData());
@@ -1863,68 +1882,178 @@ public class VM {
     }
 
     public void steps(Program aprogram, long steps) {
+        steps(aprogram, steps, false);
+    }
+
+    /**
+     * Executes the program opcodes. The loop is selected once per program: when there is no logging,
+     * VM hook, VM trace or block dump, a loop without any tracing check is used.
+     * When chargeBlocks is true, and there is no tracing, the fixed gas of each basic block is spent
+     * at its start, if there is enough remaining gas for the whole block.
+     * It should be used only when the program runs until it stops, so no block is left half executed.
+     */
+    private void steps(Program aprogram, long steps, boolean chargeBlocks) {
         program = aprogram;
         stack = program.getStack();
 
+        codeAnalysis = program.getCodeAnalysis();
+        blockGasPrepaid = false;
+
+        recorder = profiler.isEnabled() ? profiler.getRecorder() : null;
+        long startTime = recorder != null ? System.nanoTime() : 0;
+        int startCounter = vmCounter;
+        long startGasUsed = program.getResult().getGasUsed();
+
         try {
+            if (isTracing()) {
+                tracingSteps(steps);
+            } else {
+                fastSteps(steps, chargeBlocks && computeGas);
+            }
+        } catch (RuntimeException e) {
+                logger.error("VM halted", e);
+                program.spendAllGas();
+                program.resetFutureRefund();
+                program.stop();
+                throw e;
+        } finally {
+            if (recorder != null) {
+                recorder.addExecution(codeAnalysis.getCodeHash(), (long) vmCounter - startCounter,
+                        program.getResult().getGasUsed() - startGasUsed, System.nanoTime() - startTime);
+            }
 
-            for(long s=0;s<steps;s++) {
-                if (program.isStopped()) {
-                    break;
-                }
+            if (isLogEnabled) // this must be prevented because it's slow!
+            {
+                program.fullTrace();
+            }
+        }
+    }
 
-                if (vmConfig.vmTrace()) {
-                    program.saveOpTrace();
-                }
+    private void executeProfiledOpcode() {
+        if (recorder.sample()) {
+            long start = System.nanoTime();
+            executeOpcode();
+            recorder.addSample(op, System.nanoTime() - start);
+        } else {
+            executeOpcode();
+        }
+
+        recorder.addOpcode(op, gasCost);
+    }
+
+    private boolean isTracing() {
+        return isLogEnabled || vmHook != null || vmConfig.vmTrace() || vmConfig.dumpBlock() >= 0;
+    }
+
+    private void fastSteps(long steps, boolean useBlockGas) {
+        boolean decoded = useDecodedCode;
+
+        for (long s = 0; s < steps; s++) {
+            if (program.isStopped()) {
+                break;
+            }
 
+            if (decoded) {
+                op = codeAnalysis.getInstruction(program.getPC());
+            } else {
                 op = OpCode.code(program.getCurrentOp());
+            }
 
-                checkOpcode();
-                program.setLastOp(op.val());
-                program.verifyStackSize(op.require());
-                program.verifyStackOverflow(op.require(), op.ret()); //Check not exceeding stack limits
+            checkOpcode();
+            program.setLastOp(op.val());
+            program.verifyStackSize(op.require());
+            program.verifyStackOverflow(op.require(), op.ret()); //Check not exceeding stack limits
 
-                //TODO: There is no need to compute oldMemSize for arithmetic opcodes.
-                //But this three initializations and memory computations could be done
-                //in opcodes requiring memory access only.
-                oldMemSize = program.getMemSize();
+            if (useBlockGas) {
+                spendBlockGas();
+            }
 
+            oldMemSize = program.getMemSize();
+            gasCost = op.getTier().asInt();
 
-                if (isLogEnabled) {
-                    hint = "";
-                }
+            if (recorder != null) {
+                executeProfiledOpcode();
+            } else {
+                executeOpcode();
+            }
 
-                gasCost = op.getTier().asInt();
+            program.setPreviouslyExecutedOp(op.val());
+            vmCounter++;
+        }
+    }
 
-                if (vmConfig.dumpBlock() >= 0) {
-                    gasBefore = program.getRemainingGas();
-                    memWords = 0; // parameters for logging
-                }
+    private void tracingSteps(long steps) {
+        boolean decoded = useDecodedCode;
 
-                // Log debugging line for VM
-                if (vmConfig.dumpBlock() >= 0 && program.getNumber().intValue() == vmConfig.dumpBlock()) {
-                    this.dumpLine(op, gasBefore, gasCost , memWords, program);
-                }
+        for(long s=0;s<steps;s++) {
+            if (program.isStopped()) {
+                break;
+            }
 
-                if (vmHook != null) {
-                    vmHook.step(program, op);
-                }
+            if (vmConfig.vmTrace()) {
+                program.saveOpTrace();
+            }
+
+            if (decoded) {
+                op = codeAnalysis.getInstruction(program.getPC());
+            } else {
+                op = OpCode.code(program.getCurrentOp());
+            }
+
+            checkOpcode();
+            program.setLastOp(op.val());
+            program.verifyStackSize(op.require());
+            program.verifyStackOverflow(op.require(), op.ret()); //Check not exceeding stack limits
+
+            //TODO: There is no need to compute oldMemSize for arithmetic opcodes.
+            //But this three initializations and memory computations could be done
+            //in opcodes requiring memory access only.
+            oldMemSize = program.getMemSize();
+
+
+            if (isLogEnabled) {
+                hint = "";
+            }
+
+            gasCost = op.getTier().asInt();
+
+            if (vmConfig.dumpBlock() >= 0) {
+                gasBefore = program.getRemainingGas();
+                memWords = 0; // parameters for logging
+            }
+
+            // Log debugging line for VM
+            if (vmConfig.dumpBlock() >= 0 && program.getNumber().intValue() == vmConfig.dumpBlock()) {
+                this.dumpLine(op, gasBefore, gasCost , memWords, program);
+            }
+
+            if (vmHook != null) {
+                vmHook.step(program, op);
+            }
+            if (recorder != null) {
+                executeProfiledOpcode();
+            } else {
                 executeOpcode();
-                program.setPreviouslyExecutedOp(op.val());
-                logOpCode();
-                vmCounter++;
-            } // for
-        } catch (RuntimeException e) {
-                logger.error("VM halted", e);
-                program.spendAllGas();
-                program.resetFutureRefund();
-                program.stop();
-                throw e;
-        } finally {
-            if (isLogEnabled) // this must be prevented because it's slow!
-            {
-                program.fullTrace();
             }
+
+            program.setPreviouslyExecutedOp(op.val());
+            logOpCode();
+            vmCounter++;
+        } // for
+    }
+
+    private void spendBlockGas() {
+        int blockGas = codeAnalysis.getBlockGas(program.getPC());
+
+        // inside a block, keep the previous state
+        if (blockGas == 0) {
+            return;
+        }
+
+        blockGasPrepaid = blockGas > 0 && program.getRemainingGas() >= blockGas;
+
+        if (blockGasPrepaid) {
+            program.spendGas(blockGas, "BLOCK");
         }
     }
 
@@ -1940,7 +2069,7 @@ public class VM {
             }
 
             initDebugData();
-            this.steps(program,Long.MAX_VALUE);
+            this.steps(program, Long.MAX_VALUE, true);
 
             if (vmHook != null) {
                 vmHook.stopPlay(program);
@@ -1954,10 +2083,22 @@ public class VM {
         }
     }
 
+    public static OpcodeProfiler getOpcodeProfiler() {
+        return profiler;
+    }
+
     public static void setVmHook(VMHook vmHook) {
         VM.vmHook = vmHook;
     }
 
+    public static void setUseDecodedCode(boolean useDecodedCode) {
+        VM.useDecodedCode = useDecodedCode;
+    }
+
+    public static boolean getUseDecodedCode() {
+        return useDecodedCode;
+    }
+
     /**
      * Utility to calculate new total memory size needed for an operation.
      * <br/> Basically just offset + size, unless size is 0, in which case the result is also 0.
@@ -2008,7 +2149,9 @@ public class VM {
         } else if ("pretty".equals(vmConfig.dumpStyle())) {
             dumpLogger.trace("-------------------------------------------------------------------------");
             dumpLogger.trace("    STACK");
-            program.getStack().forEach(item -> dumpLogger.trace("{}", item));
+            for (DataWord item : program.getStack().toArray()) {
+                dumpLogger.trace("{}", item);
+            }
             dumpLogger.trace("    MEMORY");
             String memoryString = program.memoryToString();
             if (!"".equals(memoryString)) {
@@ -20,6 +20,7 @@
 package org.ethereum.vm;
 
 import org.ethereum.vm.trace.ProgramTrace;
+import org.ethereum.vm.trace.ProgramTraceWriter;
 import org.ethereum.vm.trace.Serializers;
 
 import java.io.File;
@@ -60,4 +61,8 @@ public final class VMUtils {
         }
         saveProgramTraceFile(tracePath, txHash, vmTraceCompressed, trace);
     }
+
+    public static ProgramTraceWriter createProgramTraceWriter(String txHash, String databaseDir, String vmTraceDir, boolean vmTraceCompressed) throws IOException {
+        return ProgramTraceWriter.create(Paths.get(databaseDir, vmTraceDir), txHash, vmTraceCompressed);
+    }
 }
@@ -0,0 +1,146 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.vm.program;
+
+import org.ethereum.vm.DataWord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-thread structures reused by the programs executed in that thread.
+ *
+ * Each call depth has a frame with its stack, memory and DataWord pool. A program takes
+ * the frame of its depth when created and returns it when its execution is finished,
+ * so the next transaction, or the next call at the same depth, resets them instead of
+ * allocating new ones. If the frame is still taken, a new one is allocated and not kept.
+ *
+ * Only the frames of the first MAX_RETAINED_DEPTH call depths are kept, so a deep
+ * recursion doesn't keep its structures alive for the rest of the thread life.
+ */
+public class ExecutionContext {
+    public static final int MAX_RETAINED_DEPTH = 16;
+
+    private static final ThreadLocal<ExecutionContext> contexts = ThreadLocal.withInitial(ExecutionContext::new);
+
+    private static boolean enabled = true;
+
+    private final List<Frame> frames = new ArrayList<>();
+
+    private long reusedFrames;
+    private long allocatedFrames;
+
+    public static ExecutionContext current() {
+        return contexts.get();
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    Frame acquire(int depth) {
+        if (depth >= MAX_RETAINED_DEPTH) {
+            allocatedFrames++;
+            return new Frame(null);
+        }
+
+        while (frames.size() <= depth) {
+            frames.add(null);
+        }
+
+        Frame frame = frames.get(depth);
+
+        if (frame == null) {
+            frame = new Frame(this);
+            frames.set(depth, frame);
+        } else if (frame.inUse) {
+            allocatedFrames++;
+            return new Frame(null);
+        } else {
+            reusedFrames++;
+        }
+
+        frame.inUse = true;
+
+        return frame;
+    }
+
+    void release(Frame frame) {
+        if (frame.context != this || !frame.inUse) {
+            return;
+        }
+
+        frame.reset();
+        frame.inUse = false;
+    }
+
+    /**
+     * Returns the number of programs that reused the frame of their depth
+     */
+    public long getReusedFrames() {
+        return reusedFrames;
+    }
+
+    /**
+     * Returns the number of programs that couldn't reuse a frame, because it was taken or its depth is not kept
+     */
+    public long getAllocatedFrames() {
+        return allocatedFrames;
+    }
+
+    static class Frame {
+        // larger memory buffers are released, to not keep them alive for the rest of the thread life
+        private static final int MAX_RETAINED_MEMORY = 64 * 1024;
+        private static final int DATA_WORD_POOL_SIZE = 1024;
+
+        private final ExecutionContext context;
+        private final Stack stack = new Stack();
+        private final java.util.Stack<DataWord> dataWordPool = new java.util.Stack<>();
+        private final Memory memory = new Memory();
+        private boolean inUse;
+
+        Frame(ExecutionContext context) {
+            this.context = context;
+            this.dataWordPool.ensureCapacity(DATA_WORD_POOL_SIZE);
+        }
+
+        Stack getStack() {
+            return stack;
+        }
+
+        Memory getMemory() {
+            return memory;
+        }
+
+        java.util.Stack<DataWord> getDataWordPool() {
+            return dataWordPool;
+        }
+
+        private void reset() {
+            stack.clear();
+            stack.setTraceListener(null);
+
+            memory.reset(MAX_RETAINED_MEMORY);
+        }
+    }
+}
@@ -23,21 +23,26 @@ import org.ethereum.vm.DataWord;
 import org.ethereum.vm.program.listener.ProgramListener;
 import org.ethereum.vm.program.listener.ProgramListenerAware;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
-import static java.lang.Math.ceil;
-import static java.lang.Math.min;
 import static java.lang.String.format;
 import static org.ethereum.util.ByteUtil.EMPTY_BYTE_ARRAY;
 import static org.ethereum.util.ByteUtil.oneByteToHexString;
 
+/**
+ * EVM memory, kept in a contiguous byte array that doubles its capacity when extended.
+ *
+ * The allocated size still grows in chunks of 1 KB, and the visible size in words of 32 bytes.
+ */
 public class Memory implements ProgramListenerAware {
 
     private static final int CHUNK_SIZE = 1024;
     private static final int WORD_SIZE = 32;
 
-    private List<byte[]> chunks = new LinkedList<>();
+    private byte[] buffer = EMPTY_BYTE_ARRAY;
+    private int allocatedSize;
     private int softSize;
     private ProgramListener traceListener;
 
@@ -52,27 +57,8 @@ public class Memory implements ProgramListenerAware {
         }
 
         extend(address, size);
-        byte[] data = new byte[size];
-
-        int chunkIndex = address / CHUNK_SIZE;
-        int chunkOffset = address % CHUNK_SIZE;
-
-        int toGrab = data.length;
-        int start = 0;
-
-        while (toGrab > 0) {
-            int copied = grabMax(chunkIndex, chunkOffset, toGrab, data, start);
-
-            // read next chunk from the start
-            ++chunkIndex;
-            chunkOffset = 0;
-
-            // mark remind
-            toGrab -= copied;
-            start += copied;
-        }
 
-        return data;
+        return Arrays.copyOfRange(buffer, address, address + size);
     }
 
     public void write(int address, byte[] data, int dataSize, boolean limited) {
@@ -85,9 +71,6 @@ public class Memory implements ProgramListenerAware {
             extend(address, dataSize);
         }
 
-        int chunkIndex = address / CHUNK_SIZE;
-        int chunkOffset = address % CHUNK_SIZE;
-
         int toCapture = 0;
         if (limited) {
             toCapture = (address + dataSize > softSize) ? softSize - address : dataSize;
@@ -95,17 +78,8 @@ public class Memory implements ProgramListenerAware {
             toCapture = dataSize;
         }
 
-        int start = 0;
-        while (toCapture > 0) {
-            int captured = captureMax(chunkIndex, chunkOffset, toCapture, data, start);
-
-            // capture next chunk
-            ++chunkIndex;
-            chunkOffset = 0;
-
-            // mark remind
-            toCapture -= captured;
-            start += captured;
+        if (toCapture > 0) {
+            System.arraycopy(data, 0, buffer, address, toCapture);
         }
 
         if (traceListener != null) {
@@ -126,14 +100,17 @@ public class Memory implements ProgramListenerAware {
 
         final int newSize = address + size;
 
-        int toAllocate = newSize - internalSize();
-        if (toAllocate > 0) {
-            addChunks((int) ceil((double) toAllocate / CHUNK_SIZE));
+        if (newSize > allocatedSize) {
+            allocatedSize = roundUp(newSize, CHUNK_SIZE);
+
+            if (allocatedSize > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(allocatedSize, buffer.length * 2));
+            }
         }
 
-        toAllocate = newSize - softSize;
+        int toAllocate = newSize - softSize;
         if (toAllocate > 0) {
-            toAllocate = (int) ceil((double) toAllocate / WORD_SIZE) * WORD_SIZE;
+            toAllocate = roundUp(toAllocate, WORD_SIZE);
             softSize += toAllocate;
 
             if (traceListener != null) {
@@ -143,18 +120,14 @@ public class Memory implements ProgramListenerAware {
     }
 
     public DataWord readWord(int address) {
-        return new DataWord(read(address, 32));
+        extend(address, WORD_SIZE);
+
+        return new DataWord(Arrays.copyOfRange(buffer, address, address + WORD_SIZE));
     }
 
     // just access expecting all data valid
     public byte readByte(int address) {
-
-        int chunkIndex = address / CHUNK_SIZE;
-        int chunkOffset = address % CHUNK_SIZE;
-
-        byte[] chunk = chunks.get(chunkIndex);
-
-        return chunk[chunkOffset];
+        return buffer[address];
     }
 
     @Override
@@ -189,40 +162,42 @@ public class Memory implements ProgramListenerAware {
         return memoryData.toString();
     }
 
+    /**
+     * Clears the memory to be reused by another program,
+     * keeping its buffer unless it is larger than the given capacity
+     */
+    void reset(int maxRetainedCapacity) {
+        if (buffer.length > maxRetainedCapacity) {
+            buffer = EMPTY_BYTE_ARRAY;
+        } else {
+            // the bytes after the allocated size are never written
+            Arrays.fill(buffer, 0, allocatedSize, (byte) 0);
+        }
+
+        allocatedSize = 0;
+        softSize = 0;
+        traceListener = null;
+    }
+
     public int size() {
         return softSize;
     }
 
     public int internalSize() {
-        return chunks.size() * CHUNK_SIZE;
+        return allocatedSize;
     }
 
     public List<byte[]> getChunks() {
-        return new LinkedList<>(chunks);
-    }
+        List<byte[]> chunks = new LinkedList<>();
 
-    private int captureMax(int chunkIndex, int chunkOffset, int size, byte[] src, int srcPos) {
-
-        byte[] chunk = chunks.get(chunkIndex);
-        int toCapture = min(size, chunk.length - chunkOffset);
-
-        System.arraycopy(src, srcPos, chunk, chunkOffset, toCapture);
-        return toCapture;
-    }
-
-    private int grabMax(int chunkIndex, int chunkOffset, int size, byte[] dest, int destPos) {
-
-        byte[] chunk = chunks.get(chunkIndex);
-        int toGrab = min(size, chunk.length - chunkOffset);
-
-        System.arraycopy(chunk, chunkOffset, dest, destPos, toGrab);
+        for (int offset = 0; offset < allocatedSize; offset += CHUNK_SIZE) {
+            chunks.add(Arrays.copyOfRange(buffer, offset, offset + CHUNK_SIZE));
+        }
 
-        return toGrab;
+        return chunks;
     }
 
-    private void addChunks(int num) {
-        for (int i = 0; i < num; ++i) {
-            chunks.add(new byte[CHUNK_SIZE]);
-        }
+    private static int roundUp(int size, int unit) {
+        return (int) ((size + (long) unit - 1) / unit * unit);
     }
 }
@@ -23,6 +23,8 @@ import co.rsk.config.VmConfig;
 import co.rsk.core.Coin;
 import co.rsk.core.Address;
 import co.rsk.vm.BitSet;
+import co.rsk.vm.CodeAnalysis;
+import co.rsk.vm.CodeAnalysisCache;
 import com.google.common.annotations.VisibleForTesting;
 import org.bouncycastle.util.encoders.Hex;
 import org.ethereum.config.BlockchainConfig;
@@ -40,8 +42,10 @@ import org.ethereum.vm.program.invoke.ProgramInvokeFactory;
 import org.ethereum.vm.program.invoke.ProgramInvokeFactoryImpl;
 import org.ethereum.vm.program.listener.CompositeProgramListener;
 import org.ethereum.vm.program.listener.ProgramListenerAware;
+import org.ethereum.vm.trace.OpActions;
 import org.ethereum.vm.trace.ProgramTrace;
 import org.ethereum.vm.trace.ProgramTraceListener;
+import org.ethereum.vm.trace.TraceDetail;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,7 +82,7 @@ public class Program {
     public static final long MAX_MEMORY = (1<<30);
 
     //Max size for stack checks
-    private static final int MAX_STACKSIZE = 1024;
+    private static final int MAX_STACKSIZE = Stack.MAX_SIZE;
 
     private final BlockchainConfig blockchainConfig;
     private final Transaction transaction;
@@ -107,7 +111,7 @@ public class Program {
     private byte scriptVersion; // currently limited to 0..127
     private int startAddr;
 
-    private BitSet jumpdestSet;
+    private CodeAnalysis codeAnalysis;
     /**********************************************************************************************************
      * About DataWord Pool:
      *---------------------------------------------------------------------------------------------------------
@@ -174,9 +178,15 @@ public class Program {
 
     private static Boolean useDataWordPool = true;
 
+    private static final CodeAnalysisCache codeAnalysisCache = new CodeAnalysisCache(256);
+
     private final VmConfig config;
     private final PrecompiledContracts precompiledContracts;
 
+    // the reused stack, memory and DataWord pool, null if they were allocated for this program
+    private final ExecutionContext context;
+    private final ExecutionContext.Frame frame;
+
     private boolean isLogEnabled;
     private boolean isGasLogEnabled;
 
@@ -206,21 +216,41 @@ public class Program {
 
         this.ops = nullToEmpty(ops);
 
-        this.memory = setupProgramListener(new Memory());
-        this.stack = setupProgramListener(new Stack());
-        this.stack.ensureCapacity(1024); // faster?
+        // when tracing, the trace could keep references to the memory and the stack
+        if (ExecutionContext.isEnabled() && !config.vmTrace()) {
+            this.context = ExecutionContext.current();
+            this.frame = this.context.acquire(programInvoke == null ? 0 : programInvoke.getCallDeep());
+        } else {
+            this.context = null;
+            this.frame = null;
+        }
+
+        traceListener = new ProgramTraceListener(config);
+        this.memory = setupProgramListener(frame == null ? new Memory() : frame.getMemory());
+        this.stack = setupProgramListener(frame == null ? new Stack() : frame.getStack());
         this.storage = setupProgramListener(new Storage(programInvoke));
         this.trace = new ProgramTrace(config, programInvoke);
 
-        if (useDataWordPool) {
+        if (!useDataWordPool) {
+            this.dataWordPool = null;
+        } else if (frame != null) {
+            this.dataWordPool = frame.getDataWordPool();
+        } else {
             this.dataWordPool = new java.util.Stack<>();
             this.dataWordPool.ensureCapacity(1024); // faster?
-        } else {
-            this.dataWordPool = null;
         }
 
         precompile();
-        traceListener = new ProgramTraceListener(config);
+    }
+
+    /**
+     * Returns the stack, memory and DataWord pool to the execution context of the thread,
+     * to be reused by the next program. They shouldn't be used after the program is released.
+     */
+    public void release() {
+        if (context != null) {
+            context.release(frame);
+        }
     }
 
     public static void setUseDataWordPool(Boolean value) {
@@ -263,7 +293,11 @@ public class Program {
             programListener.addListener(traceListener);
         }
 
-        traceListenerAware.setTraceListener(traceListener);
+        // without full VM trace, the stack, memory and storage run without listener calls
+        if (config.vmTrace() && config.vmTraceDetail() == TraceDetail.FULL) {
+            traceListenerAware.setTraceListener(traceListener);
+        }
+
         return traceListenerAware;
     }
 
@@ -366,7 +400,6 @@ public class Program {
     }
 
     public void stackPush(DataWord stackWord) {
-        verifyStackOverflow(0, 1); //Sanity Check
         stack.push(stackWord);
     }
 
@@ -658,8 +691,13 @@ public class Program {
         if (isNotEmpty(programCode)) {
             VM vm = new VM(config, precompiledContracts);
             Program program = new Program(config, precompiledContracts, blockchainConfig, programCode, programInvoke, internalTx);
-            vm.play(program);
-            programResult = program.getResult();
+
+            try {
+                vm.play(program);
+                programResult = program.getResult();
+            } finally {
+                program.release();
+            }
         }
 
         if (programResult.getException() != null || programResult.isRevert()) {
@@ -886,8 +924,14 @@ public class Program {
 
         VM vm = new VM(config, precompiledContracts);
         Program program = new Program(config, precompiledContracts, blockchainConfig, programCode, programInvoke, internalTx);
-        vm.play(program);
-        childResult  = program.getResult();
+        program.getTrace().setWriter(getTrace().getWriter());
+
+        try {
+            vm.play(program);
+            childResult = program.getResult();
+        } finally {
+            program.release();
+        }
 
         getTrace().merge(program.getTrace());
         getResult().merge(childResult);
@@ -1261,7 +1305,8 @@ public class Program {
 
     public void saveOpTrace() {
         if (this.pc < ops.length) {
-            trace.addOp(ops[pc], pc, getCallDeep(), getRemainingGas(), traceListener.resetActions());
+            OpActions actions = config.vmTraceDetail() == TraceDetail.FULL ? traceListener.resetActions() : null;
+            trace.addOp(ops[pc], pc, getCallDeep(), getRemainingGas(), actions);
         }
     }
 
@@ -1309,29 +1354,7 @@ public class Program {
         startAddr = 0;
         pc = 0;
         i = processAndSkipCodeHeader(i);
-        computeJumpDests(i);
-    }
-
-    private void computeJumpDests(int start) {
-        if (jumpdestSet == null) {
-            jumpdestSet = new BitSet(ops.length);
-        }
-
-        for (int i = start; i < ops.length; ++i) {
-            OpCode op = OpCode.code(ops[i]);
-
-            if (op == null) {
-                continue;
-            }
-
-            if (op == OpCode.JUMPDEST) {
-                jumpdestSet.set(i);
-            }
-
-            if (op.asInt() >= OpCode.PUSH1.asInt() && op.asInt() <= OpCode.PUSH32.asInt()) {
-                i += op.asInt() - OpCode.PUSH1.asInt() + 1;
-            }
-        }
+        codeAnalysis = codeAnalysisCache.getCodeAnalysis(ops, i);
     }
 
     public DataWord getReturnDataBufferSize() {
@@ -1370,6 +1393,8 @@ public class Program {
             throw ExceptionHelper.badJumpDestination(-1);
         }
         int ret = nextPC.intValue(); // could be negative
+        BitSet jumpdestSet = codeAnalysis.getJumpdestSet();
+
         if (ret < 0 || ret >= jumpdestSet.size() || !jumpdestSet.get(ret)) {
             throw ExceptionHelper.badJumpDestination(ret);
         }
@@ -1564,5 +1589,7 @@ public class Program {
     }
 
     @VisibleForTesting
-    public BitSet getJumpdestSet() { return this.jumpdestSet; }
+    public BitSet getJumpdestSet() { return this.codeAnalysis.getJumpdestSet(); }
+
+    public CodeAnalysis getCodeAnalysis() { return this.codeAnalysis; }
 }
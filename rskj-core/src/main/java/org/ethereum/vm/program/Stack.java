@@ -23,7 +23,20 @@ import org.ethereum.vm.DataWord;
 import org.ethereum.vm.program.listener.ProgramListener;
 import org.ethereum.vm.program.listener.ProgramListenerAware;
 
-public class Stack extends java.util.Stack<DataWord> implements ProgramListenerAware {
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * EVM operand stack, backed by a fixed array of the maximum stack size.
+ *
+ * The stack size bounds are verified once per opcode by the program
+ * (verifyStackSize and verifyStackOverflow), so get, set, swap and dup don't check them again.
+ */
+public class Stack implements ProgramListenerAware {
+    public static final int MAX_SIZE = 1024;
+
+    private final DataWord[] items = new DataWord[MAX_SIZE];
+    private int size;
 
     private ProgramListener traceListener;
 
@@ -32,33 +45,77 @@ public class Stack extends java.util.Stack<DataWord> implements ProgramListenerA
         this.traceListener = listener;
     }
 
-    @Override
-    public synchronized DataWord pop() {
+    public DataWord pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+
         if (traceListener != null) {
             traceListener.onStackPop();
         }
-        return super.pop();
+
+        DataWord item = items[--size];
+        items[size] = null;
+
+        return item;
     }
 
-    @Override
     public DataWord push(DataWord item) {
         if (traceListener != null) {
             traceListener.onStackPush(item);
         }
-        return super.push(item);
+
+        items[size++] = item;
+
+        return item;
+    }
+
+    public DataWord peek() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+
+        return items[size - 1];
+    }
+
+    public DataWord get(int index) {
+        return items[index];
+    }
+
+    public DataWord set(int index, DataWord item) {
+        DataWord previous = items[index];
+        items[index] = item;
+        return previous;
     }
 
     public void swap(int from, int to) {
-        if (isAccessible(from) && isAccessible(to) && (from != to)) {
-            if (traceListener != null) {
-                traceListener.onStackSwap(from, to);
-            }
-            DataWord tmp = get(from);
-            set(from, set(to, tmp));
+        if (from == to) {
+            return;
+        }
+
+        if (traceListener != null) {
+            traceListener.onStackSwap(from, to);
         }
+
+        DataWord tmp = items[from];
+        items[from] = items[to];
+        items[to] = tmp;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
     }
 
-    private boolean isAccessible(int from) {
-        return from >= 0 && from < size();
+    public DataWord[] toArray() {
+        return Arrays.copyOf(items, size);
     }
 }
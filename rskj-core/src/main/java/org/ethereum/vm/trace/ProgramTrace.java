@@ -22,6 +22,7 @@ package org.ethereum.vm.trace;
 import co.rsk.config.VmConfig;
 import co.rsk.core.Address;
 import co.rsk.core.bc.AccountInformationProvider;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.ethereum.core.Repository;
 import org.ethereum.db.RepositoryTrack;
 import org.ethereum.vm.DataWord;
@@ -49,6 +50,9 @@ public class ProgramTrace {
     private int storageSize;
     private String contractAddress;
 
+    @JsonIgnore
+    private ProgramTraceWriter writer;
+
     public ProgramTrace(VmConfig config, ProgramInvoke programInvoke) {
         if (config.vmTrace() && programInvoke != null) {
             contractAddress = Hex.toHexString(programInvoke.getOwnerAddress().getLast20Bytes());
@@ -149,6 +153,17 @@ public class ProgramTrace {
         this.contractAddress = contractAddress;
     }
 
+    public ProgramTraceWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * Streams the ops to the writer, instead of keeping them in the trace
+     */
+    public void setWriter(ProgramTraceWriter writer) {
+        this.writer = writer;
+    }
+
     public ProgramTrace result(byte[] result) {
         setResult(toHexString(result));
         return this;
@@ -167,7 +182,11 @@ public class ProgramTrace {
         op.setGas(gas);
         op.setPc(pc);
 
-        ops.add(op);
+        if (writer != null) {
+            writer.writeOp(op);
+        } else {
+            ops.add(op);
+        }
 
         return op;
     }
@@ -0,0 +1,118 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.vm.trace;
+
+import co.rsk.panic.PanicProcessor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the ops of a program trace while they are executed, one JSON object per line,
+ * so the trace of a long transaction is never kept in memory.
+ * The last line has the trace without ops: contract address, initial storage, result and error.
+ */
+public class ProgramTraceWriter implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger("vmtrace");
+    private static final PanicProcessor panicProcessor = new PanicProcessor();
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final JsonGenerator generator;
+    private final ObjectMapper mapper;
+    private long nops;
+    private boolean failed;
+
+    public ProgramTraceWriter(OutputStream out) throws IOException {
+        this.out = out;
+        this.mapper = Serializers.createFieldsOnlyMapper(false);
+        this.mapper.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = this.mapper.getFactory().createGenerator(out);
+        this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+    }
+
+    /**
+     * Creates the writer of the trace file of a transaction, txHash.jsonl or, compressed, txHash.jsonl.gz
+     */
+    public static ProgramTraceWriter create(Path basePath, String txHash, boolean compress) throws IOException {
+        if (!basePath.toFile().exists()) {
+            basePath.toFile().mkdirs();
+        }
+
+        OutputStream out = Files.newOutputStream(basePath.resolve(txHash + (compress ? ".jsonl.gz" : ".jsonl")));
+
+        if (compress) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+
+        return new ProgramTraceWriter(new BufferedOutputStream(out, BUFFER_SIZE));
+    }
+
+    public long getOpsCount() {
+        return this.nops;
+    }
+
+    /**
+     * Writes an op. A write error is reported once, and then the remaining ops are discarded,
+     * so the program execution is not altered by the trace.
+     */
+    public void writeOp(Op op) {
+        if (this.failed) {
+            return;
+        }
+
+        try {
+            this.mapper.writeValue(this.generator, op);
+            this.nops++;
+        } catch (IOException e) {
+            this.failed = true;
+            LOGGER.error("Cannot write trace op: ", e);
+            panicProcessor.panic("vmtrace", "Cannot write trace op: " + e.toString());
+        }
+    }
+
+    /**
+     * Writes the last line, having the trace fields without the ops, and closes the output
+     */
+    public void close(ProgramTrace trace) throws IOException {
+        try {
+            this.mapper.writeValue(this.generator, trace);
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.generator.close();
+        this.out.close();
+    }
+}
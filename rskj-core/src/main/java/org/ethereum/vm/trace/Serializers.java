@@ -81,9 +81,13 @@ public final class Serializers {
     }
 
     public static void serializeFieldsOnly(Object value, boolean pretty, OutputStream out) throws IOException {
+        createFieldsOnlyMapper(pretty).writeValue(out, value);
+    }
+
+    public static ObjectMapper createFieldsOnlyMapper(boolean pretty) {
         ObjectMapper mapper = createMapper(pretty);
         mapper.setVisibility(fieldsOnlyVisibilityChecker(mapper));
-        mapper.writeValue(out, value);
+        return mapper;
     }
 
     private static VisibilityChecker<?> fieldsOnlyVisibilityChecker(ObjectMapper mapper) {
@@ -0,0 +1,104 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.blocks;
+
+import co.rsk.blockchain.utils.BlockGenerator;
+import org.ethereum.core.Block;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+public class BinaryBlockRecorderTest {
+    @Test
+    public void writeAndReadBlocks() throws Exception {
+        writeAndReadBlocks(false);
+    }
+
+    @Test
+    public void writeAndReadCompressedBlocks() throws Exception {
+        writeAndReadBlocks(true);
+    }
+
+    @Test
+    public void readEmptyArchive() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new BinaryBlockRecorder(output, true).close();
+
+        BinaryBlockPlayer player = new BinaryBlockPlayer(new ByteArrayInputStream(output.toByteArray()));
+
+        Assert.assertNull(player.readBlock());
+
+        player.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectTextFile() throws Exception {
+        new BinaryBlockPlayer(new ByteArrayInputStream("2018-01-01 00:00:00,1,f8".getBytes()));
+    }
+
+    @Test
+    public void detectBinaryFile() throws Exception {
+        BinaryBlockRecorder recorder = new BinaryBlockRecorder("testrecorder.bin", false);
+        recorder.writeBlock(new BlockGenerator().getGenesisBlock());
+        recorder.close();
+
+        FileBlockRecorder textRecorder = new FileBlockRecorder("testrecorder.txt");
+        textRecorder.writeBlock(new BlockGenerator().getGenesisBlock());
+        textRecorder.close();
+
+        Assert.assertTrue(BinaryBlockPlayer.isBinaryFile("testrecorder.bin"));
+        Assert.assertFalse(BinaryBlockPlayer.isBinaryFile("testrecorder.txt"));
+        Assert.assertFalse(BinaryBlockPlayer.isBinaryFile("unknown.bin"));
+
+        Assert.assertTrue(new File("testrecorder.bin").delete());
+        Assert.assertTrue(new File("testrecorder.txt").delete());
+    }
+
+    private static void writeAndReadBlocks(boolean compressed) throws Exception {
+        BlockGenerator blockGenerator = new BlockGenerator();
+        List<Block> blocks = blockGenerator.getBlockChain(blockGenerator.getGenesisBlock(), 10);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BinaryBlockRecorder recorder = new BinaryBlockRecorder(output, compressed);
+
+        for (Block block : blocks) {
+            recorder.writeBlock(block);
+        }
+
+        recorder.close();
+
+        BinaryBlockPlayer player = new BinaryBlockPlayer(new ByteArrayInputStream(output.toByteArray()));
+
+        for (Block block : blocks) {
+            Block result = player.readBlock();
+
+            Assert.assertNotNull(result);
+            Assert.assertEquals(block.getHash(), result.getHash());
+        }
+
+        Assert.assertNull(player.readBlock());
+
+        player.close();
+    }
+}
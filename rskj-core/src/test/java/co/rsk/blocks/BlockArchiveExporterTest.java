@@ -0,0 +1,57 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.blocks;
+
+import co.rsk.core.bc.Blockchain;
+import co.rsk.test.builders.BlockChainBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+public class BlockArchiveExporterTest {
+    @Test
+    public void exportBlocks() throws Exception {
+        Blockchain original = BlockChainBuilder.ofSize(10);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (BinaryBlockRecorder recorder = new BinaryBlockRecorder(output, false)) {
+            Assert.assertEquals(6, new BlockArchiveExporter(original.getBlockStore()).export(5, 10, recorder));
+        }
+
+        BinaryBlockPlayer player = new BinaryBlockPlayer(new ByteArrayInputStream(output.toByteArray()));
+
+        for (long number = 5; number <= 10; number++) {
+            Assert.assertEquals(original.getBlockByNumber(number).getHash(), player.readBlock().getHash());
+        }
+
+        Assert.assertNull(player.readBlock());
+    }
+
+    @Test
+    public void exportStopsAtMissingBlock() throws Exception {
+        Blockchain original = BlockChainBuilder.ofSize(3);
+
+        try (BinaryBlockRecorder recorder = new BinaryBlockRecorder(new ByteArrayOutputStream(), false)) {
+            Assert.assertEquals(4, new BlockArchiveExporter(original.getBlockStore()).export(0, 10, recorder));
+        }
+    }
+}
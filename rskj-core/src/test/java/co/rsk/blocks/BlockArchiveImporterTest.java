@@ -0,0 +1,242 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.blocks;
+
+import co.rsk.core.Coin;
+import co.rsk.core.SenderRecoverer;
+import co.rsk.core.bc.Blockchain;
+import co.rsk.test.World;
+import co.rsk.test.builders.AccountBuilder;
+import co.rsk.test.builders.BlockBuilder;
+import co.rsk.test.builders.BlockChainBuilder;
+import co.rsk.test.builders.TransactionBuilder;
+import org.ethereum.core.Account;
+import org.ethereum.core.Block;
+import org.ethereum.core.ImportResult;
+import org.ethereum.core.Transaction;
+import org.ethereum.db.ReceiptStore;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+public class BlockArchiveImporterTest {
+    @Test
+    public void importExportedBlocks() throws Exception {
+        Blockchain original = BlockChainBuilder.ofSize(20);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (BinaryBlockRecorder recorder = new BinaryBlockRecorder(output, true)) {
+            new BlockArchiveExporter(original.getBlockStore()).export(0, 20, recorder);
+        }
+
+        Blockchain blockchain = new BlockChainBuilder().build();
+        List<Block> imported = new ArrayList<>();
+
+        try (BinaryBlockPlayer player = new BinaryBlockPlayer(new ByteArrayInputStream(output.toByteArray()))) {
+            Assert.assertEquals(21, new BlockArchiveImporter(blockchain, 4).importBlocks(player, imported::add));
+        }
+
+        Assert.assertEquals(21, imported.size());
+        Assert.assertEquals(20, blockchain.getBestBlock().getNumber());
+        Assert.assertEquals(original.getBestBlock().getHash(), blockchain.getBestBlock().getHash());
+    }
+
+    @Test
+    public void collectStageMetrics() throws Exception {
+        byte[] archive = exportBlocks(BlockChainBuilder.ofSize(10), 10);
+        BlockArchiveImporter importer = new BlockArchiveImporter(new BlockChainBuilder().build(), 2);
+
+        try (BinaryBlockPlayer player = new BinaryBlockPlayer(new ByteArrayInputStream(archive))) {
+            Assert.assertEquals(11, importer.importBlocks(player, block -> { }));
+        }
+
+        List<BlockArchiveImporter.StageMetrics> metrics = importer.getMetrics();
+
+        Assert.assertEquals(5, metrics.size());
+        Assert.assertEquals("read", metrics.get(0).getName());
+        Assert.assertEquals("persist", metrics.get(4).getName());
+
+        for (int k = 0; k < 4; k++) {
+            Assert.assertEquals(11, metrics.get(k).getCount());
+            Assert.assertTrue(metrics.get(k).getMaxNanos() <= metrics.get(k).getTotalNanos());
+        }
+    }
+
+    @Test
+    public void skipBlocksWithInvalidHeader() throws Exception {
+        byte[] archive = exportBlocks(BlockChainBuilder.ofSize(10), 10);
+        Blockchain blockchain = new BlockChainBuilder().build();
+        BlockArchiveImporter importer = new BlockArchiveImporter(blockchain, block -> block.getNumber() != 5, 2);
+
+        try (BinaryBlockPlayer player = new BinaryBlockPlayer(new ByteArrayInputStream(archive))) {
+            Assert.assertEquals(5, importer.importBlocks(player, block -> { }));
+        }
+
+        Assert.assertEquals(4, blockchain.getBestBlock().getNumber());
+        Assert.assertEquals(11, importer.getMetrics().get(2).getCount());
+        Assert.assertEquals(10, importer.getMetrics().get(3).getCount());
+    }
+
+    @Test
+    public void persistReceiptsBeforeReturning() throws Exception {
+        World world = new World();
+        Account sender = new AccountBuilder(world).name("sender").balance(Coin.valueOf(2000000)).build();
+        Account receiver = new AccountBuilder().name("receiver").build();
+        Transaction tx = new TransactionBuilder().sender(sender).receiver(receiver).value(BigInteger.valueOf(1000)).build();
+
+        Block block1 = new BlockBuilder(world).parent(world.getBlockChain().getBestBlock()).transactions(Collections.singletonList(tx)).build();
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, world.getBlockChain().tryToConnect(block1));
+
+        byte[] archive = exportBlocks(world.getBlockChain(), 1);
+
+        World target = new World();
+        new AccountBuilder(target).name("sender").balance(Coin.valueOf(2000000)).build();
+
+        try (BinaryBlockPlayer player = new BinaryBlockPlayer(new ByteArrayInputStream(archive))) {
+            new BlockArchiveImporter(target.getBlockChain(), 2).importBlocks(player, block -> { });
+        }
+
+        Assert.assertEquals(1, target.getBlockChain().getBestBlock().getNumber());
+        Assert.assertNotNull(target.getBlockChain().getTransactionInfo(tx.getHash().getBytes()));
+    }
+
+    @Test
+    public void persistAllBlocksWithAFullQueue() throws Exception {
+        World world = new World();
+        Account sender = new AccountBuilder(world).name("sender").balance(Coin.valueOf(2000000)).build();
+        Account receiver = new AccountBuilder().name("receiver").build();
+        List<Transaction> txs = new ArrayList<>();
+
+        for (int k = 0; k < 5; k++) {
+            Transaction tx = new TransactionBuilder().sender(sender).receiver(receiver).nonce(k).value(BigInteger.valueOf(1000)).build();
+            Block block = new BlockBuilder(world).parent(world.getBlockChain().getBestBlock()).transactions(Collections.singletonList(tx)).build();
+            Assert.assertEquals(ImportResult.IMPORTED_BEST, world.getBlockChain().tryToConnect(block));
+            txs.add(tx);
+        }
+
+        byte[] archive = exportBlocks(world.getBlockChain(), 5);
+
+        World target = new World();
+        new AccountBuilder(target).name("sender").balance(Coin.valueOf(2000000)).build();
+
+        try (BinaryBlockPlayer player = new BinaryBlockPlayer(new ByteArrayInputStream(archive))) {
+            new BlockArchiveImporter(target.getBlockChain(), 1).importBlocks(player, block -> { });
+        }
+
+        Assert.assertEquals(5, target.getBlockChain().getBestBlock().getNumber());
+
+        for (int k = 0; k < txs.size(); k++) {
+            byte[] blockHash = target.getBlockChain().getBlockByNumber(k + 1).getHash().getBytes();
+            Assert.assertArrayEquals(blockHash, target.getBlockChain().getTransactionInfo(txs.get(k).getHash().getBytes()).getBlockHash());
+        }
+    }
+
+    @Test
+    public void abortWhenPersistingFails() throws Exception {
+        World world = new World();
+        Account sender = new AccountBuilder(world).name("sender").balance(Coin.valueOf(2000000)).build();
+        Account receiver = new AccountBuilder().name("receiver").build();
+
+        for (int k = 0; k < 3; k++) {
+            Transaction tx = new TransactionBuilder().sender(sender).receiver(receiver).nonce(k).value(BigInteger.valueOf(1000)).build();
+            Block block = new BlockBuilder(world).parent(world.getBlockChain().getBestBlock()).transactions(Collections.singletonList(tx)).build();
+            Assert.assertEquals(ImportResult.IMPORTED_BEST, world.getBlockChain().tryToConnect(block));
+        }
+
+        byte[] archive = exportBlocks(world.getBlockChain(), 3);
+
+        World target = new World();
+        new AccountBuilder(target).name("sender").balance(Coin.valueOf(2000000)).build();
+        ReceiptStore receiptStore = mock(ReceiptStore.class);
+        doThrow(new RuntimeException("disk full")).when(receiptStore).saveMultiple(any(), any());
+        Whitebox.setInternalState(target.getBlockChain(), "receiptStore", receiptStore);
+
+        try (BinaryBlockPlayer player = new BinaryBlockPlayer(new ByteArrayInputStream(archive))) {
+            new BlockArchiveImporter(target.getBlockChain(), 1).importBlocks(player, block -> { });
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("disk full", ex.getCause().getMessage());
+        }
+
+        // the executor is not kept after the import
+        ThreadLocal<?> persistenceExecutor = Whitebox.getInternalState(target.getBlockChain(), "persistenceExecutor");
+        Assert.assertNull(persistenceExecutor.get());
+    }
+
+    @Test
+    public void recoverSendersOnWorkers() throws Exception {
+        World world = new World();
+        Account sender = new AccountBuilder(world).name("sender").balance(Coin.valueOf(2000000)).build();
+        Account receiver = new AccountBuilder().name("receiver").build();
+        List<Transaction> txs = new ArrayList<>();
+
+        for (int k = 0; k < 4; k++) {
+            txs.add(new TransactionBuilder().sender(sender).receiver(receiver).nonce(k).value(BigInteger.valueOf(1000)).build());
+        }
+
+        Block block1 = new BlockBuilder(world).parent(world.getBlockChain().getBestBlock()).transactions(txs).build();
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, world.getBlockChain().tryToConnect(block1));
+
+        byte[] archive = exportBlocks(world.getBlockChain(), 1);
+
+        World target = new World();
+        new AccountBuilder(target).name("sender").balance(Coin.valueOf(2000000)).build();
+        SenderRecoverer senderRecoverer = new SenderRecoverer(2);
+        List<Block> imported = new ArrayList<>();
+
+        try (BinaryBlockPlayer player = new BinaryBlockPlayer(new ByteArrayInputStream(archive))) {
+            new BlockArchiveImporter(target.getBlockChain(), block -> true, senderRecoverer, 2).importBlocks(player, imported::add);
+        } finally {
+            senderRecoverer.shutdown();
+        }
+
+        Assert.assertEquals(1, target.getBlockChain().getBestBlock().getNumber());
+
+        for (Transaction tx : imported.get(imported.size() - 1).getTransactionsList()) {
+            Assert.assertEquals(sender.getAddress(), Whitebox.getInternalState(tx, "sender"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidQueueSize() {
+        new BlockArchiveImporter(new BlockChainBuilder().build(), 0);
+    }
+
+    private static byte[] exportBlocks(Blockchain blockchain, long to) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (BinaryBlockRecorder recorder = new BinaryBlockRecorder(output, true)) {
+            new BlockArchiveExporter(blockchain.getBlockStore()).export(0, to, recorder);
+        }
+
+        return output.toByteArray();
+    }
+}
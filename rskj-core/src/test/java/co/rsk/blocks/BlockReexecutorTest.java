@@ -0,0 +1,117 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.blocks;
+
+import co.rsk.core.Coin;
+import co.rsk.core.bc.BlockExecutor;
+import co.rsk.core.bc.Blockchain;
+import co.rsk.test.World;
+import co.rsk.test.builders.AccountBuilder;
+import co.rsk.test.builders.BlockBuilder;
+import co.rsk.test.builders.BlockChainBuilder;
+import co.rsk.test.builders.TransactionBuilder;
+import org.ethereum.core.Account;
+import org.ethereum.core.Block;
+import org.ethereum.core.ImportResult;
+import org.ethereum.core.Transaction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BlockReexecutorTest {
+    @Test
+    public void reexecuteBlocksWithTransactions() throws InterruptedException {
+        World world = new World();
+        Blockchain blockchain = world.getBlockChain();
+        Account sender = new AccountBuilder(world).name("sender").balance(Coin.valueOf(10000000)).build();
+        Account receiver = new AccountBuilder().name("receiver").build();
+
+        for (int k = 0; k < 6; k++) {
+            Transaction tx = new TransactionBuilder().sender(sender).receiver(receiver).nonce(k).value(BigInteger.valueOf(1000)).build();
+            Block block = new BlockBuilder(world).parent(blockchain.getBestBlock()).transactions(Collections.singletonList(tx)).build();
+            Assert.assertEquals(ImportResult.IMPORTED_BEST, blockchain.tryToConnect(block));
+        }
+
+        Block bestBlock = blockchain.getBestBlock();
+        BlockReexecutor reexecutor = new BlockReexecutor(blockchain.getBlockStore(), blockchain.getBlockExecutor(), 3);
+
+        Assert.assertTrue(reexecutor.reexecute(1, 6));
+        Assert.assertEquals(6, reexecutor.getBlocks());
+        Assert.assertEquals(6, reexecutor.getTransactions());
+        Assert.assertEquals(6 * 21000, reexecutor.getGasUsed());
+        Assert.assertTrue(reexecutor.getInvalidBlocks().isEmpty());
+        Assert.assertEquals(2, reexecutor.getReport().size());
+
+        // the chain is not changed
+        Assert.assertSame(bestBlock, blockchain.getBestBlock());
+    }
+
+    @Test
+    public void reportBlocksWithDifferentResults() throws InterruptedException {
+        Blockchain blockchain = BlockChainBuilder.ofSize(10);
+        BlockExecutor blockExecutor = mock(BlockExecutor.class);
+        when(blockExecutor.executeAndValidate(any(Block.class), any(Block.class))).thenReturn(true);
+        when(blockExecutor.executeAndValidate(argThat(new BlockNumberMatcher(4)), any(Block.class))).thenReturn(false);
+        when(blockExecutor.executeAndValidate(argThat(new BlockNumberMatcher(9)), any(Block.class))).thenReturn(false);
+
+        BlockReexecutor reexecutor = new BlockReexecutor(blockchain.getBlockStore(), blockExecutor, 4);
+
+        Assert.assertFalse(reexecutor.reexecute(1, 10));
+        Assert.assertEquals(8, reexecutor.getBlocks());
+        Assert.assertEquals(Arrays.asList(4L, 9L), reexecutor.getInvalidBlocks());
+        Assert.assertEquals(3, reexecutor.getReport().size());
+    }
+
+    @Test
+    public void reportMissingBlocks() throws InterruptedException {
+        Blockchain blockchain = BlockChainBuilder.ofSize(3);
+        BlockReexecutor reexecutor = new BlockReexecutor(blockchain.getBlockStore(), blockchain.getBlockExecutor(), 1);
+
+        Assert.assertFalse(reexecutor.reexecute(2, 5));
+        Assert.assertEquals(2, reexecutor.getBlocks());
+        Assert.assertEquals(Arrays.asList(4L, 5L), reexecutor.getInvalidBlocks());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRange() throws InterruptedException {
+        Blockchain blockchain = BlockChainBuilder.ofSize(3);
+        new BlockReexecutor(blockchain.getBlockStore(), blockchain.getBlockExecutor(), 1).reexecute(3, 2);
+    }
+
+    private static class BlockNumberMatcher extends org.mockito.ArgumentMatcher<Block> {
+        private final long number;
+
+        BlockNumberMatcher(long number) {
+            this.number = number;
+        }
+
+        @Override
+        public boolean matches(Object argument) {
+            return argument != null && ((Block) argument).getNumber() == number;
+        }
+    }
+}
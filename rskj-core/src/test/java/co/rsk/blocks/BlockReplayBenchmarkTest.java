@@ -0,0 +1,95 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.blocks;
+
+import co.rsk.config.TestSystemProperties;
+import co.rsk.core.bc.Blockchain;
+import co.rsk.test.builders.BlockChainBuilder;
+import org.ethereum.core.Block;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+
+public class BlockReplayBenchmarkTest {
+    @Test
+    public void replayRecordedBlocksAfterWarmup() throws Exception {
+        Blockchain original = BlockChainBuilder.ofSize(10);
+
+        FileBlockRecorder recorder = new FileBlockRecorder("replayblocks.txt");
+
+        for (long number = 0; number <= 10; number++) {
+            recorder.writeBlock(original.getBlockByNumber(number));
+        }
+
+        recorder.close();
+
+        Blockchain blockchain = new BlockChainBuilder().build();
+        BlockReplayBenchmark benchmark = new BlockReplayBenchmark(blockchain, 4);
+
+        try (FileBlockPlayer player = new FileBlockPlayer(new TestSystemProperties(), "replayblocks.txt")) {
+            benchmark.replay(player);
+        }
+
+        Assert.assertTrue(new File("replayblocks.txt").delete());
+
+        Assert.assertEquals(original.getBestBlock().getHash(), blockchain.getBestBlock().getHash());
+        Assert.assertEquals(7, benchmark.getBlocks());
+        Assert.assertEquals(0, benchmark.getFailedBlocks());
+        Assert.assertTrue(benchmark.getTotalNanos() > 0);
+        Assert.assertTrue(benchmark.getBlocksPerSecond() > 0);
+
+        List<BlockArchiveImporter.StageMetrics> metrics = benchmark.getPhaseMetrics();
+
+        Assert.assertEquals(4, metrics.size());
+        Assert.assertEquals("validation", metrics.get(0).getName());
+        Assert.assertEquals("execution", metrics.get(1).getName());
+        Assert.assertEquals("commit", metrics.get(2).getName());
+        Assert.assertEquals("flush", metrics.get(3).getName());
+
+        for (BlockArchiveImporter.StageMetrics phase : metrics) {
+            Assert.assertEquals(7, phase.getCount());
+        }
+
+        Assert.assertEquals(7, benchmark.getReport().size());
+    }
+
+    @Test
+    public void countBlocksNotImported() {
+        Blockchain original = BlockChainBuilder.ofSize(3);
+        Iterator<Block> blocks = java.util.Arrays.asList(
+                original.getBlockByNumber(0),
+                original.getBlockByNumber(1),
+                original.getBlockByNumber(3),
+                original.getBlockByNumber(2)).iterator();
+
+        BlockReplayBenchmark benchmark = new BlockReplayBenchmark(new BlockChainBuilder().build(), 0);
+        benchmark.replay(() -> blocks.hasNext() ? blocks.next() : null);
+
+        Assert.assertEquals(3, benchmark.getBlocks());
+        Assert.assertEquals(1, benchmark.getFailedBlocks());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeWarmupIsInvalid() {
+        new BlockReplayBenchmark(new BlockChainBuilder().build(), -1);
+    }
+}
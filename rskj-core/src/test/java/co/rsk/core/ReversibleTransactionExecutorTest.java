@@ -20,6 +20,8 @@
 package co.rsk.core;
 
 import co.rsk.util.TestContract;
+import co.rsk.vm.BytecodeCompiler;
+import org.bouncycastle.util.BigIntegers;
 import org.bouncycastle.util.encoders.Hex;
 import org.ethereum.TestUtils;
 import org.ethereum.core.Block;
@@ -158,4 +160,131 @@ public class ReversibleTransactionExecutorTest {
                 new String[]{"calls: 1"},
                 callsFn.decodeResult(result2.getHReturn()));
     }
+
+    @Test
+    public void estimateGasUsedWhenItIsEnough() {
+        TestContract hello = TestContract.hello();
+        CallTransaction.Function helloFn = hello.functions.get("hello");
+        Address contractAddress = contractRunner.addContract(hello.runtimeBytecode);
+
+        Address from = TestUtils.randomAddress();
+        byte[] gasPrice = Hex.decode("00");
+        byte[] value = Hex.decode("00");
+        byte[] gasLimit = Hex.decode("f424");
+
+        Block bestBlock = factory.getBlockchain().getBestBlock();
+
+        ProgramResult result = reversibleTransactionExecutor.executeTransaction(
+                bestBlock, bestBlock.getCoinbase(), gasPrice, gasLimit, contractAddress.getBytes(), value, helloFn.encode(), from);
+
+        long estimation = reversibleTransactionExecutor.estimateGas(
+                bestBlock, bestBlock.getCoinbase(), gasPrice, gasLimit, contractAddress.getBytes(), value, helloFn.encode(), from);
+
+        Assert.assertEquals(result.getGasUsed(), estimation);
+    }
+
+    @Test
+    public void estimateGasOfGasDependentExecution() {
+        // reverts if the gas left is not greater than 100000
+        byte[] code = new BytecodeCompiler().compile("GAS PUSH3 0x0186a0 LT PUSH1 0x0e JUMPI PUSH1 0x00 PUSH1 0x00 REVERT JUMPDEST STOP");
+        Address contractAddress = contractRunner.addContract(Hex.toHexString(code));
+
+        Address from = TestUtils.randomAddress();
+        byte[] gasPrice = Hex.decode("00");
+        byte[] value = Hex.decode("00");
+        byte[] gasLimit = Hex.decode("0f4240");
+
+        Block bestBlock = factory.getBlockchain().getBestBlock();
+
+        ProgramResult result = reversibleTransactionExecutor.executeTransaction(
+                bestBlock, bestBlock.getCoinbase(), gasPrice, gasLimit, contractAddress.getBytes(), value, new byte[0], from);
+
+        Assert.assertNull(result.getException());
+        Assert.assertFalse(result.isRevert());
+        Assert.assertTrue(result.getGasUsed() < 100000);
+
+        long estimation = reversibleTransactionExecutor.estimateGas(
+                bestBlock, bestBlock.getCoinbase(), gasPrice, gasLimit, contractAddress.getBytes(), value, new byte[0], from);
+
+        Assert.assertTrue(estimation > result.getGasUsed() + 100000);
+        Assert.assertTrue(estimation < result.getGasUsed() + 100000 + estimation / 64);
+
+        ProgramResult estimatedResult = reversibleTransactionExecutor.executeTransaction(
+                bestBlock, bestBlock.getCoinbase(), gasPrice, BigIntegers.asUnsignedByteArray(BigInteger.valueOf(estimation)),
+                contractAddress.getBytes(), value, new byte[0], from);
+
+        Assert.assertNull(estimatedResult.getException());
+        Assert.assertFalse(estimatedResult.isRevert());
+    }
+
+    @Test
+    public void estimateGasSearchesUpToTheBlockGasLimit() {
+        // reverts if the gas left is not greater than 100000
+        byte[] code = new BytecodeCompiler().compile("GAS PUSH3 0x0186a0 LT PUSH1 0x0e JUMPI PUSH1 0x00 PUSH1 0x00 REVERT JUMPDEST STOP");
+        Address contractAddress = contractRunner.addContract(Hex.toHexString(code));
+
+        Address from = TestUtils.randomAddress();
+        byte[] gasPrice = Hex.decode("00");
+        byte[] value = Hex.decode("00");
+        // the default gas limit of the calls without gas
+        byte[] gasLimit = Hex.decode("5af3107a4000");
+
+        Block bestBlock = factory.getBlockchain().getBestBlock();
+        long blockGasLimit = bestBlock.getGasLimitAsInteger().longValue();
+
+        long estimation = reversibleTransactionExecutor.estimateGas(
+                bestBlock, bestBlock.getCoinbase(), gasPrice, gasLimit, contractAddress.getBytes(), value, new byte[0], from);
+
+        Assert.assertTrue(estimation > 100000);
+        Assert.assertTrue(estimation <= blockGasLimit);
+
+        ProgramResult estimatedResult = reversibleTransactionExecutor.executeTransaction(
+                bestBlock, bestBlock.getCoinbase(), gasPrice, BigIntegers.asUnsignedByteArray(BigInteger.valueOf(estimation)),
+                contractAddress.getBytes(), value, new byte[0], from);
+
+        Assert.assertNull(estimatedResult.getException());
+        Assert.assertFalse(estimatedResult.isRevert());
+    }
+
+    @Test
+    public void estimateGasOfExecutionNotFittingInTheBlock() {
+        // reverts if the gas left is not greater than the block gas limit
+        Block bestBlock = factory.getBlockchain().getBestBlock();
+        String blockGasLimit = Hex.toHexString(BigIntegers.asUnsignedByteArray(4, bestBlock.getGasLimitAsInteger()));
+        byte[] code = new BytecodeCompiler().compile("GAS PUSH4 0x" + blockGasLimit + " LT PUSH1 0x0f JUMPI PUSH1 0x00 PUSH1 0x00 REVERT JUMPDEST STOP");
+        Address contractAddress = contractRunner.addContract(Hex.toHexString(code));
+
+        Address from = TestUtils.randomAddress();
+        byte[] gasPrice = Hex.decode("00");
+        byte[] value = Hex.decode("00");
+        byte[] gasLimit = Hex.decode("5af3107a4000");
+
+        long estimation = reversibleTransactionExecutor.estimateGas(
+                bestBlock, bestBlock.getCoinbase(), gasPrice, gasLimit, contractAddress.getBytes(), value, new byte[0], from);
+
+        Assert.assertTrue(estimation < bestBlock.getGasLimitAsInteger().longValue());
+    }
+
+    @Test
+    public void estimateGasUsedWhenFailingWithGivenGasLimit() {
+        TestContract greeter = TestContract.greeter();
+        CallTransaction.Function greeterFn = greeter.functions.get("greet");
+        Address contractAddress = contractRunner.addContract(greeter.runtimeBytecode);
+
+        Address from = new Address("0000000000000000000000000000000000000023"); // someone else
+        byte[] gasPrice = Hex.decode("00");
+        byte[] value = Hex.decode("00");
+        byte[] gasLimit = Hex.decode("f424");
+
+        Block bestBlock = factory.getBlockchain().getBestBlock();
+
+        ProgramResult result = reversibleTransactionExecutor.executeTransaction(
+                bestBlock, bestBlock.getCoinbase(), gasPrice, gasLimit, contractAddress.getBytes(), value, greeterFn.encode("greet me"), from);
+
+        long estimation = reversibleTransactionExecutor.estimateGas(
+                bestBlock, bestBlock.getCoinbase(), gasPrice, gasLimit, contractAddress.getBytes(), value, greeterFn.encode("greet me"), from);
+
+        Assert.assertTrue(result.isRevert());
+        Assert.assertEquals(result.getGasUsed(), estimation);
+    }
 }
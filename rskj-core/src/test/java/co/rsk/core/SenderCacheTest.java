@@ -0,0 +1,67 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core;
+
+import co.rsk.crypto.Keccak256;
+import org.ethereum.crypto.HashUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SenderCacheTest {
+    private static final Address SENDER = new Address("0000000000000000000000000000000000000001");
+
+    @Test
+    public void getCachedSender() {
+        SenderCache cache = new SenderCache(10);
+        Keccak256 hash = hash(1);
+
+        Assert.assertNull(cache.getSender(hash));
+
+        cache.putSender(hash, SENDER);
+
+        Assert.assertEquals(SENDER, cache.getSender(hash));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(0.5, cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedSender() {
+        SenderCache cache = new SenderCache(2);
+
+        cache.putSender(hash(1), SENDER);
+        cache.putSender(hash(2), SENDER);
+        cache.getSender(hash(1));
+        cache.putSender(hash(3), SENDER);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.getSender(hash(1)));
+        Assert.assertNull(cache.getSender(hash(2)));
+        Assert.assertNotNull(cache.getSender(hash(3)));
+    }
+
+    @Test
+    public void hitRateWithoutLookups() {
+        Assert.assertEquals(0, new SenderCache(10).getHitRate(), 0.0);
+    }
+
+    private static Keccak256 hash(int n) {
+        return new Keccak256(HashUtil.keccak256(new byte[] { (byte) n }));
+    }
+}
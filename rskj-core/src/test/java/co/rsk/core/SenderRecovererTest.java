@@ -0,0 +1,124 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core;
+
+import co.rsk.config.TestSystemProperties;
+import org.ethereum.core.Transaction;
+import org.ethereum.crypto.ECKey;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SenderRecovererTest {
+    private static final TestSystemProperties config = new TestSystemProperties();
+
+    @Test
+    public void recoverSendersUsingWorkers() {
+        List<ECKey> keys = new ArrayList<>();
+        List<Transaction> txs = createTransactions(10, keys);
+
+        SenderRecoverer recoverer = new SenderRecoverer(3);
+        recoverer.recover(txs);
+
+        for (int k = 0; k < txs.size(); k++) {
+            Assert.assertEquals(new Address(keys.get(k).getAddress()), Whitebox.getInternalState(txs.get(k), "sender"));
+        }
+
+        recoverer.shutdown();
+    }
+
+    @Test
+    public void recoverSendersWithoutWorkers() {
+        List<ECKey> keys = new ArrayList<>();
+        List<Transaction> txs = createTransactions(3, keys);
+
+        new SenderRecoverer(0).recover(txs);
+
+        for (int k = 0; k < txs.size(); k++) {
+            Assert.assertEquals(new Address(keys.get(k).getAddress()), Whitebox.getInternalState(txs.get(k), "sender"));
+        }
+    }
+
+    @Test
+    public void recoverSendersAsync() {
+        List<ECKey> keys = new ArrayList<>();
+        List<Transaction> txs = createTransactions(10, keys);
+
+        SenderRecoverer recoverer = new SenderRecoverer(2);
+        recoverer.recoverAsync(txs);
+
+        // the sender is returned even if its recovery is still in progress
+        for (int k = 0; k < txs.size(); k++) {
+            Assert.assertEquals(new Address(keys.get(k).getAddress()), txs.get(k).getSender());
+        }
+
+        recoverer.shutdown();
+    }
+
+    @Test
+    public void recoverAsyncWithoutWorkersDoesNothing() {
+        List<Transaction> txs = createTransactions(2, new ArrayList<>());
+
+        new SenderRecoverer(0).recoverAsync(txs);
+
+        for (Transaction tx : txs) {
+            Assert.assertNull(Whitebox.getInternalState(tx, "sender"));
+        }
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkRecoverSenders() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int ntxs = 2000;
+
+        List<Transaction> txs = createTransactions(ntxs, new ArrayList<>());
+        long start = System.nanoTime();
+        new SenderRecoverer(0).recover(txs);
+        long sequential = System.nanoTime() - start;
+
+        txs = createTransactions(ntxs, new ArrayList<>());
+        SenderRecoverer recoverer = new SenderRecoverer(threads);
+        start = System.nanoTime();
+        recoverer.recover(txs);
+        long parallel = System.nanoTime() - start;
+        recoverer.shutdown();
+
+        System.out.println(String.format("%d txs: sequential %d us/tx, %d threads %d us/tx", ntxs, sequential / ntxs / 1000, threads, parallel / ntxs / 1000));
+    }
+
+    private static List<Transaction> createTransactions(int ntxs, List<ECKey> keys) {
+        List<Transaction> txs = new ArrayList<>();
+
+        for (int k = 0; k < ntxs; k++) {
+            ECKey key = new ECKey();
+            Transaction tx = new Transaction(config, "0000000000000000000000000000000000000001", BigInteger.ONE, BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(21000));
+            tx.sign(key.getPrivKeyBytes());
+            keys.add(key);
+            txs.add(tx);
+        }
+
+        return txs;
+    }
+}
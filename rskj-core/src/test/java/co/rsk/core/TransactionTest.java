@@ -188,4 +188,21 @@ public class TransactionTest {
         Transaction tx = new Transaction(config, "cd2a3d9f938e13cd947ec05abc7fe734df8dd826", BigInteger.ONE, BigInteger.TEN, BigInteger.ONE, BigInteger.valueOf(21000L));
         Assert.assertFalse(tx.isContractCreation());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void senderIsRecoveredOnceForTheSameTransaction() {
+        ECKey key = new ECKey();
+        Transaction tx = new Transaction(config, "cd2a3d9f938e13cd947ec05abc7fe734df8dd826", BigInteger.ONE, BigInteger.TEN, BigInteger.ONE, BigInteger.valueOf(21000L));
+        tx.sign(key.getPrivKeyBytes());
+
+        SenderCache cache = Transaction.getSenderCache();
+
+        Assert.assertEquals(new Address(key.getAddress()), tx.getSender());
+
+        long hits = cache.getHits();
+        Transaction received = new ImmutableTransaction(tx.getEncoded());
+
+        Assert.assertEquals(new Address(key.getAddress()), received.getSender());
+        Assert.assertTrue(cache.getHits() > hits);
+    }
+}
@@ -20,6 +20,7 @@ package co.rsk.core.bc;
 
 import co.rsk.blockchain.utils.BlockGenerator;
 import co.rsk.config.TestSystemProperties;
+import co.rsk.core.Address;
 import co.rsk.core.Coin;
 import co.rsk.db.RepositoryImpl;
 import co.rsk.db.TrieStorePoolOnMemory;
@@ -39,10 +40,12 @@ import org.ethereum.net.p2p.HelloMessage;
 import org.ethereum.net.rlpx.Node;
 import org.ethereum.net.server.Channel;
 import org.ethereum.util.RLP;
+import org.ethereum.vm.DataWord;
 import org.ethereum.vm.PrecompiledContracts;
 import org.ethereum.vm.program.invoke.ProgramInvokeFactoryImpl;
 import org.ethereum.vm.trace.ProgramTrace;
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.bouncycastle.util.BigIntegers;
 import org.bouncycastle.util.encoders.Hex;
@@ -273,6 +276,298 @@ public class BlockExecutorTest {
         Assert.assertEquals(BigInteger.valueOf(60000 - 42000 - 20), accountState.getBalance().asBigInteger());
     }
 
+    @Test
+    public void executeBlockWithManyTransactionsWithAndWithoutIntermediateStateRoots() {
+        Repository repository = new RepositoryImpl(new Trie(new TrieStore(new HashMapDB()), true), new HashMapDB(), new TrieStorePoolOnMemory());
+        Block block = createBlockWithTransfers(repository, 10);
+
+        BlockResult result = createExecutor(repository, false).execute(block, repository.getRoot(), false);
+        BlockResult intermediateResult = createExecutor(repository, true).execute(block, repository.getRoot(), false);
+
+        Assert.assertEquals(10, result.getTransactionReceipts().size());
+        Assert.assertEquals(210000, result.getGasUsed());
+        Assert.assertFalse(Arrays.equals(repository.getRoot(), result.getStateRoot()));
+        Assert.assertArrayEquals(intermediateResult.getStateRoot(), result.getStateRoot());
+        Assert.assertArrayEquals(intermediateResult.getReceiptsRoot(), result.getReceiptsRoot());
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkExecuteBlockWithManyTransactions() {
+        int[] ntxs = { 100, 500, 1000 };
+
+        for (int n : ntxs) {
+            Repository repository = new RepositoryImpl(new Trie(new TrieStore(new HashMapDB()), true), new HashMapDB(), new TrieStorePoolOnMemory());
+            Block block = createBlockWithTransfers(repository, n);
+
+            for (boolean intermediateStateRoots : new boolean[] { true, false }) {
+                BlockExecutor executor = createExecutor(repository, intermediateStateRoots);
+
+                // warm up
+                executor.execute(block, repository.getRoot(), false);
+
+                long start = System.nanoTime();
+                BlockResult result = executor.execute(block, repository.getRoot(), false);
+                long millis = (System.nanoTime() - start) / 1000000;
+
+                Assert.assertEquals(n, result.getTransactionReceipts().size());
+
+                System.out.println(String.format("%d txs intermediate state roots %s: %d ms, %d tx/s",
+                        n, intermediateStateRoots, millis, millis == 0 ? 0 : n * 1000L / millis));
+            }
+        }
+    }
+
+    @Test
+    public void executeBlockWithIndependentTransfersInParallel() {
+        Repository repository = new RepositoryImpl(new Trie(new TrieStore(new HashMapDB()), true), new HashMapDB(), new TrieStorePoolOnMemory());
+        Block block = createBlockWithIndependentTransfers(repository, 20);
+
+        BlockResult expected = createExecutor(repository, false).execute(block, repository.getRoot(), false);
+
+        BlockExecutor executor = createExecutor(repository, false, 4);
+        BlockResult result = executor.execute(block, repository.getRoot(), false);
+
+        assertSameResult(expected, result);
+        Assert.assertEquals(20, executor.getSpeculativeExecutor().getSpeculatedTransactions());
+        Assert.assertEquals(0, executor.getSpeculativeExecutor().getConflictingTransactions());
+        Assert.assertEquals(0, executor.getSpeculativeExecutor().getReexecutedTransactions());
+    }
+
+    @Test
+    public void executeBlockWithTransfersFromTheSameSenderInParallel() {
+        Repository repository = new RepositoryImpl(new Trie(new TrieStore(new HashMapDB()), true), new HashMapDB(), new TrieStorePoolOnMemory());
+        Block block = createBlockWithTransfers(repository, 10);
+
+        BlockResult expected = createExecutor(repository, false).execute(block, repository.getRoot(), false);
+
+        BlockExecutor executor = createExecutor(repository, false, 4);
+        BlockResult result = executor.execute(block, repository.getRoot(), false);
+
+        assertSameResult(expected, result);
+        // only the first transaction has the initial sender nonce
+        Assert.assertEquals(10, executor.getSpeculativeExecutor().getSpeculatedTransactions());
+        Assert.assertEquals(9, executor.getSpeculativeExecutor().getReexecutedTransactions());
+    }
+
+    @Test
+    public void executeBlockWithCallsToHotContractInParallel() {
+        Repository repository = new RepositoryImpl(new Trie(new TrieStore(new HashMapDB()), true), new HashMapDB(), new TrieStorePoolOnMemory());
+        // PUSH1 0 SLOAD PUSH1 1 ADD PUSH1 0 SSTORE
+        Block block = createBlockWithContractCalls(repository, 10, Hex.decode("600054600101600055"));
+
+        BlockResult expected = createExecutor(repository, false).execute(block, repository.getRoot(), false);
+
+        BlockExecutor executor = createExecutor(repository, false, 4);
+        BlockResult result = executor.execute(block, repository.getRoot(), false);
+
+        assertSameResult(expected, result);
+        Assert.assertEquals(9, executor.getSpeculativeExecutor().getConflictingTransactions());
+
+        Repository finalRepository = repository.getSnapshotTo(result.getStateRoot());
+        Assert.assertEquals(new DataWord(10), finalRepository.getStorageValue(new Address(contractAddress()), DataWord.ZERO));
+    }
+
+    @Test
+    public void executeBlockWithCallsWritingDistinctStorageCellsInParallel() {
+        Repository repository = new RepositoryImpl(new Trie(new TrieStore(new HashMapDB()), true), new HashMapDB(), new TrieStorePoolOnMemory());
+        // PUSH1 1 CALLER SSTORE
+        Block block = createBlockWithContractCalls(repository, 10, Hex.decode("60013355"));
+
+        BlockResult expected = createExecutor(repository, false).execute(block, repository.getRoot(), false);
+
+        BlockExecutor executor = createExecutor(repository, false, 4);
+        BlockResult result = executor.execute(block, repository.getRoot(), false);
+
+        assertSameResult(expected, result);
+        Assert.assertEquals(0, executor.getSpeculativeExecutor().getConflictingTransactions());
+        Assert.assertEquals(0, executor.getSpeculativeExecutor().getReexecutedTransactions());
+
+        Repository finalRepository = repository.getSnapshotTo(result.getStateRoot());
+        Assert.assertEquals(10, finalRepository.getStorageKeysCount(new Address(contractAddress())));
+    }
+
+    @Test
+    public void executeBlockWithInvalidTransactionInParallel() {
+        Repository repository = new RepositoryImpl(new Trie(new TrieStore(new HashMapDB()), true), new HashMapDB(), new TrieStorePoolOnMemory());
+        Repository track = repository.startTracking();
+
+        Account account = createAccount("acctest1", track, Coin.valueOf(30000));
+        Account account2 = createAccount("acctest2", track, Coin.valueOf(30000));
+        Account account3 = createAccount("acctest3", track, Coin.ZERO);
+
+        track.commit();
+
+        List<Transaction> txs = new ArrayList<>();
+        txs.add(createTransaction(account, account3, BigInteger.TEN, BigInteger.ZERO));
+        txs.add(createTransaction(account3, account2, BigInteger.TEN, BigInteger.ZERO));
+        txs.add(createTransaction(account2, account3, BigInteger.TEN, BigInteger.ZERO));
+
+        BlockGenerator blockGenerator = new BlockGenerator();
+        Block block = blockGenerator.createChildBlock(blockGenerator.getGenesisBlock(), txs, new ArrayList<>(), 1, null);
+
+        BlockExecutor executor = createExecutor(repository, false, 4);
+
+        BlockResult expected = createExecutor(repository, false).execute(block, repository.getRoot(), true);
+        BlockResult result = executor.execute(block, repository.getRoot(), true);
+
+        assertSameResult(expected, result);
+        Assert.assertEquals(2, result.getExecutedTransactions().size());
+
+        Assert.assertSame(BlockResult.INTERRUPTED_EXECUTION_BLOCK_RESULT, executor.execute(block, repository.getRoot(), false));
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkExecuteBlockInParallel() {
+        int ntxs = 1000;
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        for (int n = 0; n < 3; n++) {
+            Repository repository = new RepositoryImpl(new Trie(new TrieStore(new HashMapDB()), true), new HashMapDB(), new TrieStorePoolOnMemory());
+            Block block;
+            String name;
+
+            if (n == 0) {
+                name = "independent transfers";
+                block = createBlockWithIndependentTransfers(repository, ntxs);
+            } else if (n == 1) {
+                name = "hot contract distinct cells";
+                block = createBlockWithContractCalls(repository, ntxs, Hex.decode("60013355"));
+            } else {
+                name = "hot contract same cell";
+                block = createBlockWithContractCalls(repository, ntxs, Hex.decode("600054600101600055"));
+            }
+
+            BlockExecutor sequential = createExecutor(repository, false);
+            BlockExecutor parallel = createExecutor(repository, false, threads);
+
+            // warm up
+            sequential.execute(block, repository.getRoot(), false);
+            parallel.execute(block, repository.getRoot(), false);
+
+            long start = System.nanoTime();
+            BlockResult expected = sequential.execute(block, repository.getRoot(), false);
+            long sequentialMillis = (System.nanoTime() - start) / 1000000;
+
+            start = System.nanoTime();
+            BlockResult result = parallel.execute(block, repository.getRoot(), false);
+            long parallelMillis = (System.nanoTime() - start) / 1000000;
+
+            assertSameResult(expected, result);
+
+            System.out.println(String.format("%s, %d txs: sequential %d ms, %d threads %d ms, conflict rate %.2f",
+                    name, ntxs, sequentialMillis, threads, parallelMillis, parallel.getSpeculativeExecutor().getConflictRate()));
+        }
+    }
+
+    private static void assertSameResult(BlockResult expected, BlockResult result) {
+        Assert.assertArrayEquals(expected.getStateRoot(), result.getStateRoot());
+        Assert.assertArrayEquals(expected.getReceiptsRoot(), result.getReceiptsRoot());
+        Assert.assertArrayEquals(expected.getLogsBloom(), result.getLogsBloom());
+        Assert.assertEquals(expected.getGasUsed(), result.getGasUsed());
+        Assert.assertEquals(expected.getPaidFees(), result.getPaidFees());
+        Assert.assertEquals(expected.getExecutedTransactions(), result.getExecutedTransactions());
+        Assert.assertEquals(expected.getTransactionReceipts().size(), result.getTransactionReceipts().size());
+
+        for (int k = 0; k < expected.getTransactionReceipts().size(); k++) {
+            Assert.assertArrayEquals(expected.getTransactionReceipts().get(k).getEncoded(), result.getTransactionReceipts().get(k).getEncoded());
+        }
+    }
+
+    private static Block createBlockWithIndependentTransfers(Repository repository, int ntxs) {
+        Repository track = repository.startTracking();
+        List<Transaction> txs = new ArrayList<>();
+
+        for (int k = 0; k < ntxs; k++) {
+            Account sender = createAccount("sender" + k, track, Coin.valueOf(21010L));
+            Account receiver = createAccount("receiver" + k, track, Coin.ZERO);
+            txs.add(createTransaction(sender, receiver, BigInteger.TEN, BigInteger.ZERO));
+        }
+
+        track.commit();
+
+        BlockGenerator blockGenerator = new BlockGenerator();
+        byte[] gasLimit = BigInteger.valueOf(ntxs * 21000L).toByteArray();
+
+        return blockGenerator.createChildBlock(blockGenerator.getGenesisBlock(), txs, new ArrayList<>(), 1, null, gasLimit);
+    }
+
+    private static Block createBlockWithContractCalls(Repository repository, int ntxs, byte[] code) {
+        Repository track = repository.startTracking();
+        Address contract = new Address(contractAddress());
+
+        track.createAccount(contract);
+        track.saveCode(contract, code);
+
+        List<Transaction> txs = new ArrayList<>();
+
+        for (int k = 0; k < ntxs; k++) {
+            Account sender = createAccount("sender" + k, track, Coin.valueOf(100000L));
+            Transaction tx = new Transaction(config, Hex.toHexString(contractAddress()), BigInteger.ZERO, BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(100000));
+            tx.sign(sender.getEcKey().getPrivKeyBytes());
+            txs.add(tx);
+        }
+
+        track.commit();
+
+        BlockGenerator blockGenerator = new BlockGenerator();
+        byte[] gasLimit = BigInteger.valueOf(ntxs * 100000L).toByteArray();
+
+        return blockGenerator.createChildBlock(blockGenerator.getGenesisBlock(), txs, new ArrayList<>(), 1, null, gasLimit);
+    }
+
+    private static byte[] contractAddress() {
+        return Hex.decode("0000000000000000000000000000000000c0ffee");
+    }
+
+    private static Block createBlockWithTransfers(Repository repository, int ntxs) {
+        Repository track = repository.startTracking();
+
+        Account sender = createAccount("acctest1", track, Coin.valueOf(ntxs * 21010L));
+        List<Transaction> txs = new ArrayList<>();
+
+        for (int k = 0; k < ntxs; k++) {
+            Account receiver = createAccount("receiver" + k, track, Coin.ZERO);
+            txs.add(createTransaction(sender, receiver, BigInteger.TEN, BigInteger.valueOf(k)));
+        }
+
+        track.commit();
+
+        BlockGenerator blockGenerator = new BlockGenerator();
+        byte[] gasLimit = BigInteger.valueOf(ntxs * 21000L).toByteArray();
+
+        return blockGenerator.createChildBlock(blockGenerator.getGenesisBlock(), txs, new ArrayList<>(), 1, null, gasLimit);
+    }
+
+    private static BlockExecutor createExecutor(Repository repository, boolean intermediateStateRoots) {
+        return createExecutor(repository, intermediateStateRoots, 1);
+    }
+
+    private static BlockExecutor createExecutor(Repository repository, boolean intermediateStateRoots, int executionThreads) {
+        final ProgramInvokeFactoryImpl programInvokeFactory = new ProgramInvokeFactoryImpl();
+
+        return new BlockExecutor(repository, (tx1, coinbase, track1, block1, totalGasUsed1) -> new TransactionExecutor(
+                tx1,
+                block1.getCoinbase(),
+                track1,
+                null,
+                null,
+                programInvokeFactory,
+                block1,
+                null,
+                totalGasUsed1,
+                config.getVmConfig(),
+                config.getBlockchainConfig(),
+                config.playVM(),
+                config.vmTrace(),
+                new PrecompiledContracts(config),
+                config.databaseDir(),
+                config.vmTraceDir(),
+                config.vmTraceCompressed()
+        ), intermediateStateRoots, executionThreads);
+    }
+
     @Test
     public void executeAndFillBlockWithOneTransaction() {
         TestObjects objects = generateBlockWithOneTransaction();
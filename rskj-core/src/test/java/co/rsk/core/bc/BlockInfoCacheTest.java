@@ -0,0 +1,105 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core.bc;
+
+import co.rsk.core.BlockDifficulty;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+public class BlockInfoCacheTest {
+    @Test
+    public void getUnknownBlockInfo() {
+        BlockInfoCache cache = new BlockInfoCache(10);
+
+        Assert.assertNull(cache.getTotalDifficulty(1, createHash(1)));
+        Assert.assertNull(cache.getTotalDifficulty(-1, createHash(1)));
+    }
+
+    @Test
+    public void addAndGetBlockInfo() {
+        BlockInfoCache cache = new BlockInfoCache(10);
+
+        cache.addBlockInfo(1, createHash(1), new BlockDifficulty(BigInteger.TEN));
+
+        Assert.assertEquals(new BlockDifficulty(BigInteger.TEN), cache.getTotalDifficulty(1, createHash(1)));
+        Assert.assertNull(cache.getTotalDifficulty(2, createHash(1)));
+    }
+
+    @Test
+    public void addManyBlocksAtTheSameLevel() {
+        BlockInfoCache cache = new BlockInfoCache(10);
+
+        for (int k = 1; k <= 5; k++) {
+            cache.addBlockInfo(7, createHash(k), new BlockDifficulty(BigInteger.valueOf(k)));
+        }
+
+        for (int k = 1; k <= 5; k++) {
+            Assert.assertEquals(new BlockDifficulty(BigInteger.valueOf(k)), cache.getTotalDifficulty(7, createHash(k)));
+        }
+    }
+
+    @Test
+    public void updateBlockInfo() {
+        BlockInfoCache cache = new BlockInfoCache(10);
+
+        cache.addBlockInfo(1, createHash(1), new BlockDifficulty(BigInteger.ONE));
+        cache.addBlockInfo(1, createHash(1), new BlockDifficulty(BigInteger.TEN));
+
+        Assert.assertEquals(new BlockDifficulty(BigInteger.TEN), cache.getTotalDifficulty(1, createHash(1)));
+    }
+
+    @Test
+    public void overwriteOldLevels() {
+        BlockInfoCache cache = new BlockInfoCache(10);
+
+        cache.addBlockInfo(1, createHash(1), new BlockDifficulty(BigInteger.ONE));
+        cache.addBlockInfo(11, createHash(11), new BlockDifficulty(BigInteger.TEN));
+
+        Assert.assertNull(cache.getTotalDifficulty(1, createHash(1)));
+        Assert.assertEquals(new BlockDifficulty(BigInteger.TEN), cache.getTotalDifficulty(11, createHash(11)));
+    }
+
+    @Test
+    public void removeLevel() {
+        BlockInfoCache cache = new BlockInfoCache(10);
+
+        cache.addBlockInfo(1, createHash(1), new BlockDifficulty(BigInteger.ONE));
+        cache.removeLevel(11);
+
+        Assert.assertNotNull(cache.getTotalDifficulty(1, createHash(1)));
+
+        cache.removeLevel(1);
+
+        Assert.assertNull(cache.getTotalDifficulty(1, createHash(1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidNumberOfLevels() {
+        new BlockInfoCache(0);
+    }
+
+    private static byte[] createHash(int n) {
+        byte[] hash = new byte[32];
+        hash[0] = (byte) n;
+        hash[31] = (byte) (n >> 8);
+        return hash;
+    }
+}
@@ -25,8 +25,11 @@ import co.rsk.core.Coin;
 import co.rsk.core.Address;
 import co.rsk.db.RepositoryImpl;
 import co.rsk.db.TrieStorePoolOnMemory;
+import co.rsk.test.World;
+import co.rsk.test.builders.AccountBuilder;
 import co.rsk.test.builders.BlockBuilder;
 import co.rsk.test.builders.BlockChainBuilder;
+import co.rsk.test.builders.TransactionBuilder;
 import co.rsk.trie.Trie;
 import co.rsk.trie.TrieStore;
 import co.rsk.validators.BlockValidator;
@@ -39,11 +42,13 @@ import org.ethereum.datasource.KeyValueDataSource;
 import org.ethereum.db.IndexedBlockStore;
 import org.ethereum.db.ReceiptStore;
 import org.ethereum.db.ReceiptStoreImpl;
+import org.ethereum.db.TransactionLocation;
 import org.ethereum.util.FastByteComparisons;
 import org.ethereum.vm.PrecompiledContracts;
 import org.ethereum.vm.program.invoke.ProgramInvokeFactoryImpl;
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.Mockito;
 import org.mapdb.DB;
 
 import java.math.BigInteger;
@@ -652,6 +657,26 @@ public class BlockchainTest {
         Assert.assertEquals(block1.getHash(), bestBlock.getHash());
     }
 
+    @Test
+    public void switchToOtherChainUsingCachedTotalDifficulties() {
+        IndexedBlockStore blockStore = Mockito.spy(new IndexedBlockStore(new HashMap<>(), new HashMapDB(), null));
+        Blockchain blockChain = new BlockChainBuilder().setBlockStore(blockStore).build();
+        Block genesis = getGenesisBlock(blockChain);
+        BlockGenerator blockGenerator = new BlockGenerator();
+        Block block1 = blockGenerator.createChildBlock(genesis,0,2l);
+        Block block1b = blockGenerator.createChildBlock(genesis,0,1l);
+        Block block2b = blockGenerator.createChildBlock(block1b,0,2l);
+
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, blockChain.tryToConnect(genesis));
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, blockChain.tryToConnect(block1));
+        Assert.assertEquals(ImportResult.IMPORTED_NOT_BEST, blockChain.tryToConnect(block1b));
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, blockChain.tryToConnect(block2b));
+        Assert.assertEquals(ImportResult.EXIST, blockChain.tryToConnect(block1));
+
+        Assert.assertEquals(block2b.getHash(), blockChain.getBestBlock().getHash());
+        Mockito.verify(blockStore, Mockito.never()).getTotalDifficultyForHash(Mockito.any());
+    }
+
     @Test
     public void getUnknownBlockByHash() {
         Blockchain blockChain = createBlockChain();
@@ -758,6 +783,126 @@ public class BlockchainTest {
         Assert.assertNotNull(blockChain.getTransactionInfo(objects.getTransaction().getHash().getBytes()));
     }
 
+    @Test
+    public void persistReceiptsAndTransactionLocationsUsingExecutor() {
+        World world = new World();
+        Blockchain blockChain = world.getBlockChain();
+
+        Account sender = new AccountBuilder(world).name("sender").balance(Coin.valueOf(2000000)).build();
+        Account receiver = new AccountBuilder().name("receiver").build();
+        Transaction tx = new TransactionBuilder().sender(sender).receiver(receiver).value(BigInteger.valueOf(1000000)).build();
+        List<Transaction> txs = new ArrayList<>();
+        txs.add(tx);
+
+        Block block1 = new BlockBuilder(world).difficulty(10).parent(blockChain.getBestBlock()).transactions(txs).build();
+
+        List<Runnable> tasks = new ArrayList<>();
+        blockChain.setPersistenceExecutor(tasks::add);
+
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, blockChain.tryToConnect(block1));
+        Assert.assertEquals(block1.getHash(), blockChain.getBestBlock().getHash());
+
+        Assert.assertFalse(tasks.isEmpty());
+        Assert.assertNull(blockChain.getTransactionInfo(tx.getHash().getBytes()));
+        Assert.assertNull(blockChain.getTransactionLocation(tx.getHash().getBytes()));
+
+        tasks.forEach(Runnable::run);
+
+        Assert.assertNotNull(blockChain.getTransactionInfo(tx.getHash().getBytes()));
+        Assert.assertNotNull(blockChain.getTransactionLocation(tx.getHash().getBytes()));
+    }
+
+    @Test
+    public void persistBlocksOfOtherThreadsWithoutExecutor() throws InterruptedException {
+        World world = new World();
+        Blockchain blockChain = world.getBlockChain();
+
+        Account sender = new AccountBuilder(world).name("sender").balance(Coin.valueOf(2000000)).build();
+        Account receiver = new AccountBuilder().name("receiver").build();
+        Transaction tx = new TransactionBuilder().sender(sender).receiver(receiver).value(BigInteger.valueOf(1000000)).build();
+        List<Transaction> txs = new ArrayList<>();
+        txs.add(tx);
+
+        Block block1 = new BlockBuilder(world).difficulty(10).parent(blockChain.getBestBlock()).transactions(txs).build();
+
+        List<Runnable> tasks = new ArrayList<>();
+        blockChain.setPersistenceExecutor(tasks::add);
+
+        List<ImportResult> results = new ArrayList<>();
+        Thread thread = new Thread(() -> results.add(blockChain.tryToConnect(block1)));
+        thread.start();
+        thread.join();
+
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, results.get(0));
+        Assert.assertTrue(tasks.isEmpty());
+        Assert.assertNotNull(blockChain.getTransactionInfo(tx.getHash().getBytes()));
+
+        blockChain.setPersistenceExecutor(null);
+    }
+
+    @Test
+    public void reportConnectionPhasesToListener() {
+        Blockchain blockChain = BlockChainBuilder.ofSize(0);
+        Block block1 = new BlockGenerator().createChildBlock(blockChain.getBestBlock());
+        List<BlockConnectListener.Phase> phases = new ArrayList<>();
+
+        blockChain.setConnectListener((block, phase, nanos) -> {
+            Assert.assertSame(block1, block);
+            Assert.assertTrue(nanos >= 0);
+            phases.add(phase);
+        });
+
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, blockChain.tryToConnect(block1));
+        Assert.assertEquals(java.util.Arrays.asList(BlockConnectListener.Phase.values()), phases);
+
+        blockChain.setConnectListener(null);
+        phases.clear();
+
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, blockChain.tryToConnect(new BlockGenerator().createChildBlock(block1)));
+        Assert.assertTrue(phases.isEmpty());
+    }
+
+    @Test
+    public void getTransactionLocationInMainChain() {
+        World world = new World();
+        Blockchain blockChain = world.getBlockChain();
+
+        Account sender = new AccountBuilder(world).name("sender").balance(Coin.valueOf(2000000)).build();
+        Account receiver = new AccountBuilder().name("receiver").build();
+        Transaction tx = new TransactionBuilder().sender(sender).receiver(receiver).value(BigInteger.valueOf(1000000)).build();
+        List<Transaction> txs = new ArrayList<>();
+        txs.add(tx);
+
+        Block genesis = blockChain.getBestBlock();
+        Block block1 = new BlockBuilder(world).difficulty(10).parent(genesis).transactions(txs).build();
+        Block block1b = new BlockBuilder(world).difficulty(9).parent(genesis).build();
+        Block block2b = new BlockBuilder(world).difficulty(11).parent(block1b).build();
+        Block block2 = new BlockBuilder(world).difficulty(10).parent(block1).build();
+        Block block3 = new BlockBuilder(world).difficulty(10).parent(block2).build();
+
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, blockChain.tryToConnect(block1));
+
+        TransactionLocation location = blockChain.getTransactionLocation(tx.getHash().getBytes());
+
+        Assert.assertNotNull(location);
+        Assert.assertEquals(1, location.getBlockNumber());
+        Assert.assertArrayEquals(block1.getHash().getBytes(), location.getBlockHash());
+        Assert.assertEquals(0, location.getIndex());
+
+        Assert.assertEquals(ImportResult.IMPORTED_NOT_BEST, blockChain.tryToConnect(block1b));
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, blockChain.tryToConnect(block2b));
+
+        Assert.assertNull(blockChain.getTransactionLocation(tx.getHash().getBytes()));
+
+        Assert.assertEquals(ImportResult.IMPORTED_NOT_BEST, blockChain.tryToConnect(block2));
+        Assert.assertEquals(ImportResult.IMPORTED_BEST, blockChain.tryToConnect(block3));
+
+        location = blockChain.getTransactionLocation(tx.getHash().getBytes());
+
+        Assert.assertNotNull(location);
+        Assert.assertArrayEquals(block1.getHash().getBytes(), location.getBlockHash());
+    }
+
     @Test
     public void listenTransactionSummary() {
         BlockExecutorTest.TestObjects objects = BlockExecutorTest.generateBlockWithOneTransaction();
@@ -918,7 +1063,7 @@ public class BlockchainTest {
 
         TransactionPoolImpl transactionPool = new TransactionPoolImpl(config, repository, blockStore, receiptStore, null, listener, 10, 100);
         final ProgramInvokeFactoryImpl programInvokeFactory = new ProgramInvokeFactoryImpl();
-        return new Blockchain(repository, blockStore, receiptStore, transactionPool, listener, blockValidator, false, 1, new BlockExecutor(repository, (tx1, coinbase, track1, block1, totalGasUsed1) -> new TransactionExecutor(
+        return new Blockchain(repository, blockStore, receiptStore, null, transactionPool, listener, blockValidator, false, 1, new BlockExecutor(repository, (tx1, coinbase, track1, block1, totalGasUsed1) -> new TransactionExecutor(
                 tx1,
                 block1.getCoinbase(),
                 track1,
@@ -0,0 +1,177 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core.bc;
+
+import co.rsk.blockchain.utils.BlockGenerator;
+import co.rsk.validators.BlockCompositeRule;
+import co.rsk.validators.BlockParentCompositeRule;
+import co.rsk.validators.BlockParentDependantValidationRule;
+import co.rsk.validators.BlockValidationRule;
+import org.ethereum.core.Block;
+import org.ethereum.db.BlockStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ParallelBlockValidatorTest {
+    private Block genesis;
+    private Block block;
+    private BlockStore blockStore;
+
+    @Before
+    public void setup() {
+        BlockGenerator blockGenerator = new BlockGenerator();
+        genesis = blockGenerator.getGenesisBlock();
+        block = blockGenerator.createChildBlock(genesis);
+
+        blockStore = mock(BlockStore.class);
+        when(blockStore.getBlockByHash(genesis.getHash().getBytes())).thenReturn(genesis);
+    }
+
+    @Test
+    public void validBlockWhenAllRulesAreValid() {
+        AtomicBoolean receivedParent = new AtomicBoolean();
+
+        BlockParentCompositeRule parentRules = new BlockParentCompositeRule(
+                (b, p) -> true,
+                (b, p) -> { receivedParent.set(p == genesis); return true; });
+        BlockCompositeRule rules = new BlockCompositeRule(b -> true, b -> true, b -> true);
+
+        ParallelBlockValidator validator = new ParallelBlockValidator(blockStore, parentRules, rules, 2);
+
+        Assert.assertTrue(validator.isValid(block));
+        Assert.assertTrue(receivedParent.get());
+        Assert.assertEquals(5, validator.getMetrics().size());
+
+        for (ParallelBlockValidator.RuleMetrics metrics : validator.getMetrics()) {
+            Assert.assertEquals(1, metrics.getCount());
+            Assert.assertEquals(0, metrics.getFailures());
+        }
+    }
+
+    @Test
+    public void invalidBlockWhenOneRuleIsInvalid() {
+        BlockParentCompositeRule parentRules = new BlockParentCompositeRule((b, p) -> true);
+        BlockCompositeRule rules = new BlockCompositeRule(b -> true, b -> false);
+
+        ParallelBlockValidator validator = new ParallelBlockValidator(blockStore, parentRules, rules, 3);
+
+        Assert.assertFalse(validator.isValid(block));
+    }
+
+    @Test
+    public void invalidBlockWhenRuleThrowsException() {
+        BlockParentDependantValidationRule parentRule = (b, p) -> { throw new IllegalStateException(); };
+        BlockValidationRule rule = b -> true;
+
+        ParallelBlockValidator validator = new ParallelBlockValidator(blockStore, parentRule, rule, 2);
+
+        Assert.assertFalse(validator.isValid(block));
+        Assert.assertEquals(1, validator.getMetrics().get(0).getFailures());
+    }
+
+    @Test
+    public void doNotInterruptRunningRuleWhenOtherRuleIsInvalid() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        BlockValidationRule slowRule = b -> {
+            started.countDown();
+
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+
+            finished.countDown();
+            return true;
+        };
+
+        BlockParentDependantValidationRule invalidRule = (b, p) -> {
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return false;
+        };
+
+        ParallelBlockValidator validator = new ParallelBlockValidator(blockStore, invalidRule, slowRule, 2);
+
+        Assert.assertFalse(validator.isValid(block));
+
+        release.countDown();
+
+        Assert.assertTrue(finished.await(10, TimeUnit.SECONDS));
+        Assert.assertFalse(interrupted.get());
+    }
+
+    @Test
+    public void skipPendingRulesWhenOtherRuleIsInvalid() throws InterruptedException {
+        AtomicBoolean checked = new AtomicBoolean();
+
+        // a single worker checks the parent rule first
+        ParallelBlockValidator validator = new ParallelBlockValidator(blockStore, (b, p) -> false, b -> { checked.set(true); return true; }, 1);
+
+        Assert.assertFalse(validator.isValid(block));
+
+        ExecutorService executorService = Whitebox.getInternalState(validator, "executorService");
+        executorService.shutdown();
+
+        Assert.assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertFalse(checked.get());
+        Assert.assertEquals(0, validator.getMetrics().get(1).getCount());
+    }
+
+    @Test
+    public void genesisIsValid() {
+        ParallelBlockValidator validator = new ParallelBlockValidator(blockStore, (b, p) -> false, b -> false, 2);
+
+        Assert.assertTrue(validator.isValid(genesis));
+    }
+
+    @Test
+    public void sameResultAsSequentialValidator() {
+        BlockParentCompositeRule parentRules = new BlockParentCompositeRule((b, p) -> p != null, (b, p) -> b.getNumber() == p.getNumber() + 1);
+        BlockCompositeRule rules = new BlockCompositeRule(b -> b.getNumber() > 0);
+
+        BlockValidatorImpl sequential = new BlockValidatorImpl(blockStore, parentRules, rules);
+        ParallelBlockValidator parallel = new ParallelBlockValidator(blockStore, parentRules, rules, 2);
+
+        Block orphan = new BlockGenerator().createChildBlock(block);
+
+        Assert.assertTrue(sequential.isValid(block));
+        Assert.assertTrue(parallel.isValid(block));
+        Assert.assertFalse(sequential.isValid(orphan));
+        Assert.assertFalse(parallel.isValid(orphan));
+    }
+}
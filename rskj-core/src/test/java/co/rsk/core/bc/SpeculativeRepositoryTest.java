@@ -0,0 +1,224 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core.bc;
+
+import co.rsk.core.Address;
+import co.rsk.core.Coin;
+import co.rsk.db.RepositoryImpl;
+import co.rsk.db.TrieStorePoolOnMemory;
+import co.rsk.trie.Trie;
+import co.rsk.trie.TrieStore;
+import org.ethereum.core.Repository;
+import org.ethereum.datasource.HashMapDB;
+import org.ethereum.db.RepositoryTrack;
+import org.ethereum.vm.DataWord;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class SpeculativeRepositoryTest {
+    private static final Address ACCOUNT = new Address("0000000000000000000000000000000000000001");
+    private static final Address CONTRACT = new Address("0000000000000000000000000000000000000002");
+
+    private Repository repository;
+    private Set<Address> written;
+
+    @Before
+    public void setup() {
+        repository = new RepositoryImpl(new Trie(new TrieStore(new HashMapDB()), true), new HashMapDB(), new TrieStorePoolOnMemory());
+
+        Repository track = repository.startTracking();
+        track.addBalance(ACCOUNT, Coin.valueOf(100));
+        track.createAccount(CONTRACT);
+        track.saveCode(CONTRACT, new byte[] { 0x00 });
+        track.addStorageRow(CONTRACT, new DataWord(1), new DataWord(1));
+        track.commit();
+
+        written = new HashSet<>();
+    }
+
+    @Test
+    public void readAccountChangedByOtherTrack() {
+        SpeculativeRepository reads = new SpeculativeRepository(repository, written, true);
+        Repository track = new RepositoryTrack(reads);
+
+        Assert.assertEquals(Coin.valueOf(100), track.getBalance(ACCOUNT));
+
+        Repository other = new RepositoryTrack(new SpeculativeRepository(repository, written, false));
+        other.addBalance(ACCOUNT, Coin.valueOf(1));
+        other.commit();
+
+        Assert.assertTrue(written.contains(ACCOUNT));
+        Assert.assertFalse(reads.hasSameReads(repository));
+    }
+
+    @Test
+    public void readAccountWrittenWithTheSameValues() {
+        SpeculativeRepository reads = new SpeculativeRepository(repository, written, true);
+        Repository track = new RepositoryTrack(reads);
+
+        Assert.assertEquals(Coin.valueOf(100), track.getBalance(ACCOUNT));
+
+        Repository other = new RepositoryTrack(new SpeculativeRepository(repository, written, false));
+        other.addBalance(ACCOUNT, Coin.ZERO);
+        other.commit();
+
+        Assert.assertTrue(written.contains(ACCOUNT));
+        Assert.assertTrue(reads.hasSameReads(repository));
+    }
+
+    @Test
+    public void recordReadsMadeDirectly() {
+        SpeculativeRepository reads = new SpeculativeRepository(repository, written, true);
+
+        Assert.assertEquals(Coin.valueOf(100), reads.getBalance(ACCOUNT));
+        Assert.assertEquals(new DataWord(1), reads.getStorageValue(CONTRACT, new DataWord(1)));
+        Assert.assertArrayEquals(new byte[] { 0x00 }, reads.getCode(CONTRACT));
+
+        Repository other = new RepositoryTrack(new SpeculativeRepository(repository, written, false));
+        other.addStorageRow(CONTRACT, new DataWord(1), new DataWord(2));
+        other.commit();
+
+        Assert.assertEquals(new DataWord(1), reads.getStorageValue(CONTRACT, new DataWord(1)));
+        Assert.assertFalse(reads.hasSameReads(repository));
+    }
+
+    @Test
+    public void applyAndRecordWritesMadeDirectly() {
+        SpeculativeRepository reads = new SpeculativeRepository(repository, written, true);
+
+        Assert.assertEquals(Coin.valueOf(100), reads.getBalance(ACCOUNT));
+
+        reads.addBalance(ACCOUNT, Coin.valueOf(10));
+
+        Assert.assertTrue(written.contains(ACCOUNT));
+        Assert.assertEquals(Coin.valueOf(110), repository.getBalance(ACCOUNT));
+        // the written account is read from the wrapped repository
+        Assert.assertEquals(Coin.valueOf(110), reads.getBalance(ACCOUNT));
+    }
+
+    @Test
+    public void commitAndRollbackTheWrappedRepository() {
+        Repository blockTrack = repository.startTracking();
+        SpeculativeRepository reads = new SpeculativeRepository(blockTrack, written, false);
+
+        reads.addBalance(ACCOUNT, Coin.valueOf(10));
+        reads.rollback();
+
+        Assert.assertEquals(Coin.valueOf(100), blockTrack.getBalance(ACCOUNT));
+
+        reads.addBalance(ACCOUNT, Coin.valueOf(5));
+        reads.commit();
+
+        Assert.assertEquals(Coin.valueOf(105), repository.getBalance(ACCOUNT));
+    }
+
+    @Test
+    public void discardRecordedReadsWhenSyncingToRoot() {
+        SpeculativeRepository reads = new SpeculativeRepository(repository, written, true);
+
+        Assert.assertEquals(Coin.valueOf(100), reads.getBalance(ACCOUNT));
+
+        Repository other = repository.startTracking();
+        other.addBalance(ACCOUNT, Coin.valueOf(10));
+        other.commit();
+
+        Assert.assertEquals(Coin.valueOf(100), reads.getBalance(ACCOUNT));
+
+        reads.syncToRoot(repository.getRoot());
+
+        Assert.assertEquals(Coin.valueOf(110), reads.getBalance(ACCOUNT));
+    }
+
+    @Test
+    public void readStorageCellNotChangedByOtherTrack() {
+        SpeculativeRepository reads = new SpeculativeRepository(repository, written, true);
+        Repository track = new RepositoryTrack(reads);
+
+        Assert.assertEquals(new DataWord(1), track.getStorageValue(CONTRACT, new DataWord(1)));
+
+        Repository other = new RepositoryTrack(new SpeculativeRepository(repository, written, false));
+        other.addStorageRow(CONTRACT, new DataWord(2), new DataWord(2));
+        other.commit();
+
+        Assert.assertTrue(written.contains(CONTRACT));
+        Assert.assertTrue(reads.hasSameReads(repository));
+    }
+
+    @Test
+    public void readStorageCellChangedByOtherTrack() {
+        SpeculativeRepository reads = new SpeculativeRepository(repository, written, true);
+        Repository track = new RepositoryTrack(reads);
+
+        Assert.assertNull(track.getStorageValue(CONTRACT, new DataWord(2)));
+
+        Repository other = new RepositoryTrack(new SpeculativeRepository(repository, written, false));
+        other.addStorageRow(CONTRACT, new DataWord(2), new DataWord(2));
+        other.commit();
+
+        Assert.assertFalse(reads.hasSameReads(repository));
+    }
+
+    @Test
+    public void commitStorageCellsOverChangedContract() {
+        SpeculativeRepository reads = new SpeculativeRepository(repository.getSnapshotTo(repository.getRoot()), written, true);
+        Repository track = new RepositoryTrack(reads);
+
+        track.addStorageRow(CONTRACT, new DataWord(3), new DataWord(3));
+
+        Repository other = new RepositoryTrack(new SpeculativeRepository(repository, written, false));
+        other.addStorageRow(CONTRACT, new DataWord(2), new DataWord(2));
+        other.commit();
+
+        Assert.assertTrue(reads.hasSameReads(repository));
+
+        reads.rebase(repository);
+        track.commit();
+
+        Assert.assertEquals(new DataWord(1), repository.getStorageValue(CONTRACT, new DataWord(1)));
+        Assert.assertEquals(new DataWord(2), repository.getStorageValue(CONTRACT, new DataWord(2)));
+        Assert.assertEquals(new DataWord(3), repository.getStorageValue(CONTRACT, new DataWord(3)));
+    }
+
+    @Test
+    public void excludedAccountIsNotValidatedNorCommitted() {
+        SpeculativeRepository reads = new SpeculativeRepository(repository, written, true);
+        Repository track = new RepositoryTrack(reads);
+
+        reads.startFinalization();
+        track.addBalance(ACCOUNT, Coin.valueOf(10));
+
+        Assert.assertTrue(reads.isReadOnlyInFinalization(ACCOUNT));
+
+        Repository other = new RepositoryTrack(new SpeculativeRepository(repository, written, false));
+        other.addBalance(ACCOUNT, Coin.valueOf(1));
+        other.commit();
+
+        reads.exclude(ACCOUNT);
+
+        Assert.assertTrue(reads.hasSameReads(repository));
+
+        track.commit();
+
+        Assert.assertEquals(Coin.valueOf(101), repository.getBalance(ACCOUNT));
+    }
+}
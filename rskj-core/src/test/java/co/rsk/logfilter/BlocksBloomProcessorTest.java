@@ -0,0 +1,160 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import co.rsk.blockchain.utils.BlockGenerator;
+import org.ethereum.core.Block;
+import org.ethereum.core.Bloom;
+import org.ethereum.datasource.HashMapDB;
+import org.ethereum.db.BlockStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BlocksBloomProcessorTest {
+    @Test
+    public void noSectionWithoutConfirmations() {
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(4, new HashMapDB());
+        BlocksBloomProcessor processor = new BlocksBloomProcessor(blocksBloomStore, createBlockStore(10), 5);
+
+        processor.processNewBlockNumber(7);
+
+        Assert.assertFalse(blocksBloomStore.hasBlockNumber(0));
+    }
+
+    @Test
+    public void buildSectionWhenConfirmed() {
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(4, new HashMapDB());
+        BlocksBloomProcessor processor = new BlocksBloomProcessor(blocksBloomStore, createBlockStore(10), 5);
+
+        processor.processNewBlockNumber(8);
+
+        BlocksBloom blocksBloom = blocksBloomStore.getBlocksBloomByNumber(2);
+
+        Assert.assertNotNull(blocksBloom);
+        Assert.assertEquals(0, blocksBloom.fromBlock());
+        Assert.assertEquals(3, blocksBloom.toBlock());
+
+        for (int k = 0; k < 4; k++) {
+            Assert.assertTrue(blocksBloom.matches(createBloom(k)));
+        }
+
+        Assert.assertFalse(blocksBloom.matches(createBloom(4)));
+        Assert.assertFalse(blocksBloomStore.hasBlockNumber(4));
+    }
+
+    @Test
+    public void buildSkippedSections() {
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(4, new HashMapDB());
+        BlocksBloomProcessor processor = new BlocksBloomProcessor(blocksBloomStore, createBlockStore(20), 0);
+
+        processor.processNewBlockNumber(3);
+        processor.processNewBlockNumber(12);
+
+        Assert.assertTrue(blocksBloomStore.hasBlockNumber(0));
+        Assert.assertTrue(blocksBloomStore.hasBlockNumber(4));
+        Assert.assertTrue(blocksBloomStore.hasBlockNumber(8));
+        Assert.assertFalse(blocksBloomStore.hasBlockNumber(12));
+
+        processor.processNewBlockNumber(15);
+
+        Assert.assertTrue(blocksBloomStore.hasBlockNumber(12));
+    }
+
+    @Test
+    public void buildSectionsOfExistingChain() {
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(4, new HashMapDB());
+        BlocksBloomProcessor processor = new BlocksBloomProcessor(blocksBloomStore, createBlockStore(30), 0);
+
+        processor.processNewBlockNumber(26);
+
+        for (int number = 0; number < 24; number += 4) {
+            Assert.assertTrue(blocksBloomStore.hasBlockNumber(number));
+        }
+
+        Assert.assertTrue(blocksBloomStore.getBlocksBloomByNumber(5).matches(createBloom(5)));
+        Assert.assertFalse(blocksBloomStore.hasBlockNumber(24));
+    }
+
+    @Test
+    public void keepStoredSectionsOfExistingChain() {
+        HashMapDB dataSource = new HashMapDB();
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(4, dataSource);
+        BlocksBloom stored = new BlocksBloom();
+
+        for (int k = 0; k < 4; k++) {
+            stored.addBlockBloom(k, createBloom(10));
+        }
+
+        blocksBloomStore.setBlocksBloom(stored);
+
+        BlocksBloomStore reopenedStore = new BlocksBloomStore(4, dataSource);
+        BlocksBloomProcessor processor = new BlocksBloomProcessor(reopenedStore, createBlockStore(12), 0);
+
+        processor.processNewBlockNumber(11);
+
+        // the stored section is not built again
+        Assert.assertTrue(reopenedStore.getBlocksBloomByNumber(0).matches(createBloom(10)));
+        Assert.assertFalse(reopenedStore.getBlocksBloomByNumber(0).matches(createBloom(0)));
+        Assert.assertTrue(reopenedStore.hasBlockNumber(4));
+        Assert.assertTrue(reopenedStore.hasBlockNumber(8));
+    }
+
+    @Test
+    public void doNotBuildSectionWithMissingBlocks() {
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(4, new HashMapDB());
+        BlocksBloomProcessor processor = new BlocksBloomProcessor(blocksBloomStore, createBlockStore(2), 0);
+
+        processor.processNewBlockNumber(3);
+
+        Assert.assertFalse(blocksBloomStore.hasBlockNumber(0));
+    }
+
+    private static BlockStore createBlockStore(int size) {
+        BlockGenerator blockGenerator = new BlockGenerator();
+        List<Block> blocks = new ArrayList<>();
+
+        for (int k = 0; k < size; k++) {
+            Block block = blockGenerator.createBlock(k, 0);
+            block.getHeader().setLogsBloom(createBloom(k).getData());
+            blocks.add(block);
+        }
+
+        BlockStore blockStore = mock(BlockStore.class);
+
+        when(blockStore.getChainBlockByNumber(anyLong())).then(invocation -> {
+            long number = (long) invocation.getArguments()[0];
+            return number < blocks.size() ? blocks.get((int) number) : null;
+        });
+
+        return blockStore;
+    }
+
+    private static Bloom createBloom(int k) {
+        byte[] bytes = new byte[256];
+        bytes[k] = 0x01;
+        return new Bloom(bytes);
+    }
+}
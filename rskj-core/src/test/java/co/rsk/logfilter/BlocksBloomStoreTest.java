@@ -0,0 +1,102 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import org.ethereum.core.Bloom;
+import org.ethereum.datasource.HashMapDB;
+import org.ethereum.datasource.KeyValueDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BlocksBloomStoreTest {
+    @Test
+    public void getFirstAndLastNumberInRange() {
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(64, null);
+
+        Assert.assertEquals(0, blocksBloomStore.firstNumberInRange(0));
+        Assert.assertEquals(63, blocksBloomStore.lastNumberInRange(0));
+        Assert.assertEquals(0, blocksBloomStore.firstNumberInRange(63));
+        Assert.assertEquals(63, blocksBloomStore.lastNumberInRange(63));
+        Assert.assertEquals(64, blocksBloomStore.firstNumberInRange(64));
+        Assert.assertEquals(127, blocksBloomStore.lastNumberInRange(100));
+    }
+
+    @Test
+    public void noBlocksBloomInEmptyStore() {
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(64, new HashMapDB());
+
+        Assert.assertFalse(blocksBloomStore.hasBlockNumber(0));
+        Assert.assertNull(blocksBloomStore.getBlocksBloomByNumber(0));
+    }
+
+    @Test
+    public void setAndGetBlocksBloom() {
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(4, null);
+        BlocksBloom blocksBloom = createBlocksBloom(4, 7);
+
+        blocksBloomStore.setBlocksBloom(blocksBloom);
+
+        Assert.assertFalse(blocksBloomStore.hasBlockNumber(3));
+
+        for (long number = 4; number <= 7; number++) {
+            Assert.assertTrue(blocksBloomStore.hasBlockNumber(number));
+            Assert.assertSame(blocksBloom, blocksBloomStore.getBlocksBloomByNumber(number));
+        }
+
+        Assert.assertFalse(blocksBloomStore.hasBlockNumber(8));
+    }
+
+    @Test
+    public void setBlocksBloomAndGetFromDataSource() {
+        KeyValueDataSource dataSource = new HashMapDB();
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(4, dataSource);
+
+        blocksBloomStore.setBlocksBloom(createBlocksBloom(8, 11));
+
+        BlocksBloomStore newBlocksBloomStore = new BlocksBloomStore(4, dataSource);
+
+        BlocksBloom result = newBlocksBloomStore.getBlocksBloomByNumber(10);
+
+        Assert.assertNotNull(result);
+        Assert.assertEquals(8, result.fromBlock());
+        Assert.assertEquals(11, result.toBlock());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setIncompleteBlocksBloom() {
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(4, null);
+
+        blocksBloomStore.setBlocksBloom(createBlocksBloom(4, 6));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createStoreWithInvalidNumberOfBlocks() {
+        new BlocksBloomStore(0, null);
+    }
+
+    private static BlocksBloom createBlocksBloom(long from, long to) {
+        BlocksBloom blocksBloom = new BlocksBloom();
+
+        for (long number = from; number <= to; number++) {
+            blocksBloom.addBlockBloom(number, new Bloom());
+        }
+
+        return blocksBloom;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import org.ethereum.core.Bloom;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BlocksBloomTest {
+    @Test
+    public void createEmptyBlocksBloom() {
+        BlocksBloom blocksBloom = new BlocksBloom();
+
+        Assert.assertEquals(0, blocksBloom.size());
+        Assert.assertArrayEquals(new byte[256], blocksBloom.getBloom().getData());
+    }
+
+    @Test
+    public void addBlockBloom() {
+        BlocksBloom blocksBloom = new BlocksBloom();
+
+        byte[] bytes = new byte[256];
+        bytes[0] = 0x01;
+        Bloom bloom = new Bloom(bytes);
+
+        blocksBloom.addBlockBloom(1, bloom);
+
+        Assert.assertEquals(1, blocksBloom.size());
+        Assert.assertEquals(1, blocksBloom.fromBlock());
+        Assert.assertEquals(1, blocksBloom.toBlock());
+        Assert.assertTrue(blocksBloom.matches(bloom));
+    }
+
+    @Test
+    public void addTwoBlockBlooms() {
+        BlocksBloom blocksBloom = new BlocksBloom();
+
+        byte[] bytes1 = new byte[256];
+        bytes1[0] = 0x01;
+        byte[] bytes2 = new byte[256];
+        bytes2[1] = 0x10;
+
+        Bloom bloom1 = new Bloom(bytes1);
+        Bloom bloom2 = new Bloom(bytes2);
+
+        blocksBloom.addBlockBloom(1, bloom1);
+        blocksBloom.addBlockBloom(2, bloom2);
+
+        Assert.assertEquals(2, blocksBloom.size());
+        Assert.assertEquals(1, blocksBloom.fromBlock());
+        Assert.assertEquals(2, blocksBloom.toBlock());
+        Assert.assertTrue(blocksBloom.matches(bloom1));
+        Assert.assertTrue(blocksBloom.matches(bloom2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addBlockBloomOutOfSequence() {
+        BlocksBloom blocksBloom = new BlocksBloom();
+
+        blocksBloom.addBlockBloom(1, new Bloom());
+        blocksBloom.addBlockBloom(3, new Bloom());
+    }
+
+    @Test
+    public void doesNotMatchBloom() {
+        BlocksBloom blocksBloom = new BlocksBloom();
+
+        byte[] bytes1 = new byte[256];
+        bytes1[0] = 0x01;
+        byte[] bytes2 = new byte[256];
+        bytes2[1] = 0x10;
+
+        blocksBloom.addBlockBloom(1, new Bloom(bytes1));
+
+        Assert.assertFalse(blocksBloom.matches(new Bloom(bytes2)));
+    }
+
+    @Test
+    public void encodeAndDecode() {
+        BlocksBloom blocksBloom = new BlocksBloom();
+
+        byte[] bytes = new byte[256];
+        bytes[0] = 0x01;
+        bytes[255] = (byte)0x80;
+
+        blocksBloom.addBlockBloom(64, new Bloom(bytes));
+        blocksBloom.addBlockBloom(65, new Bloom());
+
+        BlocksBloom result = BlocksBloom.fromEncoded(blocksBloom.getEncoded());
+
+        Assert.assertEquals(64, result.fromBlock());
+        Assert.assertEquals(65, result.toBlock());
+        Assert.assertEquals(2, result.size());
+        Assert.assertArrayEquals(bytes, result.getBloom().getData());
+        Assert.assertNotNull(result.getBloomBits());
+        Assert.assertEquals(2, result.getBloomBits().size());
+    }
+
+    @Test
+    public void decodeWithoutBloomBits() {
+        BlocksBloom blocksBloom = new BlocksBloom(64, 127, new Bloom());
+
+        BlocksBloom result = BlocksBloom.fromEncoded(blocksBloom.getEncoded());
+
+        Assert.assertEquals(64, result.fromBlock());
+        Assert.assertEquals(127, result.toBlock());
+        Assert.assertNull(result.getBloomBits());
+    }
+}
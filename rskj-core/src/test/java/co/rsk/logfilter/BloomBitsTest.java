@@ -0,0 +1,110 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import org.ethereum.core.Bloom;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class BloomBitsTest {
+    @Test
+    public void createEmptyBloomBits() {
+        BloomBits bloomBits = new BloomBits(10);
+
+        Assert.assertEquals(10, bloomBits.fromBlock());
+        Assert.assertEquals(0, bloomBits.size());
+        Assert.assertEquals(0, bloomBits.allBlocks().length);
+    }
+
+    @Test
+    public void matchBlocks() {
+        BloomBits bloomBits = new BloomBits(10);
+
+        bloomBits.addBlockBloom(10, createBloom(0, 0x01));
+        bloomBits.addBlockBloom(11, createBloom(1, 0x10));
+        bloomBits.addBlockBloom(12, createBloom(0, 0x03));
+
+        Assert.assertEquals(3, bloomBits.size());
+        Assert.assertEquals(Arrays.asList(10L, 12L), bloomBits.toBlockNumbers(bloomBits.matches(createBloom(0, 0x01))));
+        Assert.assertEquals(Collections.singletonList(11L), bloomBits.toBlockNumbers(bloomBits.matches(createBloom(1, 0x10))));
+        Assert.assertEquals(Collections.singletonList(12L), bloomBits.toBlockNumbers(bloomBits.matches(createBloom(0, 0x02))));
+        Assert.assertTrue(bloomBits.toBlockNumbers(bloomBits.matches(createBloom(2, 0x01))).isEmpty());
+        Assert.assertEquals(Arrays.asList(10L, 11L, 12L), bloomBits.toBlockNumbers(bloomBits.matches(new Bloom())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addBlockBloomOutOfSequence() {
+        BloomBits bloomBits = new BloomBits(1);
+
+        bloomBits.addBlockBloom(2, new Bloom());
+    }
+
+    @Test
+    public void matchSameBlocksAsBloomsInManyWords() {
+        Random random = new Random(42);
+        Bloom[] blooms = new Bloom[200];
+        BloomBits bloomBits = new BloomBits(1000);
+
+        for (int k = 0; k < blooms.length; k++) {
+            byte[] bytes = new byte[256];
+
+            for (int j = 0; j < 8; j++) {
+                bytes[random.nextInt(4)] |= (byte) (1 << random.nextInt(8));
+            }
+
+            blooms[k] = new Bloom(bytes);
+            bloomBits.addBlockBloom(1000 + k, blooms[k]);
+        }
+
+        for (int k = 0; k < blooms.length; k++) {
+            List<Long> numbers = bloomBits.toBlockNumbers(bloomBits.matches(blooms[k]));
+
+            for (int j = 0; j < blooms.length; j++) {
+                Assert.assertEquals(blooms[j].matches(blooms[k]), numbers.contains(1000L + j));
+            }
+        }
+    }
+
+    @Test
+    public void encodeAndDecode() {
+        BloomBits bloomBits = new BloomBits(64);
+
+        for (int k = 0; k < 70; k++) {
+            bloomBits.addBlockBloom(64 + k, createBloom(k % 256, 0x80));
+        }
+
+        BloomBits result = BloomBits.fromEncoded(bloomBits.getEncoded());
+
+        Assert.assertEquals(64, result.fromBlock());
+        Assert.assertEquals(70, result.size());
+        Assert.assertEquals(Arrays.asList(65L), result.toBlockNumbers(result.matches(createBloom(1, 0x80))));
+        Assert.assertEquals(Arrays.asList(133L), result.toBlockNumbers(result.matches(createBloom(69, 0x80))));
+    }
+
+    private static Bloom createBloom(int index, int value) {
+        byte[] bytes = new byte[256];
+        bytes[index] = (byte) value;
+        return new Bloom(bytes);
+    }
+}
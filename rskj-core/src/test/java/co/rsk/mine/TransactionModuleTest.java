@@ -320,6 +320,7 @@ public class TransactionModuleTest {
                 null,
                 null,
                 null,
+                null,
                 configCapabilities,
                 null
         );
@@ -95,6 +95,7 @@ public class Web3RskImplTest {
                 null,
                 null,
                 null,
+                null,
                 null
         );
         web3.ext_dumpState();
@@ -17,9 +17,15 @@
  */
 package co.rsk.rpc.modules.debug;
 
+import co.rsk.crypto.Keccak256;
 import co.rsk.net.MessageHandler;
+import co.rsk.vm.OpcodeProfiler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ethereum.crypto.HashUtil;
 import org.ethereum.rpc.TypeConverter;
 import org.ethereum.rpc.Web3Mocks;
+import org.ethereum.vm.OpCode;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -62,5 +68,47 @@ public class DebugModuleImplTest {
         }
     }
 
+    @Test
+    public void debug_opcodeProfile() throws IOException {
+        OpcodeProfiler profiler = new OpcodeProfiler();
+        OpcodeProfiler.Recorder recorder = profiler.getRecorder();
+        recorder.addOpcode(OpCode.ADD, 3);
+        recorder.addExecution(new Keccak256(HashUtil.keccak256(new byte[0])), 1, 3, 10);
+
+        DebugModuleImpl module = new DebugModuleImpl(messageHandler, profiler);
+
+        JsonNode result = new ObjectMapper().readTree(module.opcodeProfile());
+
+        Assert.assertEquals(1, result.get("opcodes").size());
+        Assert.assertEquals("ADD", result.get("opcodes").get(0).get("opcode").asText());
+        Assert.assertEquals(1, result.get("opcodes").get(0).get("count").asLong());
+        Assert.assertEquals(3, result.get("opcodes").get(0).get("gas").asLong());
+        Assert.assertEquals(1, result.get("contracts").size());
+        Assert.assertEquals(10, result.get("contracts").get(0).get("nanos").asLong());
+    }
+
+    @Test
+    public void debug_resetOpcodeProfile() throws IOException {
+        OpcodeProfiler profiler = new OpcodeProfiler();
+        OpcodeProfiler.Recorder recorder = profiler.getRecorder();
+        recorder.addOpcode(OpCode.ADD, 3);
+        recorder.addExecution(new Keccak256(HashUtil.keccak256(new byte[0])), 1, 3, 10);
 
+        DebugModuleImpl module = new DebugModuleImpl(messageHandler, profiler);
+
+        JsonNode result = new ObjectMapper().readTree(module.resetOpcodeProfile());
+
+        Assert.assertEquals(1, result.get("opcodes").size());
+        Assert.assertTrue(profiler.getSnapshot().getOpcodes().isEmpty());
+    }
+
+    @Test
+    public void debug_senderCacheStats() throws IOException {
+        JsonNode result = new ObjectMapper().readTree(debugModule.senderCacheStats());
+
+        Assert.assertTrue(result.has("size"));
+        Assert.assertTrue(result.has("hits"));
+        Assert.assertTrue(result.has("misses"));
+        Assert.assertTrue(result.has("hitRate"));
+    }
 }
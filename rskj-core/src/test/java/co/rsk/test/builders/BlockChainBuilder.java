@@ -55,6 +55,7 @@ public class BlockChainBuilder {
     private BlockStore blockStore;
     private Genesis genesis;
     private ReceiptStore receiptStore;
+    private TransactionIndex transactionIndex;
     private RskSystemProperties config;
     private EthereumListener listener;
 
@@ -98,6 +99,11 @@ public class BlockChainBuilder {
         return this;
     }
 
+    public BlockChainBuilder setTransactionIndex(TransactionIndex transactionIndex) {
+        this.transactionIndex = transactionIndex;
+        return this;
+    }
+
     public BlockChainBuilder setListener(EthereumListener listener) {
         this.listener = listener;
         return this;
@@ -125,6 +131,10 @@ public class BlockChainBuilder {
             receiptStore = new ReceiptStoreImpl(ds);
         }
 
+        if (transactionIndex == null) {
+            transactionIndex = new TransactionIndex(new HashMapDB());
+        }
+
         if (txinfos != null && !txinfos.isEmpty())
             for (TransactionInfo txinfo : txinfos)
                 receiptStore.add(txinfo.getBlockHash(), txinfo.getIndex(), txinfo.getReceipt());
@@ -143,7 +153,7 @@ public class BlockChainBuilder {
         TransactionPoolImpl transactionPool = new TransactionPoolImpl(config, this.repository, this.blockStore, receiptStore, new ProgramInvokeFactoryImpl(), new TestCompositeEthereumListener(), 10, 100);
 
         final ProgramInvokeFactoryImpl programInvokeFactory = new ProgramInvokeFactoryImpl();
-        Blockchain blockChain = new Blockchain(this.repository, this.blockStore, receiptStore, transactionPool, listener, blockValidator, false, 1, new BlockExecutor(this.repository, (tx1, coinbase, track1, block1, totalGasUsed1) -> new TransactionExecutor(
+        Blockchain blockChain = new Blockchain(this.repository, this.blockStore, receiptStore, transactionIndex, transactionPool, listener, blockValidator, false, 1, new BlockExecutor(this.repository, (tx1, coinbase, track1, block1, totalGasUsed1) -> new TransactionExecutor(
                 tx1,
                 block1.getCoinbase(),
                 track1,
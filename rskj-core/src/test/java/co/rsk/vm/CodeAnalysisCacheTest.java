@@ -0,0 +1,70 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.vm;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CodeAnalysisCacheTest {
+    @Test
+    public void getSameAnalysisForSameCode() {
+        CodeAnalysisCache cache = new CodeAnalysisCache(10);
+
+        CodeAnalysis analysis = cache.getCodeAnalysis(new byte[] { 0x5b, 0x00 }, 0);
+
+        Assert.assertNotNull(analysis);
+        Assert.assertTrue(analysis.getJumpdestSet().get(0));
+        Assert.assertSame(analysis, cache.getCodeAnalysis(new byte[] { 0x5b, 0x00 }, 0));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void getDifferentAnalysisForDifferentCode() {
+        CodeAnalysisCache cache = new CodeAnalysisCache(10);
+
+        CodeAnalysis analysis1 = cache.getCodeAnalysis(new byte[] { 0x5b, 0x00 }, 0);
+        CodeAnalysis analysis2 = cache.getCodeAnalysis(new byte[] { 0x00, 0x5b }, 0);
+
+        Assert.assertNotSame(analysis1, analysis2);
+        Assert.assertTrue(analysis2.getJumpdestSet().get(1));
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void keepOnlyMostRecentCodes() {
+        CodeAnalysisCache cache = new CodeAnalysisCache(2);
+
+        cache.getCodeAnalysis(new byte[] { 0x01 }, 0);
+        cache.getCodeAnalysis(new byte[] { 0x02 }, 0);
+        cache.getCodeAnalysis(new byte[] { 0x03 }, 0);
+
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void cachedAnalysisIsNotAffectedByChangesInCode() {
+        CodeAnalysisCache cache = new CodeAnalysisCache(10);
+        byte[] code = new byte[] { 0x5b, 0x00 };
+
+        CodeAnalysis analysis = cache.getCodeAnalysis(code, 0);
+        code[0] = 0x00;
+
+        Assert.assertNotSame(analysis, cache.getCodeAnalysis(code, 0));
+    }
+}
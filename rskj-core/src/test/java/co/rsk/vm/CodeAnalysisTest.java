@@ -0,0 +1,132 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.vm;
+
+import co.rsk.crypto.Keccak256;
+import org.ethereum.crypto.HashUtil;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.OpCode;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+public class CodeAnalysisTest {
+    private final BytecodeCompiler compiler = new BytecodeCompiler();
+
+    @Test
+    public void analyzeEmptyCode() {
+        CodeAnalysis analysis = new CodeAnalysis(new byte[0], 0);
+
+        Assert.assertEquals(0, analysis.getJumpdestSet().size());
+    }
+
+    @Test
+    public void getJumpDestinations() {
+        byte[] code = compiler.compile("PUSH1 0x5b JUMPDEST PUSH1 0x01 JUMPDEST");
+        CodeAnalysis analysis = new CodeAnalysis(code, 0);
+
+        Assert.assertFalse(analysis.getJumpdestSet().get(1));
+        Assert.assertTrue(analysis.getJumpdestSet().get(2));
+        Assert.assertTrue(analysis.getJumpdestSet().get(5));
+    }
+
+    @Test
+    public void getFixedGasOfBlock() {
+        byte[] code = compiler.compile("PUSH1 0x01 PUSH1 0x02 ADD POP");
+        CodeAnalysis analysis = new CodeAnalysis(code, 0);
+
+        Assert.assertEquals(3 + 3 + 3 + 2, analysis.getBlockGas(0));
+        Assert.assertEquals(0, analysis.getBlockGas(2));
+        Assert.assertEquals(0, analysis.getBlockGas(4));
+        Assert.assertEquals(0, analysis.getBlockGas(5));
+    }
+
+    @Test
+    public void jumpdestStartsBlockAndJumpEndsBlock() {
+        byte[] code = compiler.compile("PUSH1 0x03 JUMP JUMPDEST PUSH1 0x01 PUSH1 0x03 JUMPI PUSH1 0x01");
+        CodeAnalysis analysis = new CodeAnalysis(code, 0);
+
+        Assert.assertEquals(3 + 8, analysis.getBlockGas(0));
+        Assert.assertEquals(1 + 3 + 3 + 10, analysis.getBlockGas(3));
+        Assert.assertEquals(3, analysis.getBlockGas(9));
+    }
+
+    @Test
+    public void opcodeWithComputedGasEndsBlock() {
+        byte[] code = compiler.compile("PUSH1 0x01 PUSH1 0x00 MSTORE PUSH1 0x01 GAS");
+        CodeAnalysis analysis = new CodeAnalysis(code, 0);
+
+        Assert.assertEquals(6, analysis.getBlockGas(0));
+        Assert.assertEquals(CodeAnalysis.DYNAMIC_GAS, analysis.getBlockGas(4));
+        Assert.assertEquals(3, analysis.getBlockGas(5));
+        Assert.assertEquals(CodeAnalysis.DYNAMIC_GAS, analysis.getBlockGas(7));
+    }
+
+    @Test
+    public void analyzeFromStart() {
+        byte[] code = compiler.compile("JUMPDEST JUMPDEST PUSH1 0x01");
+        CodeAnalysis analysis = new CodeAnalysis(code, 1);
+
+        Assert.assertFalse(analysis.getJumpdestSet().get(0));
+        Assert.assertTrue(analysis.getJumpdestSet().get(1));
+        Assert.assertEquals(0, analysis.getBlockGas(0));
+        Assert.assertEquals(1 + 3, analysis.getBlockGas(1));
+    }
+
+    @Test
+    public void decodeInstructions() {
+        byte[] code = compiler.compile("PUSH2 0x0102 ADD JUMPDEST");
+        CodeAnalysis analysis = new CodeAnalysis(code, 0);
+
+        Assert.assertEquals(OpCode.PUSH2, analysis.getInstruction(0));
+        Assert.assertNull(analysis.getInstruction(1));
+        Assert.assertNull(analysis.getInstruction(2));
+        Assert.assertEquals(OpCode.ADD, analysis.getInstruction(3));
+        Assert.assertEquals(OpCode.JUMPDEST, analysis.getInstruction(4));
+        Assert.assertEquals(OpCode.STOP, analysis.getInstruction(5));
+        Assert.assertEquals(new DataWord(0x0102), analysis.getPushValue(0));
+    }
+
+    @Test
+    public void decodeInvalidOpcode() {
+        CodeAnalysis analysis = new CodeAnalysis(new byte[] { 0x0c, 0x01 }, 0);
+
+        Assert.assertNull(analysis.getInstruction(0));
+        Assert.assertEquals(OpCode.ADD, analysis.getInstruction(1));
+    }
+
+    @Test
+    public void decodePushTruncatedAtEndOfCode() {
+        byte[] code = new byte[] { 0x62, 0x01, 0x02 };
+        CodeAnalysis analysis = new CodeAnalysis(code, 0);
+
+        Assert.assertEquals(OpCode.PUSH3, analysis.getInstruction(0));
+        Assert.assertEquals(new DataWord(0x010200), analysis.getPushValue(0));
+    }
+
+    @Test
+    public void computeCodeHashOnlyWhenAsked() {
+        byte[] code = compiler.compile("PUSH1 0x01 PUSH1 0x02 ADD");
+        CodeAnalysis analysis = new CodeAnalysis(code, 0);
+
+        Assert.assertNull(Whitebox.getInternalState(analysis, "codeHash"));
+        Assert.assertEquals(new Keccak256(HashUtil.keccak256(code)), analysis.getCodeHash());
+        Assert.assertSame(analysis.getCodeHash(), analysis.getCodeHash());
+    }
+}
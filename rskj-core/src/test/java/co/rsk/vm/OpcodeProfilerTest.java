@@ -0,0 +1,232 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.vm;
+
+import co.rsk.config.TestSystemProperties;
+import co.rsk.config.VmConfig;
+import co.rsk.crypto.Keccak256;
+import org.ethereum.config.BlockchainConfig;
+import org.ethereum.crypto.HashUtil;
+import org.ethereum.vm.OpCode;
+import org.ethereum.vm.PrecompiledContracts;
+import org.ethereum.vm.VM;
+import org.ethereum.vm.program.Program;
+import org.ethereum.vm.program.invoke.ProgramInvokeMockImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.mockito.Mockito.mock;
+
+public class OpcodeProfilerTest {
+    private final TestSystemProperties config = new TestSystemProperties();
+    private final VmConfig vmConfig = config.getVmConfig();
+    private final PrecompiledContracts precompiledContracts = new PrecompiledContracts(config);
+
+    @After
+    public void tearDown() {
+        VM.getOpcodeProfiler().setEnabled(false);
+        VM.getOpcodeProfiler().reset();
+    }
+
+    @Test
+    public void disabledByDefault() {
+        Assert.assertFalse(new OpcodeProfiler().isEnabled());
+    }
+
+    @Test
+    public void emptySnapshot() {
+        OpcodeProfiler profiler = new OpcodeProfiler();
+
+        OpcodeProfiler.Snapshot snapshot = profiler.getSnapshot();
+
+        Assert.assertTrue(snapshot.getOpcodes().isEmpty());
+        Assert.assertTrue(snapshot.getContracts().isEmpty());
+    }
+
+    @Test
+    public void addExecution() {
+        OpcodeProfiler profiler = new OpcodeProfiler();
+        OpcodeProfiler.Recorder recorder = profiler.getRecorder();
+        Keccak256 codeHash = new Keccak256(HashUtil.keccak256(new byte[] { 0x01 }));
+
+        recorder.addOpcode(OpCode.ADD, 3);
+        recorder.addOpcode(OpCode.ADD, 3);
+        recorder.addSample(OpCode.ADD, 100);
+        recorder.addOpcode(OpCode.MUL, 5);
+
+        recorder.addExecution(codeHash, 3, 11, 1000);
+        recorder.addExecution(codeHash, 0, 0, 500);
+
+        OpcodeProfiler.Snapshot snapshot = profiler.getSnapshot();
+
+        Assert.assertEquals(2, snapshot.getOpcodes().size());
+
+        OpcodeProfiler.OpcodeProfile add = snapshot.getOpcodes().get(0);
+
+        Assert.assertEquals(OpCode.ADD, add.getOpcode());
+        Assert.assertEquals(2, add.getCount());
+        Assert.assertEquals(6, add.getGas());
+        Assert.assertEquals(1, add.getSamples());
+        Assert.assertEquals(200, add.getNanos());
+
+        OpcodeProfiler.OpcodeProfile mul = snapshot.getOpcodes().get(1);
+
+        Assert.assertEquals(OpCode.MUL, mul.getOpcode());
+        Assert.assertEquals(0, mul.getNanos());
+
+        Assert.assertEquals(1, snapshot.getContracts().size());
+
+        OpcodeProfiler.ContractProfile contract = snapshot.getContracts().get(0);
+
+        Assert.assertEquals(codeHash, contract.getCodeHash());
+        Assert.assertEquals(2, contract.getCalls());
+        Assert.assertEquals(3, contract.getInstructions());
+        Assert.assertEquals(11, contract.getGas());
+        Assert.assertEquals(1500, contract.getNanos());
+    }
+
+    @Test
+    public void sampleOneOfEachInterval() {
+        OpcodeProfiler.Recorder recorder = new OpcodeProfiler().getRecorder();
+        int nsamples = 0;
+
+        for (int k = 0; k < OpcodeProfiler.SAMPLE_INTERVAL * 10; k++) {
+            if (recorder.sample()) {
+                nsamples++;
+            }
+        }
+
+        Assert.assertEquals(10, nsamples);
+    }
+
+    @Test
+    public void reset() {
+        OpcodeProfiler profiler = new OpcodeProfiler();
+        OpcodeProfiler.Recorder recorder = profiler.getRecorder();
+
+        recorder.addOpcode(OpCode.ADD, 3);
+        recorder.addExecution(new Keccak256(HashUtil.keccak256(new byte[0])), 1, 3, 10);
+        profiler.reset();
+
+        OpcodeProfiler.Snapshot snapshot = profiler.getSnapshot();
+
+        Assert.assertTrue(snapshot.getOpcodes().isEmpty());
+        Assert.assertTrue(snapshot.getContracts().isEmpty());
+
+        recorder.addOpcode(OpCode.ADD, 3);
+
+        Assert.assertEquals(1, getOpcodeProfile(profiler.getSnapshot(), OpCode.ADD).getCount());
+    }
+
+    @Test
+    public void mergeRecordersOfManyThreads() throws InterruptedException {
+        OpcodeProfiler profiler = new OpcodeProfiler();
+        Keccak256 codeHash = new Keccak256(HashUtil.keccak256(new byte[] { 0x01 }));
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch snapshotTaken = new CountDownLatch(1);
+
+        OpcodeProfiler.Recorder recorder = profiler.getRecorder();
+        recorder.addOpcode(OpCode.ADD, 3);
+        recorder.addExecution(codeHash, 1, 3, 10);
+
+        Thread thread = new Thread(() -> {
+            OpcodeProfiler.Recorder threadRecorder = profiler.getRecorder();
+            threadRecorder.addOpcode(OpCode.ADD, 3);
+            threadRecorder.addExecution(codeHash, 1, 3, 20);
+            recorded.countDown();
+
+            try {
+                snapshotTaken.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        thread.start();
+        recorded.await();
+
+        assertAddsAndContract(profiler.getSnapshot(), 2, 30);
+
+        // the recorder of a finished thread is kept in the totals
+        snapshotTaken.countDown();
+        thread.join();
+
+        assertAddsAndContract(profiler.getSnapshot(), 2, 30);
+        assertAddsAndContract(profiler.getSnapshot(), 2, 30);
+    }
+
+    @Test
+    public void profileProgramExecution() {
+        OpcodeProfiler profiler = VM.getOpcodeProfiler();
+        profiler.reset();
+        profiler.setEnabled(true);
+
+        byte[] code = new BytecodeCompiler().compile("PUSH1 0x01 PUSH1 0x02 ADD PUSH1 0x00 MSTORE");
+        playCode(code);
+        playCode(code);
+
+        OpcodeProfiler.Snapshot snapshot = profiler.getSnapshot();
+
+        Assert.assertEquals(2, getOpcodeProfile(snapshot, OpCode.ADD).getCount());
+        Assert.assertEquals(6, getOpcodeProfile(snapshot, OpCode.ADD).getGas());
+        Assert.assertEquals(6, getOpcodeProfile(snapshot, OpCode.PUSH1).getCount());
+        Assert.assertEquals(2, getOpcodeProfile(snapshot, OpCode.MSTORE).getCount());
+
+        Assert.assertEquals(1, snapshot.getContracts().size());
+
+        OpcodeProfiler.ContractProfile contract = snapshot.getContracts().get(0);
+
+        Assert.assertEquals(new Keccak256(HashUtil.keccak256(code)), contract.getCodeHash());
+        Assert.assertEquals(2, contract.getCalls());
+        Assert.assertEquals(2 * (3 + 3 + 3 + 3 + 3 + 3), contract.getGas());
+    }
+
+    @Test
+    public void disabledProfiler() {
+        OpcodeProfiler profiler = VM.getOpcodeProfiler();
+        profiler.reset();
+        profiler.setEnabled(false);
+
+        playCode(new BytecodeCompiler().compile("PUSH1 0x01 PUSH1 0x02 ADD"));
+
+        Assert.assertTrue(profiler.getSnapshot().getOpcodes().isEmpty());
+    }
+
+    private void playCode(byte[] code) {
+        ProgramInvokeMockImpl invoke = new ProgramInvokeMockImpl();
+        invoke.setGasLimit(100000);
+
+        Program program = new Program(vmConfig, precompiledContracts, mock(BlockchainConfig.class), code, invoke, null);
+        new VM(vmConfig, precompiledContracts).play(program);
+    }
+
+    private static void assertAddsAndContract(OpcodeProfiler.Snapshot snapshot, long adds, long nanos) {
+        Assert.assertEquals(adds, getOpcodeProfile(snapshot, OpCode.ADD).getCount());
+        Assert.assertEquals(1, snapshot.getContracts().size());
+        Assert.assertEquals(adds, snapshot.getContracts().get(0).getCalls());
+        Assert.assertEquals(nanos, snapshot.getContracts().get(0).getNanos());
+    }
+
+    private static OpcodeProfiler.OpcodeProfile getOpcodeProfile(OpcodeProfiler.Snapshot snapshot, OpCode op) {
+        return snapshot.getOpcodes().stream().filter(p -> p.getOpcode() == op).findFirst().orElse(null);
+    }
+}
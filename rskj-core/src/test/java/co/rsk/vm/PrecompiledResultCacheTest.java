@@ -0,0 +1,82 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.vm;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class PrecompiledResultCacheTest {
+    @Test
+    public void computeResultOnlyOnce() {
+        PrecompiledResultCache cache = new PrecompiledResultCache(10);
+        AtomicInteger counter = new AtomicInteger();
+        Function<byte[], byte[]> function = data -> { counter.incrementAndGet(); return new byte[] { data[0] }; };
+
+        byte[] result1 = cache.getResult(new byte[] { 0x01, 0x02 }, function);
+        byte[] result2 = cache.getResult(new byte[] { 0x01, 0x02 }, function);
+
+        Assert.assertEquals(1, counter.get());
+        Assert.assertEquals(1, cache.size());
+        Assert.assertArrayEquals(new byte[] { 0x01 }, result1);
+        Assert.assertArrayEquals(result1, result2);
+        Assert.assertNotSame(result1, result2);
+    }
+
+    @Test
+    public void resultCannotBeChangedByCaller() {
+        PrecompiledResultCache cache = new PrecompiledResultCache(10);
+
+        byte[] result1 = cache.getResult(new byte[] { 0x01 }, data -> new byte[] { 0x02 });
+        result1[0] = 0x03;
+
+        byte[] result2 = cache.getResult(new byte[] { 0x01 }, data -> new byte[] { 0x04 });
+
+        Assert.assertArrayEquals(new byte[] { 0x02 }, result2);
+    }
+
+    @Test
+    public void computeResultOfNullData() {
+        PrecompiledResultCache cache = new PrecompiledResultCache(10);
+
+        byte[] result = cache.getResult(null, data -> data == null ? new byte[0] : data);
+
+        Assert.assertEquals(0, result.length);
+    }
+
+    @Test
+    public void keepMostRecentResults() {
+        PrecompiledResultCache cache = new PrecompiledResultCache(2);
+        AtomicInteger counter = new AtomicInteger();
+        Function<byte[], byte[]> function = data -> { counter.incrementAndGet(); return data; };
+
+        cache.getResult(new byte[] { 0x01 }, function);
+        cache.getResult(new byte[] { 0x02 }, function);
+        cache.getResult(new byte[] { 0x03 }, function);
+
+        Assert.assertEquals(2, cache.size());
+
+        cache.getResult(new byte[] { 0x03 }, function);
+        cache.getResult(new byte[] { 0x01 }, function);
+
+        Assert.assertEquals(4, counter.get());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.vm;
+
+import co.rsk.config.TestSystemProperties;
+import co.rsk.config.VmConfig;
+import org.bouncycastle.util.encoders.Hex;
+import org.ethereum.config.BlockchainConfig;
+import org.ethereum.vm.OpCode;
+import org.ethereum.vm.PrecompiledContracts;
+import org.ethereum.vm.VM;
+import org.ethereum.vm.program.Program;
+import org.ethereum.vm.program.invoke.ProgramInvokeMockImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the same code fetching the decoded instructions and decoding the program bytes,
+ * and compares the results.
+ */
+public class VMDecodedCodeTest {
+    private static final OpCode[] SIMPLE_OPCODES = {
+            OpCode.ADD, OpCode.MUL, OpCode.SUB, OpCode.DIV, OpCode.SDIV, OpCode.MOD, OpCode.SMOD,
+            OpCode.EXP, OpCode.SIGNEXTEND, OpCode.LT, OpCode.GT, OpCode.SLT, OpCode.SGT, OpCode.EQ,
+            OpCode.ISZERO, OpCode.AND, OpCode.OR, OpCode.XOR, OpCode.NOT, OpCode.BYTE,
+            OpCode.POP, OpCode.MLOAD, OpCode.MSTORE, OpCode.MSTORE8, OpCode.JUMP, OpCode.JUMPI,
+            OpCode.PC, OpCode.MSIZE, OpCode.GAS, OpCode.JUMPDEST,
+            OpCode.PUSH1, OpCode.PUSH2, OpCode.PUSH4, OpCode.PUSH32,
+            OpCode.DUP1, OpCode.DUP2, OpCode.DUP3, OpCode.SWAP1, OpCode.SWAP2
+    };
+
+    private final TestSystemProperties config = new TestSystemProperties();
+    private final VmConfig vmConfig = config.getVmConfig();
+    private final PrecompiledContracts precompiledContracts = new PrecompiledContracts(config);
+    private final BytecodeCompiler compiler = new BytecodeCompiler();
+
+    @After
+    public void tearDown() {
+        VM.setUseDecodedCode(true);
+    }
+
+    @Test
+    public void runArithmetic() {
+        assertSameExecution(compiler.compile("PUSH1 0x01 PUSH1 0x02 ADD PUSH1 0x03 MUL PUSH2 0x0100 EXP PUSH1 0x07 SWAP1 DIV"));
+    }
+
+    @Test
+    public void runLoop() {
+        assertSameExecution(compiler.compile("PUSH1 0x0a JUMPDEST PUSH1 0x01 SWAP1 SUB DUP1 PUSH1 0x02 JUMPI"));
+    }
+
+    @Test
+    public void runMemoryOperations() {
+        assertSameExecution(compiler.compile("PUSH1 0x2a PUSH1 0x40 MSTORE PUSH1 0x40 MLOAD PUSH1 0x01 PUSH1 0x00 MSTORE8 MSIZE"));
+    }
+
+    @Test
+    public void runPushTruncatedAtEndOfCode() {
+        assertSameExecution(Hex.decode("6001630102"));
+    }
+
+    @Test
+    public void runPushAsLastByte() {
+        assertSameExecution(Hex.decode("600160"));
+    }
+
+    @Test
+    public void runInvalidOpcode() {
+        assertSameExecution(Hex.decode("60010c6002"));
+    }
+
+    @Test
+    public void runJumpIntoPushData() {
+        assertSameExecution(Hex.decode("6003566101005b"));
+    }
+
+    @Test
+    public void runStackUnderflow() {
+        assertSameExecution(compiler.compile("PUSH1 0x01 ADD"));
+    }
+
+    @Test
+    public void runEmptyCode() {
+        assertSameExecution(new byte[0]);
+    }
+
+    @Test
+    public void runRandomCodes() {
+        Random random = new Random(1);
+
+        for (int k = 0; k < 500; k++) {
+            byte[] code = new byte[1 + random.nextInt(100)];
+
+            for (int j = 0; j < code.length; j++) {
+                if (random.nextInt(4) == 0) {
+                    code[j] = (byte) random.nextInt(16);
+                } else {
+                    code[j] = SIMPLE_OPCODES[random.nextInt(SIMPLE_OPCODES.length)].val();
+                }
+            }
+
+            assertSameExecution(code);
+        }
+    }
+
+    private void assertSameExecution(byte[] code) {
+        VM.setUseDecodedCode(false);
+        Program expected = playCode(code);
+        VM.setUseDecodedCode(true);
+        Program result = playCode(code);
+
+        String message = Hex.toHexString(code);
+
+        Assert.assertEquals(message, expected.isStopped(), result.isStopped());
+        Assert.assertEquals(message, expected.getResult().getGasUsed(), result.getResult().getGasUsed());
+        Assert.assertEquals(message, exceptionClass(expected), exceptionClass(result));
+        Assert.assertArrayEquals(message, expected.getStack().toArray(), result.getStack().toArray());
+        Assert.assertArrayEquals(message, expected.getMemory(), result.getMemory());
+        Assert.assertArrayEquals(message, expected.getResult().getHReturn(), result.getResult().getHReturn());
+    }
+
+    private Program playCode(byte[] code) {
+        ProgramInvokeMockImpl invoke = new ProgramInvokeMockImpl();
+        invoke.setGasLimit(100000);
+
+        VM vm = new VM(vmConfig, precompiledContracts);
+        Program program = new Program(vmConfig, precompiledContracts, mock(BlockchainConfig.class), code, invoke, null);
+
+        vm.play(program);
+
+        return program;
+    }
+
+    private static Class<?> exceptionClass(Program program) {
+        RuntimeException exception = program.getResult().getException();
+        return exception == null ? null : exception.getClass();
+    }
+}
@@ -23,8 +23,10 @@ import co.rsk.config.VmConfig;
 import org.bouncycastle.util.encoders.Hex;
 import org.ethereum.config.BlockchainConfig;
 import org.ethereum.vm.DataWord;
+import org.ethereum.vm.OpCode;
 import org.ethereum.vm.PrecompiledContracts;
 import org.ethereum.vm.VM;
+import org.ethereum.vm.VMHook;
 import org.ethereum.vm.program.Program;
 import org.ethereum.vm.program.Stack;
 import org.ethereum.vm.program.invoke.ProgramInvokeMockImpl;
@@ -36,7 +38,10 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Created by ajlopez on 25/01/2017.
@@ -217,6 +222,53 @@ public class VMExecutionTest {
         Assert.assertEquals(12, program.getResult().getGasUsed());
     }
 
+    @Test
+    public void playLoopSpendingSameGasAsStepByStep() {
+        byte[] code = compiler.compile("PUSH1 0x0a JUMPDEST PUSH1 0x01 SWAP1 SUB DUP1 PUSH1 0x02 JUMPI PUSH1 0x01 PUSH1 0x00 MSTORE GAS");
+
+        Program program1 = executeCode(code, 100);
+        Program program2 = playCode(code);
+
+        Assert.assertTrue(program1.isStopped());
+        Assert.assertTrue(program2.isStopped());
+        Assert.assertEquals(program1.getResult().getGasUsed(), program2.getResult().getGasUsed());
+        Assert.assertEquals(program1.getStack().peek(), program2.getStack().peek());
+    }
+
+    @Test
+    public void playRunningOutOfGasInsideBlock() {
+        invoke.setGasLimit(8);
+
+        Program program = playCode(compiler.compile("PUSH1 0x01 PUSH1 0x02 ADD"));
+
+        Assert.assertNotNull(program.getResult().getException());
+        Assert.assertEquals(8, program.getResult().getGasUsed());
+    }
+
+    @Test
+    public void playWithVmHookAsWithoutTracing() {
+        byte[] code = compiler.compile("PUSH1 0x0a JUMPDEST PUSH1 0x01 SWAP1 SUB DUP1 PUSH1 0x02 JUMPI PUSH1 0x01 PUSH1 0x00 MSTORE GAS");
+
+        Program program1 = playCode(code);
+
+        VMHook vmHook = mock(VMHook.class);
+        VM.setVmHook(vmHook);
+
+        Program program2;
+
+        try {
+            program2 = playCode(code);
+        } finally {
+            VM.setVmHook(null);
+        }
+
+        verify(vmHook, times(75)).step(any(Program.class), any(OpCode.class));
+        Assert.assertTrue(program2.isStopped());
+        Assert.assertEquals(program1.getResult().getGasUsed(), program2.getResult().getGasUsed());
+        Assert.assertEquals(program1.getStack().peek(), program2.getStack().peek());
+        Assert.assertArrayEquals(program1.getMemory(), program2.getMemory());
+    }
+
     private Program executeCode(String code, int nsteps) {
         return executeCode(compiler.compile(code), nsteps);
     }
@@ -227,6 +279,16 @@ public class VMExecutionTest {
         assertEquals(expected, Hex.toHexString(program.getStack().peek().getData()).toUpperCase());
     }
 
+    private Program playCode(byte[] code) {
+        VM vm = new VM(vmConfig, precompiledContracts);
+
+        Program program = new Program(vmConfig, precompiledContracts, mock(BlockchainConfig.class), code, invoke, null);
+
+        vm.play(program);
+
+        return program;
+    }
+
     private Program executeCode(byte[] code, int nsteps) {
         VM vm = new VM(vmConfig, precompiledContracts);
 
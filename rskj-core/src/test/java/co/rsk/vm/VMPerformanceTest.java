@@ -27,6 +27,7 @@ import org.ethereum.vm.DataWord;
 import org.ethereum.vm.OpCode;
 import org.ethereum.vm.PrecompiledContracts;
 import org.ethereum.vm.VM;
+import org.ethereum.vm.VMHook;
 import org.ethereum.vm.program.Program;
 import org.ethereum.vm.program.invoke.ProgramInvokeMockImpl;
 import org.junit.Before;
@@ -533,6 +534,86 @@ public class VMPerformanceTest {
         }
     }
 
+    @Ignore //
+    @Test
+    public void testStackOperationsLongTime() {
+        vm = new VM(config.getVmConfig(), new PrecompiledContracts(config));
+
+        // one million iterations of DUP1 DUP2 SWAP1 DUP3 SWAP2 POP POP POP (four times)
+        String body = "8081908291505050";
+        String loop = "620f42405b" + body + body + body + body + "600190038060045700";
+
+        testRunTime(Hex.decode(loop), "");
+    }
+
+    @Ignore //
+    @Test
+    public void testMemoryOperationsLongTime() {
+        vm = new VM(config.getVmConfig(), new PrecompiledContracts(config));
+
+        // ten thousand iterations of MSTORE into a 32 KB area and SHA3 over all of it
+        String body = "8080617fe01652" + "6180006000" + "2050";
+        String loop = "6127105b" + body + "600190038060035700";
+
+        testRunTime(Hex.decode(loop), "");
+    }
+
+    @Ignore //
+    @Test
+    public void testDecodedCodeLongTime() {
+        vm = new VM(config.getVmConfig(), new PrecompiledContracts(config));
+
+        // the Fibonacci loop of testFibonacciLongTime, with max k=10K
+        byte[] codePlusPrefix = Hex.decode("6060604052607f8060106000396000f360606040523615600d57600d565b607d5b60006000600060006000600091505b612710821015606c57600094508450600193508350600190505b6032811015605f5783850192508250839450845082935083505b80806001019150506039565b5b8180600101925050601f565b8360005260206000f35b5050505050565b00");
+        byte[] code = Arrays.copyOfRange(codePlusPrefix, 16, codePlusPrefix.length);
+        String s_expected = "00000000000000000000000000000000000000000000000000000002EE333961";
+
+        try {
+            VM.setUseDecodedCode(false);
+            System.out.println("Configuration: VM.useDecodedCode = false");
+            testRunTime(code, s_expected);
+
+            VM.setUseDecodedCode(true);
+            System.out.println("Configuration: VM.useDecodedCode = true");
+            testRunTime(code, s_expected);
+        } finally {
+            VM.setUseDecodedCode(true);
+        }
+    }
+
+    @Ignore //
+    @Test
+    public void testTracingLoopLongTime() {
+        vm = new VM(config.getVmConfig(), new PrecompiledContracts(config));
+
+        // the Fibonacci loop of testFibonacciLongTime, with max k=10K
+        byte[] codePlusPrefix = Hex.decode("6060604052607f8060106000396000f360606040523615600d57600d565b607d5b60006000600060006000600091505b612710821015606c57600094508450600193508350600190505b6032811015605f5783850192508250839450845082935083505b80806001019150506039565b5b8180600101925050601f565b8360005260206000f35b5050505050565b00");
+        byte[] code = Arrays.copyOfRange(codePlusPrefix, 16, codePlusPrefix.length);
+        String s_expected = "00000000000000000000000000000000000000000000000000000002EE333961";
+
+        System.out.println("Configuration: non tracing loop");
+        testRunTime(code, s_expected);
+
+        // an empty VM hook selects the tracing loop, without adding any work
+        VM.setVmHook(new VMHook() {
+            @Override
+            public void startPlay(Program program) { }
+
+            @Override
+            public void step(Program program, OpCode opcode) { }
+
+            @Override
+            public void stopPlay(Program program) { }
+        });
+
+        try {
+            System.out.println("Configuration: tracing loop");
+            testRunTime(code, s_expected);
+        } finally {
+            VM.setVmHook(null);
+        }
+    }
+
     @Ignore //
     @Test
     public void testFibonacciLongTime() {
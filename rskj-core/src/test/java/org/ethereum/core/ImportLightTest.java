@@ -75,6 +75,7 @@ public class ImportLightTest {
                 repository,
                 blockStore,
                 receiptStore,
+                null,
                 transactionPool,
                 listener,
                 new DummyBlockValidator(),
@@ -65,7 +65,7 @@ public class BlockchainLoaderTest {
 
         Repository repository = new RepositoryImpl(new Trie(new TrieStore(new HashMapDB().setClearOnClose(false)), true), new HashMapDB(), new TrieStorePoolOnMemory());
 
-        BlockChainLoader blockChainLoader = new BlockChainLoader(systemProperties, repository, blockStore, null, null, ethereumListener, null);
+        BlockChainLoader blockChainLoader = new BlockChainLoader(systemProperties, repository, blockStore, null, null, null, ethereumListener, null);
 
         blockChainLoader.loadBlockchain();
 
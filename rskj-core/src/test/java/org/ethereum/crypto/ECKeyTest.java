@@ -282,6 +282,20 @@ public class ECKeyTest {
         assertTrue(found);
     }
 
+    @Test
+    public void recoverKeysOfManySignatures() throws Exception {
+        for (int k = 0; k < 50; k++) {
+            ECKey key = new ECKey();
+            byte[] hash = HashUtil.keccak256(BigInteger.valueOf(k).toByteArray());
+            ECKey.ECDSASignature sig = key.sign(hash);
+
+            ECKey key2 = ECKey.signatureToKey(hash, sig);
+
+            assertArrayEquals(key.getPubKey(), key2.getPubKey());
+            assertArrayEquals(key.getAddress(), key2.getAddress());
+        }
+    }
+
     @Test
     public void testSignedMessageToKey() throws SignatureException {
         byte[] messageHash = HashUtil.keccak256(exampleMessage.getBytes());
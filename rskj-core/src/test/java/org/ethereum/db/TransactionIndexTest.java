@@ -0,0 +1,116 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.db;
+
+import co.rsk.core.Coin;
+import co.rsk.test.World;
+import co.rsk.test.builders.AccountBuilder;
+import co.rsk.test.builders.BlockBuilder;
+import co.rsk.test.builders.TransactionBuilder;
+import org.ethereum.core.Account;
+import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
+import org.ethereum.datasource.HashMapDB;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TransactionIndexTest {
+    @Test
+    public void encodeAndDecodeLocation() {
+        byte[] hash = new byte[32];
+        hash[0] = 0x01;
+
+        TransactionLocation result = TransactionLocation.fromEncoded(new TransactionLocation(1000, hash, 2).getEncoded());
+
+        Assert.assertEquals(1000, result.getBlockNumber());
+        Assert.assertArrayEquals(hash, result.getBlockHash());
+        Assert.assertEquals(2, result.getIndex());
+    }
+
+    @Test
+    public void getUnknownTransaction() {
+        TransactionIndex transactionIndex = new TransactionIndex(new HashMapDB());
+
+        Assert.assertNull(transactionIndex.get(new byte[32]));
+    }
+
+    @Test
+    public void addBlockAndGetTransactions() {
+        World world = new World();
+        Block block = createBlockWithTransactions(world, world.getBlockChain().getBestBlock(), 2);
+        TransactionIndex transactionIndex = new TransactionIndex(new HashMapDB());
+
+        transactionIndex.addBlock(block);
+
+        for (int k = 0; k < 2; k++) {
+            TransactionLocation location = transactionIndex.get(block.getTransactionsList().get(k).getHash().getBytes());
+
+            Assert.assertNotNull(location);
+            Assert.assertEquals(block.getNumber(), location.getBlockNumber());
+            Assert.assertArrayEquals(block.getHash().getBytes(), location.getBlockHash());
+            Assert.assertEquals(k, location.getIndex());
+        }
+    }
+
+    @Test
+    public void removeBlock() {
+        World world = new World();
+        Block block = createBlockWithTransactions(world, world.getBlockChain().getBestBlock(), 1);
+        TransactionIndex transactionIndex = new TransactionIndex(new HashMapDB());
+
+        transactionIndex.addBlock(block);
+        transactionIndex.removeBlock(block);
+
+        Assert.assertNull(transactionIndex.get(block.getTransactionsList().get(0).getHash().getBytes()));
+    }
+
+    @Test
+    public void reBranchKeepsTransactionInNewBlock() {
+        World world = new World();
+        Block genesis = world.getBlockChain().getBestBlock();
+        Block block1 = createBlockWithTransactions(world, genesis, 1);
+        Block block1b = new BlockBuilder(world).parent(genesis).transactions(block1.getTransactionsList()).build();
+        TransactionIndex transactionIndex = new TransactionIndex(new HashMapDB());
+
+        transactionIndex.addBlock(block1);
+        transactionIndex.reBranch(Collections.singletonList(block1), Collections.singletonList(block1b));
+
+        TransactionLocation location = transactionIndex.get(block1.getTransactionsList().get(0).getHash().getBytes());
+
+        Assert.assertNotNull(location);
+        Assert.assertArrayEquals(block1b.getHash().getBytes(), location.getBlockHash());
+    }
+
+    private static Block createBlockWithTransactions(World world, Block parent, int ntxs) {
+        Account sender = new AccountBuilder(world).name("sender").balance(Coin.valueOf(10000000)).build();
+        Account receiver = new AccountBuilder().name("receiver").build();
+        List<Transaction> txs = new ArrayList<>();
+
+        for (int k = 0; k < ntxs; k++) {
+            txs.add(new TransactionBuilder().sender(sender).receiver(receiver).nonce(k).value(BigInteger.valueOf(1000)).build());
+        }
+
+        return new BlockBuilder(world).parent(parent).transactions(txs).build();
+    }
+}
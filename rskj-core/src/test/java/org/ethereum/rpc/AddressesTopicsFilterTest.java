@@ -19,9 +19,11 @@
 package org.ethereum.rpc;
 
 import co.rsk.core.Address;
+import co.rsk.logfilter.BloomBits;
 import co.rsk.test.builders.AccountBuilder;
 import org.ethereum.core.Account;
 import org.ethereum.core.Bloom;
+import org.ethereum.crypto.Keccak256Helper;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -87,6 +89,55 @@ public class AddressesTopicsFilterTest {
         Assert.assertTrue(filter.matchBloom(getAllBloom()));
     }
 
+    @Test
+    public void matchBloomBitsWithAllFilter() {
+        BloomBits bloomBits = new BloomBits(10);
+        bloomBits.addBlockBloom(10, new Bloom());
+        bloomBits.addBlockBloom(11, getAllBloom());
+
+        AddressesTopicsFilter filter = new AddressesTopicsFilter(new Address[0], null);
+
+        Assert.assertArrayEquals(new long[] { 0x03L }, filter.matchBloomBits(bloomBits));
+    }
+
+    @Test
+    public void matchBloomBitsWithFilterWithAccounts() {
+        Address address1 = new AccountBuilder().name("account1").build().getAddress();
+        Address address2 = new AccountBuilder().name("account2").build().getAddress();
+        Address address3 = new AccountBuilder().name("account3").build().getAddress();
+
+        BloomBits bloomBits = new BloomBits(0);
+        bloomBits.addBlockBloom(0, Bloom.create(Keccak256Helper.keccak256(address1.getBytes())));
+        bloomBits.addBlockBloom(1, new Bloom());
+        bloomBits.addBlockBloom(2, Bloom.create(Keccak256Helper.keccak256(address2.getBytes())));
+        bloomBits.addBlockBloom(3, Bloom.create(Keccak256Helper.keccak256(address3.getBytes())));
+
+        AddressesTopicsFilter filter = new AddressesTopicsFilter(new Address[] { address1, address2 }, null);
+
+        Assert.assertArrayEquals(new long[] { 0x05L }, filter.matchBloomBits(bloomBits));
+    }
+
+    @Test
+    public void matchBloomBitsWithFilterWithAccountAndTopic() {
+        Address address = new AccountBuilder().name("account").build().getAddress();
+        Topic topic = createTopic();
+
+        Bloom addressBloom = Bloom.create(Keccak256Helper.keccak256(address.getBytes()));
+        Bloom topicBloom = Bloom.create(Keccak256Helper.keccak256(topic.getBytes()));
+        Bloom bothBloom = new Bloom();
+        bothBloom.or(addressBloom);
+        bothBloom.or(topicBloom);
+
+        BloomBits bloomBits = new BloomBits(0);
+        bloomBits.addBlockBloom(0, addressBloom);
+        bloomBits.addBlockBloom(1, topicBloom);
+        bloomBits.addBlockBloom(2, bothBloom);
+
+        AddressesTopicsFilter filter = new AddressesTopicsFilter(new Address[] { address }, new Topic[][] {{ topic }});
+
+        Assert.assertArrayEquals(new long[] { 0x04L }, filter.matchBloomBits(bloomBits));
+    }
+
     private static Topic createTopic() {
         byte[] bytes = new byte[32];
         Random random = new Random();
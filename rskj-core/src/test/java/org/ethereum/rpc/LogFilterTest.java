@@ -21,11 +21,25 @@ package org.ethereum.rpc;
 import co.rsk.blockchain.utils.BlockGenerator;
 import co.rsk.core.Address;
 import co.rsk.core.bc.Blockchain;
+import co.rsk.logfilter.BlocksBloom;
+import co.rsk.logfilter.BlocksBloomProcessor;
+import co.rsk.logfilter.BlocksBloomStore;
 import org.ethereum.core.Block;
+import org.ethereum.core.Bloom;
+import org.ethereum.crypto.Keccak256Helper;
+import org.ethereum.datasource.HashMapDB;
+import org.ethereum.db.BlockStore;
 import org.ethereum.util.RskTestFactory;
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
 /**
  * Created by ajlopez on 17/01/2018.
  */
@@ -109,4 +123,129 @@ public class LogFilterTest {
         Assert.assertNotNull(result);
         Assert.assertEquals(1, result.length);
     }
+
+    @Test
+    public void skipSectionsNotMatchingBlocksBloom() throws Exception {
+        Address address = new Address("0x0000000000000000000000000000000000000001");
+        List<Block> blocks = createBlocks(16, address, 9);
+        Blockchain blockchain = createBlockchain(blocks);
+        BlocksBloomStore blocksBloomStore = createBlocksBloomStore(blocks, 4);
+
+        LogFilter.fromFilterRequest(createFilterRequest(address, 15), blockchain, blocksBloomStore);
+
+        // from and to blocks, plus the only candidate block
+        verify(blockchain, times(3)).getBlockByNumber(anyLong());
+        verify(blockchain, times(1)).getBlockByNumber(9);
+        verify(blockchain, never()).getBlockByNumber(4);
+        verify(blockchain, never()).getBlockByNumber(8);
+    }
+
+    @Test
+    public void processMatchingSectionsWithoutBloomBits() throws Exception {
+        Address address = new Address("0x0000000000000000000000000000000000000001");
+        List<Block> blocks = createBlocks(16, address, 9);
+        Blockchain blockchain = createBlockchain(blocks);
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(4, null);
+
+        for (int k = 0; k < blocks.size(); k += 4) {
+            Bloom bloom = new Bloom();
+
+            for (int j = k; j < k + 4; j++) {
+                bloom.or(new Bloom(blocks.get(j).getLogBloom()));
+            }
+
+            blocksBloomStore.setBlocksBloom(new BlocksBloom(k, k + 3, bloom));
+        }
+
+        LogFilter.fromFilterRequest(createFilterRequest(address, 15), blockchain, blocksBloomStore);
+
+        // from and to blocks, plus the only matching section
+        verify(blockchain, times(6)).getBlockByNumber(anyLong());
+        verify(blockchain, times(1)).getBlockByNumber(9);
+        verify(blockchain, never()).getBlockByNumber(4);
+    }
+
+    @Test
+    public void processAllBlocksWithoutBlocksBloomStore() throws Exception {
+        Address address = new Address("0x0000000000000000000000000000000000000001");
+        List<Block> blocks = createBlocks(16, address, 9);
+        Blockchain blockchain = createBlockchain(blocks);
+
+        LogFilter.fromFilterRequest(createFilterRequest(address, 15), blockchain, null);
+
+        verify(blockchain, times(18)).getBlockByNumber(anyLong());
+    }
+
+    @Ignore
+    @Test
+    public void retrieveHistoricalDataPerformance() throws Exception {
+        int nblocks = 100000;
+        Address address = new Address("0x0000000000000000000000000000000000000001");
+        List<Block> blocks = createBlocks(nblocks, address, nblocks / 2);
+        Blockchain blockchain = createBlockchain(blocks);
+        BlocksBloomStore blocksBloomStore = createBlocksBloomStore(blocks, 64);
+
+        for (int k = 0; k < 10; k++) {
+            long start = System.nanoTime();
+            LogFilter.fromFilterRequest(createFilterRequest(address, nblocks - 1), blockchain, null);
+            long scanTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            LogFilter.fromFilterRequest(createFilterRequest(address, nblocks - 1), blockchain, blocksBloomStore);
+            long indexTime = System.nanoTime() - start;
+
+            System.out.println(String.format("blocks: %d scan: %d us index: %d us", nblocks, scanTime / 1000, indexTime / 1000));
+        }
+    }
+
+    private static List<Block> createBlocks(int size, Address address, int blockWithAddress) {
+        BlockGenerator blockGenerator = new BlockGenerator();
+        Bloom addressBloom = Bloom.create(Keccak256Helper.keccak256(address.getBytes()));
+        List<Block> blocks = new ArrayList<>();
+
+        for (int k = 0; k < size; k++) {
+            Block block = blockGenerator.createBlock(k, 0);
+
+            if (k == blockWithAddress) {
+                block.getHeader().setLogsBloom(addressBloom.getData());
+            }
+
+            blocks.add(block);
+        }
+
+        return blocks;
+    }
+
+    private static Blockchain createBlockchain(List<Block> blocks) {
+        Blockchain blockchain = mock(Blockchain.class);
+
+        when(blockchain.getBlockByNumber(anyLong())).then(invocation -> blocks.get((int)(long) invocation.getArguments()[0]));
+        when(blockchain.getBestBlock()).thenReturn(blocks.get(blocks.size() - 1));
+
+        return blockchain;
+    }
+
+    private static BlocksBloomStore createBlocksBloomStore(List<Block> blocks, int noBlocks) {
+        BlockStore blockStore = mock(BlockStore.class);
+        when(blockStore.getChainBlockByNumber(anyLong())).then(invocation -> blocks.get((int)(long) invocation.getArguments()[0]));
+
+        BlocksBloomStore blocksBloomStore = new BlocksBloomStore(noBlocks, new HashMapDB());
+        BlocksBloomProcessor processor = new BlocksBloomProcessor(blocksBloomStore, blockStore, 0);
+
+        for (Block block : blocks) {
+            processor.processNewBlockNumber(block.getNumber());
+        }
+
+        return blocksBloomStore;
+    }
+
+    private static Web3.FilterRequest createFilterRequest(Address address, long toBlock) {
+        Web3.FilterRequest fr = new Web3.FilterRequest();
+
+        fr.address = address.toString();
+        fr.fromBlock = "0x0";
+        fr.toBlock = TypeConverter.toJsonHex(toBlock);
+
+        return fr;
+    }
 }
@@ -697,6 +697,7 @@ public class Web3ImplLogsTest {
                 null,
                 null,
                 null,
+                null,
                 new SimpleConfigCapabilities(),
                 null
         );
@@ -381,6 +381,7 @@ public class Web3ImplScoringTest {
                 null,
                 null,
                 null,
+                null,
                 null
         );
     }
@@ -165,6 +165,7 @@ public class Web3ImplSnapshotTest {
                 factory.getTransactionPool(),
                 factory.getBlockStore(),
                 factory.getReceiptStore(),
+                null,
                 Web3Mocks.getMockProperties(),
                 minerClient,
                 minerServer,
@@ -255,6 +255,7 @@ public class Web3ImplTest {
                 transactionPool,
                 blockStore,
                 null,
+                null,
                 mockProperties,
                 minerClient,
                 null,
@@ -935,6 +936,7 @@ public class Web3ImplTest {
                 transactionPool,
                 blockStore,
                 null,
+                null,
                 mockProperties,
                 null,
                 minerServerMock,
@@ -1266,6 +1268,7 @@ public class Web3ImplTest {
                 null,
                 null,
                 null,
+                null,
                 peerServer,
                 null,
                 null,
@@ -1322,6 +1325,7 @@ public class Web3ImplTest {
                 blockStore,
                 receiptStore,
                 null,
+                null,
                 nodeBlockProcessor,
                 null,
                 configCapabilities,
@@ -138,6 +138,7 @@ public class RskTestFactory {
                     getRepository(),
                     getBlockStore(),
                     getReceiptStore(),
+                    null,
                     getTransactionPool(),
                     getCompositeEthereumListener(),
                     new DummyBlockValidator(),
@@ -20,9 +20,12 @@
 package org.ethereum.vm;
 
 import co.rsk.config.TestSystemProperties;
+import org.ethereum.crypto.ECKey;
+import org.ethereum.crypto.HashUtil;
 import org.ethereum.util.BIUtil;
 import org.ethereum.util.ByteUtil;
 import org.ethereum.vm.PrecompiledContracts.PrecompiledContract;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.bouncycastle.util.encoders.Hex;
 
@@ -119,6 +122,26 @@ public class PrecompiledContractTest {
         System.out.println(Hex.toHexString(result));
 
     }
+    @Test
+    public void ecRecoverSignedHash() {
+        ECKey key = new ECKey();
+        byte[] hash = HashUtil.keccak256(new byte[] { 0x01, 0x02 });
+        byte[] data = ecRecoverData(key, hash);
+
+        DataWord addr = new DataWord("0000000000000000000000000000000000000000000000000000000000000001");
+        PrecompiledContract contract = precompiledContracts.getContractForAddress(null, addr);
+
+        byte[] result = contract.execute(data);
+
+        assertArrayEquals(new DataWord(key.getAddress()).getData(), result);
+
+        // a repeated call returns the same result, in a new array
+        byte[] result2 = contract.execute(data);
+
+        assertArrayEquals(result, result2);
+        assertNotSame(result, result2);
+    }
+
     @Test
     public void modExpTest() {
 
@@ -228,4 +251,64 @@ public class PrecompiledContractTest {
         assertArrayEquals(EMPTY_BYTE_ARRAY, contract.execute(null));
     }
 
+    @Ignore
+    @Test
+    public void benchmarkPrecompiledContracts() {
+        int ncalls = 2000;
+        // less distinct signatures than the cache size
+        byte[][] ecRecoverInputs = new byte[500][];
+
+        for (int k = 0; k < ecRecoverInputs.length; k++) {
+            ecRecoverInputs[k] = ecRecoverData(new ECKey(), HashUtil.keccak256(BigInteger.valueOf(k).toByteArray()));
+        }
+
+        byte[] hashInput = new byte[1024];
+        byte[] modExpInput = Hex.decode(
+                "0000000000000000000000000000000000000000000000000000000000000020" +
+                        "0000000000000000000000000000000000000000000000000000000000000020" +
+                        "0000000000000000000000000000000000000000000000000000000000000020" +
+                        "03" +
+                        "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2e" +
+                        "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2f");
+
+        // the first pass computes the ecrecover results, the second one gets them from the cache
+        benchmark("ECRECOVER", "0000000000000000000000000000000000000000000000000000000000000001", ecRecoverInputs);
+        benchmark("ECRECOVER (cached)", "0000000000000000000000000000000000000000000000000000000000000001", ecRecoverInputs);
+        benchmark("SHA256 1KB", "0000000000000000000000000000000000000000000000000000000000000002", repeat(hashInput, ncalls));
+        benchmark("RIPEMD160 1KB", "0000000000000000000000000000000000000000000000000000000000000003", repeat(hashInput, ncalls));
+        benchmark("MODEXP (cached)", "0000000000000000000000000000000000000000000000000000000000000005", repeat(modExpInput, ncalls));
+    }
+
+    private void benchmark(String name, String address, byte[][] inputs) {
+        PrecompiledContract contract = precompiledContracts.getContractForAddress(null, new DataWord(address));
+
+        long start = System.nanoTime();
+
+        for (byte[] input : inputs) {
+            contract.execute(input);
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%s %d ns/call", name, elapsed / inputs.length));
+    }
+
+    private static byte[][] repeat(byte[] input, int ncalls) {
+        byte[][] inputs = new byte[ncalls][];
+
+        for (int k = 0; k < ncalls; k++) {
+            inputs[k] = input;
+        }
+
+        return inputs;
+    }
+
+    private static byte[] ecRecoverData(ECKey key, byte[] hash) {
+        ECKey.ECDSASignature signature = key.sign(hash);
+
+        return ByteUtil.merge(hash,
+                new DataWord(signature.v).getData(),
+                ByteUtil.bigIntegerToBytes(signature.r, 32),
+                ByteUtil.bigIntegerToBytes(signature.s, 32));
+    }
 }
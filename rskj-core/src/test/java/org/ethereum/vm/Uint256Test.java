@@ -0,0 +1,308 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.vm;
+
+import org.ethereum.util.ByteUtil;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class Uint256Test {
+    private static final BigInteger TWO_256 = BigInteger.ONE.shiftLeft(256);
+    private static final BigInteger MAX = TWO_256.subtract(BigInteger.ONE);
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void fromBytesAndToBytes() {
+        byte[] data = new byte[32];
+
+        for (int k = 0; k < data.length; k++) {
+            data[k] = (byte) (k + 1);
+        }
+
+        long[] value = new long[Uint256.LIMBS];
+        Uint256.fromBytes(data, value);
+
+        Assert.assertEquals(0x191a1b1c1d1e1f20L, value[0]);
+        Assert.assertEquals(0x0102030405060708L, value[3]);
+
+        byte[] result = new byte[32];
+        Uint256.toBytes(value, result);
+
+        Assert.assertArrayEquals(data, result);
+    }
+
+    @Test
+    public void isSmall() {
+        Assert.assertTrue(Uint256.isSmall(new DataWord(Long.MAX_VALUE).getData()));
+        Assert.assertFalse(Uint256.isSmall(new DataWord(Long.MIN_VALUE).getData()));
+        Assert.assertFalse(Uint256.isSmall(word(BigInteger.ONE.shiftLeft(64)).getData()));
+    }
+
+    @Test
+    public void multiplyHighUnsigned() {
+        BigInteger two64 = BigInteger.ONE.shiftLeft(64);
+
+        for (int k = 0; k < 1000; k++) {
+            long x = random.nextLong();
+            long y = random.nextLong();
+
+            BigInteger expected = unsigned(x).multiply(unsigned(y)).divide(two64);
+
+            Assert.assertEquals(expected.longValue(), Uint256.multiplyHighUnsigned(x, y));
+        }
+    }
+
+    @Test
+    public void binaryOperationsAsBigInteger() {
+        List<BigInteger> values = values();
+
+        for (BigInteger a : values) {
+            for (BigInteger b : values) {
+                assertOperations(a, b);
+            }
+        }
+    }
+
+    @Test
+    public void modularOperationsAsBigInteger() {
+        List<BigInteger> values = values();
+
+        for (BigInteger a : values) {
+            for (BigInteger b : values) {
+                BigInteger m = values.get(random.nextInt(values.size()));
+
+                DataWord word = word(a);
+                word.addmod(word(b), word(m));
+                Assert.assertEquals(originalAddmod(a, b, m), word.value());
+
+                word = word(a);
+                word.mulmod(word(b), word(m));
+                Assert.assertEquals(m.signum() == 0 ? BigInteger.ZERO : a.multiply(b).mod(m), word.value());
+            }
+        }
+    }
+
+    @Test
+    public void addmodWrapsAroundAsTheOriginalImplementation() {
+        DataWord word = word(MAX.subtract(BigInteger.ONE));
+        word.addmod(word(MAX.subtract(BigInteger.ONE)), word(MAX));
+
+        // the reduced operands sum wraps around 2^256 before the last reduction
+        Assert.assertEquals(MAX.subtract(BigInteger.valueOf(3)), word.value());
+        Assert.assertEquals(originalAddmod(MAX.subtract(BigInteger.ONE), MAX.subtract(BigInteger.ONE), MAX), word.value());
+    }
+
+    @Test
+    public void addmodAsTheOriginalImplementation() {
+        for (int k = 0; k < 20000; k++) {
+            // operands around 2^248, where the original implementation reduces them first
+            BigInteger a = new BigInteger(240 + random.nextInt(17), random);
+            BigInteger b = new BigInteger(240 + random.nextInt(17), random);
+            BigInteger m = random.nextInt(8) == 0 ? MAX.subtract(BigInteger.valueOf(random.nextInt(4))) : new BigInteger(1 + random.nextInt(256), random);
+
+            DataWord word = word(a);
+            word.addmod(word(b), word(m));
+
+            Assert.assertEquals(originalAddmod(a, b, m), word.value());
+        }
+    }
+
+    @Test
+    public void divideMinimumSignedValueByMinusOne() {
+        DataWord word = word(BigInteger.ONE.shiftLeft(255));
+        word.sDiv(word(MAX));
+
+        Assert.assertEquals(BigInteger.ONE.shiftLeft(255), word.value());
+    }
+
+    @Test
+    public void signExtend() {
+        DataWord word = new DataWord(0x80);
+        word.signExtend((byte) 0);
+
+        Assert.assertEquals(MAX.subtract(BigInteger.valueOf(0x7f)), word.value());
+
+        word = new DataWord(0x7f80);
+        word.signExtend((byte) 1);
+
+        Assert.assertEquals(BigInteger.valueOf(0x7f80), word.value());
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkOperations() {
+        List<BigInteger> values = values();
+        int iterations = 200;
+
+        String[] names = { "MUL", "DIV", "SDIV", "SUB", "MOD", "SMOD", "EXP", "ADDMOD", "MULMOD" };
+
+        for (int op = 0; op < names.length; op++) {
+            long limbsTime = 0;
+            long bigIntegerTime = 0;
+            long count = 0;
+
+            for (int n = 0; n < iterations; n++) {
+                for (BigInteger a : values) {
+                    for (BigInteger b : values) {
+                        DataWord word = word(a);
+                        DataWord other = word(b);
+
+                        long start = System.nanoTime();
+                        limbsOperation(op, word, other);
+                        limbsTime += System.nanoTime() - start;
+
+                        start = System.nanoTime();
+                        bigIntegerOperation(op, a, b);
+                        bigIntegerTime += System.nanoTime() - start;
+
+                        count++;
+                    }
+                }
+            }
+
+            System.out.println(String.format("%s limbs %d ns/op BigInteger %d ns/op", names[op], limbsTime / count, bigIntegerTime / count));
+        }
+    }
+
+    private void assertOperations(BigInteger a, BigInteger b) {
+        DataWord word = word(a);
+        word.mul(word(b));
+        Assert.assertEquals(a.multiply(b).and(MAX), word.value());
+
+        word = word(a);
+        word.sub(word(b));
+        Assert.assertEquals(a.subtract(b).and(MAX), word.value());
+
+        word = word(a);
+        word.div(word(b));
+        Assert.assertEquals(b.signum() == 0 ? BigInteger.ZERO : a.divide(b), word.value());
+
+        word = word(a);
+        word.mod(word(b));
+        Assert.assertEquals(b.signum() == 0 ? BigInteger.ZERO : a.mod(b), word.value());
+
+        word = word(a);
+        word.sDiv(word(b));
+        Assert.assertEquals(b.signum() == 0 ? BigInteger.ZERO : signed(a).divide(signed(b)).and(MAX), word.value());
+
+        word = word(a);
+        word.sMod(word(b));
+        Assert.assertEquals(b.signum() == 0 ? BigInteger.ZERO : signed(a).abs().mod(signed(b).abs()).multiply(BigInteger.valueOf(signed(a).signum() < 0 ? -1 : 1)).and(MAX), word.value());
+
+        word = word(a);
+        word.exp(word(b));
+        Assert.assertEquals(a.modPow(b, TWO_256), word.value());
+
+        Assert.assertEquals(a.compareTo(b), word(a).compareTo(word(b)));
+        Assert.assertEquals(signed(a).compareTo(signed(b)), word(a).sCompareTo(word(b)));
+    }
+
+    private static void limbsOperation(int op, DataWord word, DataWord other) {
+        switch (op) {
+            case 0: word.mul(other); break;
+            case 1: word.div(other); break;
+            case 2: word.sDiv(other); break;
+            case 3: word.sub(other); break;
+            case 4: word.mod(other); break;
+            case 5: word.sMod(other); break;
+            case 6: word.exp(other); break;
+            case 7: word.addmod(other, other); break;
+            default: word.mulmod(other, other); break;
+        }
+    }
+
+    private static BigInteger bigIntegerOperation(int op, BigInteger a, BigInteger b) {
+        if (b.signum() == 0) {
+            return op == 0 || op == 3 || op == 6 ? a.multiply(b) : BigInteger.ZERO;
+        }
+
+        switch (op) {
+            case 0: return a.multiply(b).and(MAX);
+            case 1: return a.divide(b);
+            case 2: return signed(a).divide(signed(b)).and(MAX);
+            case 3: return a.subtract(b).and(MAX);
+            case 4: return a.mod(b);
+            case 5: return signed(a).abs().mod(signed(b).abs()).and(MAX);
+            case 6: return a.modPow(b, TWO_256);
+            case 7: return a.add(b).mod(b);
+            default: return a.multiply(b).mod(b);
+        }
+    }
+
+    private List<BigInteger> values() {
+        List<BigInteger> values = new ArrayList<>();
+
+        values.add(BigInteger.ZERO);
+        values.add(BigInteger.ONE);
+        values.add(BigInteger.valueOf(2));
+        values.add(BigInteger.valueOf(3));
+        values.add(BigInteger.valueOf(255));
+        values.add(BigInteger.ONE.shiftLeft(32));
+        values.add(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE));
+        values.add(BigInteger.ONE.shiftLeft(64));
+        values.add(BigInteger.ONE.shiftLeft(128).add(BigInteger.ONE));
+        values.add(BigInteger.ONE.shiftLeft(255));
+        values.add(BigInteger.ONE.shiftLeft(255).subtract(BigInteger.ONE));
+        values.add(MAX);
+        values.add(MAX.subtract(BigInteger.ONE));
+
+        for (int k = 0; k < 40; k++) {
+            int bits = 1 + random.nextInt(256);
+            values.add(new BigInteger(bits, random));
+        }
+
+        return values;
+    }
+
+    /**
+     * The addmod of the original BigInteger based DataWord, step by step
+     */
+    private static BigInteger originalAddmod(BigInteger a, BigInteger b, BigInteger m) {
+        if (m.signum() == 0) {
+            return BigInteger.ZERO;
+        }
+
+        if (a.bitLength() > 248 || b.bitLength() > 248) {
+            a = a.mod(m);
+            b = b.mod(m);
+        }
+
+        return a.add(b).and(MAX).mod(m);
+    }
+
+    private static DataWord word(BigInteger value) {
+        return new DataWord(ByteUtil.copyToArray(value));
+    }
+
+    private static BigInteger signed(BigInteger value) {
+        return value.testBit(255) ? value.subtract(TWO_256) : value;
+    }
+
+    private static BigInteger unsigned(long value) {
+        BigInteger result = BigInteger.valueOf(value);
+        return value < 0 ? result.add(BigInteger.ONE.shiftLeft(64)) : result;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.vm.program;
+
+import co.rsk.config.TestSystemProperties;
+import co.rsk.config.VmConfig;
+import co.rsk.core.Address;
+import co.rsk.vm.BytecodeCompiler;
+import org.ethereum.config.BlockchainConfig;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.PrecompiledContracts;
+import org.ethereum.vm.VM;
+import org.ethereum.vm.program.invoke.ProgramInvokeMockImpl;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.mock;
+
+public class ExecutionContextTest {
+    private static final TestSystemProperties config = new TestSystemProperties();
+    private static final VmConfig vmConfig = config.getVmConfig();
+    private static final PrecompiledContracts precompiledContracts = new PrecompiledContracts(config);
+    private static final BlockchainConfig blockchainConfig = mock(BlockchainConfig.class);
+
+    @Test
+    public void reuseStackAndMemoryAfterRelease() throws InterruptedException {
+        // each thread has its own context, a new one starts without taken frames
+        runInNewThread(() -> {
+            Program program = execute("PUSH1 0x2a PUSH1 0x00 MSTORE PUSH1 0x01 PUSH1 0x02");
+
+            Stack stack = program.getStack();
+            Memory memory = Whitebox.getInternalState(program, "memory");
+
+            Assert.assertEquals(2, stack.size());
+            Assert.assertEquals(32, memory.size());
+
+            program.release();
+
+            Program program2 = new Program(vmConfig, precompiledContracts, blockchainConfig, new byte[0], new ProgramInvokeMockImpl(), null);
+
+            Assert.assertSame(stack, program2.getStack());
+            Assert.assertSame(memory, Whitebox.getInternalState(program2, "memory"));
+            Assert.assertEquals(0, stack.size());
+            Assert.assertEquals(0, memory.size());
+            Assert.assertEquals(1, ExecutionContext.current().getReusedFrames());
+        });
+    }
+
+    @Test
+    public void reusedMemoryIsCleared() throws InterruptedException {
+        runInNewThread(() -> {
+            execute("PUSH1 0x2a PUSH1 0x00 MSTORE").release();
+
+            Program program = execute("PUSH1 0x00 MLOAD MSIZE");
+
+            Assert.assertEquals(new DataWord(32), program.getStack().pop());
+            Assert.assertEquals(DataWord.ZERO, program.getStack().pop());
+        });
+    }
+
+    @Test
+    public void allocateNewFrameWhenTaken() throws InterruptedException {
+        runInNewThread(() -> {
+            Program program = execute("PUSH1 0x01");
+            Program program2 = execute("PUSH1 0x02");
+
+            Assert.assertNotSame(program.getStack(), program2.getStack());
+            Assert.assertNotSame(Whitebox.getInternalState(program, "memory"), Whitebox.getInternalState(program2, "memory"));
+            Assert.assertEquals(1, program.getStack().size());
+            Assert.assertEquals(1, ExecutionContext.current().getAllocatedFrames());
+
+            // releasing a frame that is not kept by the context does nothing
+            program2.release();
+            Assert.assertEquals(1, program.getStack().size());
+        });
+    }
+
+    @Test
+    public void framesOfDeepCallsAreNotKept() throws InterruptedException {
+        runInNewThread(() -> {
+            ExecutionContext context = ExecutionContext.current();
+
+            ExecutionContext.Frame frame = context.acquire(ExecutionContext.MAX_RETAINED_DEPTH - 1);
+            context.release(frame);
+            Assert.assertSame(frame, context.acquire(ExecutionContext.MAX_RETAINED_DEPTH - 1));
+
+            ExecutionContext.Frame deepFrame = context.acquire(ExecutionContext.MAX_RETAINED_DEPTH);
+            context.release(deepFrame);
+            Assert.assertNotSame(deepFrame, context.acquire(ExecutionContext.MAX_RETAINED_DEPTH));
+            Assert.assertEquals(2, context.getAllocatedFrames());
+            Assert.assertEquals(ExecutionContext.MAX_RETAINED_DEPTH, ((List<?>) Whitebox.getInternalState(context, "frames")).size());
+        });
+    }
+
+    @Test
+    public void nestedCallsReuseTheFrameOfTheirDepth() throws InterruptedException {
+        runInNewThread(() -> {
+            Address callee = new Address("0000000000000000000000000000000000000010");
+            ProgramInvokeMockImpl invoke = new ProgramInvokeMockImpl(compile(
+                    call(callee) + " POP " + call(callee) + " PUSH1 0x00 MLOAD"), null);
+            invoke.getRepository().createAccount(callee);
+            invoke.getRepository().saveCode(callee, compile("PUSH1 0x2a PUSH1 0x00 MSTORE PUSH1 0x20 PUSH1 0x00 RETURN"));
+
+            Program program = execute(invoke);
+
+            Assert.assertNull(program.getResult().getException());
+            Assert.assertEquals(new DataWord(0x2a), program.getStack().pop());
+            Assert.assertEquals(new DataWord(1), program.getStack().pop());
+            // the second call reuses the frame released by the first one
+            Assert.assertEquals(1, ExecutionContext.current().getReusedFrames());
+            Assert.assertEquals(0, ExecutionContext.current().getAllocatedFrames());
+        });
+    }
+
+    @Test
+    public void allocateStructuresWhenDisabled() throws InterruptedException {
+        runInNewThread(() -> {
+            ExecutionContext.setEnabled(false);
+
+            try {
+                Program program = execute("PUSH1 0x01");
+                Stack stack = program.getStack();
+                program.release();
+
+                Assert.assertNotSame(stack, execute("PUSH1 0x01").getStack());
+                Assert.assertEquals(0, ExecutionContext.current().getReusedFrames());
+            } finally {
+                ExecutionContext.setEnabled(true);
+            }
+        });
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkAllocatedBytes() throws InterruptedException {
+        String code = "PUSH1 0x2a PUSH2 0x0400 MSTORE PUSH1 0x01 PUSH1 0x02 ADD PUSH1 0x03 MUL PUSH1 0x00 MSTORE";
+        int nprograms = 100000;
+
+        for (boolean enabled : new boolean[] { false, true, false, true }) {
+            runInNewThread(() -> {
+                ExecutionContext.setEnabled(enabled);
+                com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                long threadId = Thread.currentThread().getId();
+
+                long allocated = threadBean.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+
+                for (int k = 0; k < nprograms; k++) {
+                    execute(code).release();
+                }
+
+                long time = System.nanoTime() - start;
+                allocated = threadBean.getThreadAllocatedBytes(threadId) - allocated;
+
+                System.out.println(String.format("reuse %s: %d bytes/program, %d ns/program", enabled, allocated / nprograms, time / nprograms));
+            });
+        }
+
+        ExecutionContext.setEnabled(true);
+    }
+
+    private static String call(Address address) {
+        return "PUSH1 0x20 PUSH1 0x00 PUSH1 0x00 PUSH1 0x00 PUSH1 0x00 PUSH20 0x" + address.toString() + " GAS CALL";
+    }
+
+    private static Program execute(String code) {
+        return execute(new ProgramInvokeMockImpl(compile(code), null));
+    }
+
+    private static Program execute(ProgramInvokeMockImpl invoke) {
+        Program program = new Program(vmConfig, precompiledContracts, blockchainConfig, invoke.getRepository().getCode(invoke.getContractAddress()), invoke, null);
+        new VM(vmConfig, precompiledContracts).play(program);
+        return program;
+    }
+
+    private static byte[] compile(String code) {
+        return new BytecodeCompiler().compile(code);
+    }
+
+    private static void runInNewThread(Runnable test) throws InterruptedException {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                test.run();
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        });
+
+        thread.start();
+        thread.join();
+
+        if (error.get() instanceof Error) {
+            throw (Error) error.get();
+        }
+
+        if (error.get() != null) {
+            throw new RuntimeException(error.get());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.vm.program;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.program.listener.ProgramListener;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EmptyStackException;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class StackTest {
+    @Test
+    public void createEmptyStack() {
+        Stack stack = new Stack();
+
+        Assert.assertTrue(stack.isEmpty());
+        Assert.assertEquals(0, stack.size());
+        Assert.assertEquals(0, stack.toArray().length);
+    }
+
+    @Test
+    public void pushPeekAndPop() {
+        Stack stack = new Stack();
+        DataWord word1 = new DataWord(1);
+        DataWord word2 = new DataWord(2);
+
+        stack.push(word1);
+        stack.push(word2);
+
+        Assert.assertEquals(2, stack.size());
+        Assert.assertSame(word2, stack.peek());
+        Assert.assertSame(word1, stack.get(0));
+        Assert.assertSame(word2, stack.pop());
+        Assert.assertSame(word1, stack.pop());
+        Assert.assertTrue(stack.isEmpty());
+    }
+
+    @Test(expected = EmptyStackException.class)
+    public void popEmptyStack() {
+        new Stack().pop();
+    }
+
+    @Test(expected = EmptyStackException.class)
+    public void peekEmptyStack() {
+        new Stack().peek();
+    }
+
+    @Test
+    public void swapItems() {
+        Stack stack = new Stack();
+        DataWord word1 = new DataWord(1);
+        DataWord word2 = new DataWord(2);
+        DataWord word3 = new DataWord(3);
+
+        stack.push(word1);
+        stack.push(word2);
+        stack.push(word3);
+
+        stack.swap(2, 0);
+
+        Assert.assertArrayEquals(new DataWord[] { word3, word2, word1 }, stack.toArray());
+    }
+
+    @Test
+    public void pushUpToMaximumSize() {
+        Stack stack = new Stack();
+
+        for (int k = 0; k < Stack.MAX_SIZE; k++) {
+            stack.push(new DataWord(k));
+        }
+
+        Assert.assertEquals(Stack.MAX_SIZE, stack.size());
+        Assert.assertEquals(new DataWord(Stack.MAX_SIZE - 1), stack.peek());
+
+        stack.clear();
+
+        Assert.assertTrue(stack.isEmpty());
+    }
+
+    @Test
+    public void notifyTraceListener() {
+        Stack stack = new Stack();
+        ProgramListener listener = mock(ProgramListener.class);
+        stack.setTraceListener(listener);
+        DataWord word = new DataWord(1);
+
+        stack.push(word);
+        stack.push(new DataWord(2));
+        stack.swap(1, 0);
+        stack.pop();
+
+        verify(listener).onStackPush(word);
+        verify(listener).onStackSwap(1, 0);
+        verify(listener).onStackPop();
+    }
+}
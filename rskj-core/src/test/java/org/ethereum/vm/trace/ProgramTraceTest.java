@@ -0,0 +1,68 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.vm.trace;
+
+import co.rsk.config.TestSystemProperties;
+import co.rsk.config.VmConfig;
+import co.rsk.vm.BytecodeCompiler;
+import org.ethereum.config.BlockchainConfig;
+import org.ethereum.vm.PrecompiledContracts;
+import org.ethereum.vm.VM;
+import org.ethereum.vm.program.Program;
+import org.ethereum.vm.program.invoke.ProgramInvokeMockImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+public class ProgramTraceTest {
+    private final TestSystemProperties config = new TestSystemProperties();
+    private final PrecompiledContracts precompiledContracts = new PrecompiledContracts(config);
+
+    @Test
+    public void traceOpsWithActions() {
+        List<Op> ops = traceOps(TraceDetail.FULL);
+
+        Assert.assertEquals(3, ops.size());
+        Assert.assertEquals(1, ops.get(1).getActions().getStack().size());
+        Assert.assertEquals(OpActions.Action.Name.PUSH, ops.get(1).getActions().getStack().get(0).getName());
+    }
+
+    @Test
+    public void traceOpsWithoutActions() {
+        List<Op> ops = traceOps(TraceDetail.OPS);
+
+        Assert.assertEquals(3, ops.size());
+        Assert.assertEquals("ADD", ops.get(2).getCode().name());
+        Assert.assertNull(ops.get(2).getActions());
+    }
+
+    private List<Op> traceOps(TraceDetail detail) {
+        VmConfig vmConfig = new VmConfig(true, 0, detail, false, -1, "");
+        ProgramInvokeMockImpl invoke = new ProgramInvokeMockImpl();
+        byte[] code = new BytecodeCompiler().compile("PUSH1 0x01 PUSH1 0x02 ADD");
+
+        Program program = new Program(vmConfig, precompiledContracts, mock(BlockchainConfig.class), code, invoke, null);
+        new VM(vmConfig, precompiledContracts).play(program);
+
+        return program.getTrace().getOps();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2018 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.vm.trace;
+
+import co.rsk.config.TestSystemProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ethereum.vm.OpCode;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+public class ProgramTraceWriterTest {
+    private final TestSystemProperties config = new TestSystemProperties();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Rule
+    public TemporaryFolder tempRule = new TemporaryFolder();
+
+    @Test
+    public void writeOpsAsJsonLines() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProgramTraceWriter writer = new ProgramTraceWriter(out);
+        ProgramTrace trace = new ProgramTrace(config.getVmConfig(), null);
+        trace.setWriter(writer);
+
+        trace.addOp(OpCode.PUSH1.val(), 0, 0, 1000, null);
+        trace.addOp(OpCode.ADD.val(), 2, 1, 997, null);
+
+        Assert.assertTrue(trace.getOps().isEmpty());
+        Assert.assertEquals(2, writer.getOpsCount());
+
+        writer.close(trace.result(new byte[] { 0x01 }));
+
+        List<String> lines = readLines(new ByteArrayInputStream(out.toByteArray()));
+
+        Assert.assertEquals(3, lines.size());
+
+        JsonNode op = mapper.readTree(lines.get(1));
+        Assert.assertEquals("ADD", op.get("code").asText());
+        Assert.assertEquals(2, op.get("pc").asInt());
+        Assert.assertEquals(1, op.get("deep").asInt());
+        Assert.assertEquals(997, op.get("gas").asLong());
+
+        JsonNode summary = mapper.readTree(lines.get(2));
+        Assert.assertEquals("01", summary.get("result").asText());
+        Assert.assertEquals(0, summary.get("ops").size());
+        Assert.assertNull(summary.get("writer"));
+    }
+
+    @Test
+    public void writeCompressedTraceFile() throws IOException {
+        Path basePath = tempRule.newFolder().toPath().resolve("vmtrace");
+        ProgramTraceWriter writer = ProgramTraceWriter.create(basePath, "1234", true);
+        ProgramTrace trace = new ProgramTrace(config.getVmConfig(), null);
+        trace.setWriter(writer);
+
+        for (int k = 0; k < 1000; k++) {
+            trace.addOp(OpCode.JUMPDEST.val(), k, 0, 100000 - k, null);
+        }
+
+        writer.close(trace);
+
+        List<String> lines = readLines(new GZIPInputStream(Files.newInputStream(basePath.resolve("1234.jsonl.gz"))));
+
+        Assert.assertEquals(1001, lines.size());
+        Assert.assertEquals(999, mapper.readTree(lines.get(999)).get("pc").asInt());
+    }
+
+    @Test
+    public void writePlainTraceFile() throws IOException {
+        Path basePath = tempRule.newFolder().toPath();
+        ProgramTraceWriter writer = ProgramTraceWriter.create(basePath, "1234", false);
+
+        writer.writeOp(new Op());
+        writer.close(new ProgramTrace(config.getVmConfig(), null));
+
+        Assert.assertEquals(2, readLines(Files.newInputStream(basePath.resolve("1234.jsonl"))).size());
+    }
+
+    private static List<String> readLines(InputStream in) throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+
+        return lines;
+    }
+}